@@ -0,0 +1,47 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.utils.AuditUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.benchmarks.BenchmarkFixtures.createReservationEntity;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditBenchmark {
+
+    private AuditUtils auditUtils;
+
+    private Reservation createdReservation;
+
+    private Reservation newReservation;
+
+    @Setup
+    public void setUp() {
+        auditUtils = new AuditUtils();
+        createdReservation = createReservationEntity(1L);
+        auditUtils.AuditDefineFields(createdReservation);
+        newReservation = createReservationEntity(2L);
+    }
+
+    @Benchmark
+    public Reservation auditUpdate() {
+        auditUtils.AuditDefineFields(createdReservation);
+
+        return createdReservation;
+    }
+
+    @Benchmark
+    public Reservation auditInsert() {
+        newReservation.setCreatedAt(null);
+        auditUtils.AuditDefineFields(newReservation);
+
+        return newReservation;
+    }
+}
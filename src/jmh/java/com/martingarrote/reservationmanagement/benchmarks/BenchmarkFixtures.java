@@ -0,0 +1,31 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+
+import java.time.LocalDate;
+
+public class BenchmarkFixtures {
+
+    public static Reservation createReservationEntity(long id) {
+        Customer customer = new Customer(id, "Customer " + id, LocalDate.of(1990, 10, 5),
+                String.format("%011d", id), "customer" + id + "@example.com");
+        Room room = new Room(id, (int) id, "Room " + id, 30d, 500d, false, true);
+
+        return new Reservation(id, "RES" + id, customer, room, 6000.0, "Reservation " + id,
+                12, LocalDate.of(2023, 10, 1), LocalDate.of(2024, 10, 1), true);
+    }
+
+    public static ReservationDTO createReservationDTO(long id) {
+        CustomerDTO customerDTO = new CustomerDTO(id, "Customer " + id, LocalDate.of(1990, 10, 5),
+                String.format("%011d", id), "customer" + id + "@example.com");
+        RoomDTO roomDTO = new RoomDTO(id, (int) id, "Room " + id, 30D, 500D, false, true);
+
+        return new ReservationDTO(id, "RES" + id, customerDTO, roomDTO, 6000.0, "Reservation " + id,
+                12, LocalDate.of(2023, 10, 1), LocalDate.of(2024, 10, 1), true);
+    }
+}
@@ -0,0 +1,151 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.utils.SyntheticDataGenerator;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON x Smile x CBOR for reservation pages read from the load-test dataset (same generator and seed, a tenth of
+// its size). The average page size of each format is printed once, after the setup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    private static final String SELECT_PAGE = "SELECT r.id, r.code, c.id, c.name, c.date_of_birth, c.cpf, " +
+            "c.email, rr.id, rr.number, rr.description, rr.size, rr.price_per_month, rr.busy, rr.active, " +
+            "r.reservation_price, r.description, r.duration, r.start_date, r.end_date, r.active " +
+            "FROM reservation r LEFT JOIN customer c ON c.id = r.customer_id " +
+            "LEFT JOIN room rr ON rr.id = r.reserved_room_id WHERE r.id > ? ORDER BY r.id LIMIT ?";
+
+    private static final int CUSTOMERS = 10_000;
+
+    private static final int ROOMS = 1_000;
+
+    private static final int RESERVATIONS = 100_000;
+
+    private static final int PAGES = 64;
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private JavaType pageType;
+
+    private final List<PageDTO<ReservationDTO>> pages = new ArrayList<>();
+
+    private final List<byte[]> encodedPages = new ArrayList<>();
+
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        pageType = objectMapper.getTypeFactory().constructParametricType(PageDTO.class, ReservationDTO.class);
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:binary-format-benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load()
+                .migrate();
+
+        new SyntheticDataGenerator(dataSource, 42, 1).generate(CUSTOMERS, ROOMS, RESERVATIONS);
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (int page = 0; page < PAGES; page++) {
+                pages.add(readPage(connection, (long) page * (RESERVATIONS / PAGES)));
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+
+        long bytes = 0;
+
+        for (PageDTO<ReservationDTO> page : pages) {
+            byte[] encoded = objectMapper.writeValueAsBytes(page);
+            encodedPages.add(encoded);
+            bytes += encoded.length;
+        }
+
+        System.out.printf("%n%s, %d reservations per page: %d bytes per page on average%n",
+                format, pageSize, bytes / PAGES);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(pages.get(nextPage()));
+    }
+
+    @Benchmark
+    public PageDTO<ReservationDTO> deserializePage() throws Exception {
+        return objectMapper.readValue(encodedPages.get(nextPage()), pageType);
+    }
+
+    private int nextPage() {
+        next = (next + 1) % PAGES;
+
+        return next;
+    }
+
+    private PageDTO<ReservationDTO> readPage(Connection connection, long afterId) throws SQLException {
+        List<ReservationDTO> reservations = new ArrayList<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_PAGE)) {
+            statement.setLong(1, afterId);
+            statement.setInt(2, pageSize);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    CustomerDTO customer = new CustomerDTO(resultSet.getObject(3, Long.class), resultSet.getString(4),
+                            resultSet.getObject(5, LocalDate.class), resultSet.getString(6), resultSet.getString(7));
+                    RoomDTO room = new RoomDTO(resultSet.getObject(8, Long.class),
+                            resultSet.getObject(9, Integer.class), resultSet.getString(10),
+                            resultSet.getObject(11, Double.class), resultSet.getObject(12, Double.class),
+                            resultSet.getObject(13, Boolean.class), resultSet.getObject(14, Boolean.class));
+
+                    // getObject keeps the nulls of the rows inserted by the migrations
+                    reservations.add(new ReservationDTO(resultSet.getObject(1, Long.class), resultSet.getString(2),
+                            customer, room, resultSet.getObject(15, Double.class), resultSet.getString(16),
+                            resultSet.getObject(17, Integer.class), resultSet.getObject(18, LocalDate.class),
+                            resultSet.getObject(19, LocalDate.class), resultSet.getObject(20, Boolean.class)));
+                }
+            }
+        }
+
+        return new PageDTO<>(reservations, "aWR8MTAw");
+    }
+}
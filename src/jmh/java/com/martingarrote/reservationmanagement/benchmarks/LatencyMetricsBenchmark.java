@@ -0,0 +1,78 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.configurations.LatencyMetricsAspect;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.mappers.RoomMapper;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.benchmarks.BenchmarkFixtures.createReservationEntity;
+
+// Cost of the latency aspect on the cheapest call it wraps, a mapper call, with the same buckets as application.properties
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatencyMetricsBenchmark {
+
+    private static final double[] SLO_NANOS = {
+            1e5, 2.5e5, 5e5, 1e6, 2.5e6, 5e6, 1e7, 2.5e7, 5e7, 1e8, 2.5e8, 5e8, 1e9, 2.5e9, 5e9
+    };
+
+    private MapperInterface<Room, RoomDTO> mapper;
+
+    private MapperInterface<Room, RoomDTO> timedMapper;
+
+    private Room room;
+
+    @Setup
+    public void setUp() {
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().serviceLevelObjectives(SLO_NANOS).build().merge(config);
+            }
+        });
+
+        LatencyMetricsAspect aspect = new LatencyMetricsAspect();
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+
+        mapper = new RoomMapper();
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new RoomMapper());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        timedMapper = proxyFactory.getProxy();
+
+        room = createReservationEntity(1L).getReservedRoom();
+    }
+
+    @Benchmark
+    public RoomDTO untimed() {
+        return mapper.toDTO(room);
+    }
+
+    @Benchmark
+    public RoomDTO timed() {
+        return timedMapper.toDTO(room);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RoomDTO timedContended() {
+        return timedMapper.toDTO(room);
+    }
+}
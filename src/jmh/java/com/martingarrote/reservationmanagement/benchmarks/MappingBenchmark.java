@@ -0,0 +1,70 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.mappers.CustomerMapper;
+import com.martingarrote.reservationmanagement.mappers.ReservationMapper;
+import com.martingarrote.reservationmanagement.mappers.RoomMapper;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.benchmarks.BenchmarkFixtures.createReservationDTO;
+import static com.martingarrote.reservationmanagement.benchmarks.BenchmarkFixtures.createReservationEntity;
+
+// ModelMapper is only kept here, as the baseline the generated mappers are compared against
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+
+    private ModelMapper modelMapper;
+
+    private MapperInterface<Reservation, ReservationDTO> reservationMapper;
+
+    private Reservation reservation;
+
+    private ReservationDTO reservationDTO;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(CustomerMapper.class, RoomMapper.class, ReservationMapper.class);
+        reservationMapper = context.getBean(ReservationMapper.class);
+        modelMapper = new ModelMapper();
+        reservation = createReservationEntity(1L);
+        reservationDTO = createReservationDTO(1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReservationDTO modelMapperToDTO() {
+        return modelMapper.map(reservation, ReservationDTO.class);
+    }
+
+    @Benchmark
+    public ReservationDTO reservationMapperToDTO() {
+        return reservationMapper.toDTO(reservation);
+    }
+
+    @Benchmark
+    public Reservation modelMapperToEntity() {
+        return modelMapper.map(reservationDTO, Reservation.class);
+    }
+
+    @Benchmark
+    public Reservation reservationMapperToEntity() {
+        return reservationMapper.toEntity(reservationDTO);
+    }
+}
@@ -0,0 +1,93 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.mappers.CustomerMapper;
+import com.martingarrote.reservationmanagement.mappers.ReservationMapper;
+import com.martingarrote.reservationmanagement.mappers.RoomMapper;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
+import com.martingarrote.reservationmanagement.repositories.RoomRepository;
+import com.martingarrote.reservationmanagement.services.AuditTrailService;
+import com.martingarrote.reservationmanagement.services.OutboxService;
+import com.martingarrote.reservationmanagement.services.ReservationService;
+import com.martingarrote.reservationmanagement.services.RoomOccupancyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.benchmarks.BenchmarkFixtures.createReservationDTO;
+
+// Measures the price, date and rule computation of ReservationService.save, the repositories and the
+// services it notifies are stubs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationSaveBenchmark {
+
+    private ReservationService service;
+
+    private ReservationDTO reservationDTO;
+
+    @Setup
+    public void setUp() {
+        ReservationMapper reservationMapper = new ReservationMapper();
+        ReflectionTestUtils.setField(reservationMapper, "customerMapper", new CustomerMapper());
+        ReflectionTestUtils.setField(reservationMapper, "roomMapper", new RoomMapper());
+
+        ReservationRepository repository = (ReservationRepository) Proxy.newProxyInstance(
+                ReservationRepository.class.getClassLoader(),
+                new Class<?>[]{ReservationRepository.class},
+                (proxy, method, args) -> "save".equals(method.getName()) ? args[0] : null
+        );
+
+        // save() marks the room as busy with a partial update, which touches one row
+        RoomRepository roomRepository = (RoomRepository) Proxy.newProxyInstance(
+                RoomRepository.class.getClassLoader(),
+                new Class<?>[]{RoomRepository.class},
+                (proxy, method, args) -> "updateById".equals(method.getName()) ? 1 : null
+        );
+
+        RoomOccupancyService roomOccupancyService = new RoomOccupancyService() {
+            @Override
+            public void publish(long roomId) {
+            }
+        };
+
+        OutboxService outboxService = new OutboxService() {
+            @Override
+            public void record(EntityType aggregateType, long aggregateId, OutboxEventType type, Object payload) {
+            }
+        };
+
+        AuditTrailService auditTrailService = new AuditTrailService() {
+            @Override
+            public void record(EntityType entity, long entityId, AuditAction action, Object before, Object after) {
+            }
+        };
+
+        service = new ReservationService();
+        ReflectionTestUtils.setField(service, "reservationRepository", repository);
+        ReflectionTestUtils.setField(service, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(service, "roomOccupancyService", roomOccupancyService);
+        ReflectionTestUtils.setField(service, "outboxService", outboxService);
+        ReflectionTestUtils.setField(service, "auditTrailService", auditTrailService);
+        ReflectionTestUtils.setField(service, "mapper", reservationMapper);
+
+        reservationDTO = createReservationDTO(1L);
+    }
+
+    @Benchmark
+    public Long save() throws Exception {
+        // save() marks the room as busy, it has to be free again for the next call
+        reservationDTO.getReservedRoom().setBusy(false);
+
+        return service.save(reservationDTO);
+    }
+}
@@ -0,0 +1,203 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Compares the former OR search with the split per-filter queries over a million reservations (H2, same migrations)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchQueryBenchmark {
+
+    private static final String SELECT_RESERVATION = "SELECT r.id, r.code, c.id, c.name, c.date_of_birth, c.cpf, " +
+            "c.email, rr.id, rr.number, rr.description, rr.size, rr.price_per_month, rr.busy, rr.active, " +
+            "r.reservation_price, r.description, r.duration, r.start_date, r.end_date, r.active " +
+            "FROM reservation r LEFT JOIN customer c ON c.id = r.customer_id " +
+            "LEFT JOIN room rr ON rr.id = r.reserved_room_id ";
+
+    private static final String OR_SEARCH = SELECT_RESERVATION +
+            "WHERE r.active = ? OR r.end_date BETWEEN CURRENT_DATE AND ?";
+
+    private static final String ACTIVE_SEARCH = SELECT_RESERVATION + "WHERE r.active = ?";
+
+    private static final String END_DATE_SEARCH = SELECT_RESERVATION + "WHERE r.end_date BETWEEN ? AND ?";
+
+    private static final int CUSTOMERS = 1_000;
+
+    private static final int ROOMS = 500;
+
+    @Param({"1000000"})
+    int reservations;
+
+    private Connection connection;
+
+    private LocalDate today;
+
+    private LocalDate endsInDate;
+
+    @Setup
+    public void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load()
+                .migrate();
+
+        connection = dataSource.getConnection();
+        today = LocalDate.now();
+        endsInDate = today.plusMonths(2);
+
+        insertRows();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Object[]> orSearch() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(OR_SEARCH)) {
+            statement.setBoolean(1, true);
+            statement.setDate(2, Date.valueOf(endsInDate));
+
+            return readRows(statement);
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Object[]> splitSearch() throws SQLException {
+        Map<Long, Object[]> rows = new TreeMap<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(ACTIVE_SEARCH)) {
+            statement.setBoolean(1, true);
+            readRows(statement).forEach(row -> rows.put((Long) row[0], row));
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(END_DATE_SEARCH)) {
+            statement.setDate(1, Date.valueOf(today));
+            statement.setDate(2, Date.valueOf(endsInDate));
+            readRows(statement).forEach(row -> rows.putIfAbsent((Long) row[0], row));
+        }
+
+        return rows;
+    }
+
+    private List<Object[]> readRows(PreparedStatement statement) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+
+        try (ResultSet resultSet = statement.executeQuery()) {
+            int columns = resultSet.getMetaData().getColumnCount();
+
+            while (resultSet.next()) {
+                Object[] row = new Object[columns];
+                for (int column = 0; column < columns; column++) {
+                    row[column] = resultSet.getObject(column + 1);
+                }
+                rows.add(row);
+            }
+        }
+
+        return rows;
+    }
+
+    // 1% of the reservations are active, end dates are spread five years around today
+    private void insertRows() throws SQLException {
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement customer = connection.prepareStatement(
+                "INSERT INTO customer (name, date_of_birth, cpf, email) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                customer.setString(1, "Customer " + i);
+                customer.setDate(2, Date.valueOf(LocalDate.of(1980, 1, 1).plusDays(i)));
+                customer.setString(3, String.format("B%010d", i));
+                customer.setString(4, "customer" + i + "@example.com");
+                customer.addBatch();
+            }
+            customer.executeBatch();
+        }
+
+        try (PreparedStatement room = connection.prepareStatement(
+                "INSERT INTO room (number, description, size, busy, active, price_per_month) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROOMS; i++) {
+                room.setInt(1, 10_000 + i);
+                room.setString(2, "Room " + i);
+                room.setDouble(3, 30);
+                room.setBoolean(4, false);
+                room.setBoolean(5, true);
+                room.setDouble(6, 500);
+                room.addBatch();
+            }
+            room.executeBatch();
+        }
+
+        long firstCustomer = firstId("customer");
+        long firstRoom = firstId("room");
+
+        try (PreparedStatement reservation = connection.prepareStatement(
+                "INSERT INTO reservation (code, customer_id, reserved_room_id, reservation_price, description, " +
+                        "duration, start_date, end_date, active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < reservations; i++) {
+                LocalDate endDate = today.plusDays(random.nextInt(3650) - 1825);
+
+                reservation.setString(1, "BENCH" + i);
+                reservation.setLong(2, firstCustomer + random.nextInt(CUSTOMERS));
+                reservation.setLong(3, firstRoom + random.nextInt(ROOMS));
+                reservation.setDouble(4, 1500);
+                reservation.setString(5, "Benchmark reservation");
+                reservation.setInt(6, 3);
+                reservation.setDate(7, Date.valueOf(endDate.minusMonths(3)));
+                reservation.setDate(8, Date.valueOf(endDate));
+                reservation.setBoolean(9, random.nextInt(100) == 0);
+                reservation.addBatch();
+
+                if (i % 10_000 == 9_999) {
+                    reservation.executeBatch();
+                    connection.commit();
+                }
+            }
+            reservation.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private long firstId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MIN(id) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
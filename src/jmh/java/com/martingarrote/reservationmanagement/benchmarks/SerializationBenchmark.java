@@ -0,0 +1,42 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private PageDTO<ReservationDTO> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<ReservationDTO> reservations = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(BenchmarkFixtures::createReservationDTO)
+                .toList();
+        page = new PageDTO<>(reservations, "aWR8MTAw");
+    }
+
+    @Benchmark
+    public byte[] serializeReservationPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,67 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.benchmarks.BenchmarkFixtures.createReservationDTO;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private ReservationDTO validReservation;
+
+    private ReservationDTO invalidReservation;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        validReservation = createReservationDTO(1L);
+
+        invalidReservation = createReservationDTO(2L);
+        invalidReservation.setCode("");
+        invalidReservation.getCustomer().setEmail("not-an-email");
+        invalidReservation.getReservedRoom().setSize(5D);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public int validateValidReservationGraph() {
+        return validateGraph(validReservation);
+    }
+
+    @Benchmark
+    public int validateInvalidReservationGraph() {
+        return validateGraph(invalidReservation);
+    }
+
+    // ReservationDTO does not cascade, the nested DTOs are validated like the controllers receive them
+    private int validateGraph(ReservationDTO reservationDTO) {
+        Set<ConstraintViolation<ReservationDTO>> reservationViolations = validator.validate(reservationDTO);
+
+        return reservationViolations.size()
+                + validator.validate(reservationDTO.getCustomer()).size()
+                + validator.validate(reservationDTO.getReservedRoom()).size();
+    }
+}
@@ -0,0 +1,147 @@
+package com.martingarrote.reservationmanagement.benchmarks;
+
+import com.martingarrote.reservationmanagement.ReservationManagementApplication;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+// Compares Tomcat's platform thread pool with the virtual-threads profile on ReservationController reads.
+// Every JDBC statement waits jdbcLatencyMillis to stand in for the round trip to a real database. Needs Java 21.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    @Param({"default", "virtual-threads"})
+    String mode;
+
+    @Param({"5"})
+    long jdbcLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(ReservationManagementApplication.class);
+        application.addInitializers(applicationContext -> applicationContext.getBeanFactory()
+                .addBeanPostProcessor(new JdbcLatencyPostProcessor(jdbcLatencyMillis)));
+
+        context = application.run(
+                "--server.port=0",
+                "--spring.profiles.active=" + ("default".equals(mode) ? "dev" : "dev," + mode),
+                "--spring.datasource.url=jdbc:h2:mem:virtual-thread-benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"
+        );
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/reservations";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listPage() throws Exception {
+        return get("?size=20");
+    }
+
+    @Benchmark
+    public int findById() throws Exception {
+        return get("/1");
+    }
+
+    @Benchmark
+    public int findByCustomer() throws Exception {
+        return get("/customer/1");
+    }
+
+    private int get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+
+        return response.statusCode();
+    }
+
+    // Hands Hikari an H2 data source whose statements sleep before running, outside of any driver lock
+    static class JdbcLatencyPostProcessor implements BeanPostProcessor {
+
+        private final long latencyMillis;
+
+        JdbcLatencyPostProcessor(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikariDataSource) {
+                JdbcDataSource h2DataSource = new JdbcDataSource();
+                h2DataSource.setURL(hikariDataSource.getJdbcUrl());
+                h2DataSource.setUser(hikariDataSource.getUsername());
+                h2DataSource.setPassword(hikariDataSource.getPassword());
+
+                hikariDataSource.setDataSource(proxy(DataSource.class, h2DataSource));
+            }
+
+            return bean;
+        }
+
+        private <T> T proxy(Class<T> type, T target) {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (instance, method, args) -> {
+                if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) {
+                    Thread.sleep(latencyMillis);
+                }
+
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+
+                return wrap(method.getReturnType(), result);
+            });
+
+            return type.cast(proxy);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object wrap(Class<?> returnType, Object result) {
+            if (result != null && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType))) {
+                return proxy((Class<Object>) returnType, result);
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.martingarrote.reservationmanagement.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop generator: requests go out on a fixed schedule whether or not the previous ones have answered,
+// and each latency is measured from the time the request was scheduled. A saturated server shows up as latency
+// instead of silently lowering the rate (coordinated omission). When max-in-flight requests are pending the
+// schedule waits for one to finish, and that wait is part of the latency of the requests behind it
+class LoadGenerator {
+
+    private static final String SERVER_THREAD_PREFIX = "http-nio-";
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final Workload workload;
+
+    private final int rate;
+
+    private final int maxInFlight;
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    LoadGenerator(Workload workload, int rate, int maxInFlight) {
+        this.workload = workload;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    LoadReport run(Duration warmup, Duration duration) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        Resources before = null;
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+
+            if (scheduled >= end) {
+                break;
+            }
+
+            if (before == null && scheduled >= measureFrom) {
+                before = Resources.sample();
+            }
+
+            waitUntil(scheduled);
+            inFlight.acquire();
+
+            Operation operation = workload.next();
+            HttpRequest request = workload.request(operation);
+            OperationStats operationStats = scheduled >= measureFrom ? stats.get(operation) : null;
+
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+                if (operationStats != null) {
+                    operationStats.record(System.nanoTime() - scheduled, response, error);
+                }
+
+                inFlight.release();
+            });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Requests still pending a minute after the end of the run");
+        }
+
+        Resources after = Resources.sample();
+        Map<Operation, LoadReport.OperationResult> results = new EnumMap<>(Operation.class);
+
+        stats.forEach((operation, operationStats) -> {
+            LoadReport.OperationResult result = operationStats.result();
+
+            if (result.latencies().getTotalCount() > 0) {
+                results.put(operation, result);
+            }
+        });
+
+        return new LoadReport(rate, duration, results, after.minus(before));
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static class OperationStats {
+
+        private final Recorder latencies = new Recorder(3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final Map<String, LongAdder> errorCauses = new ConcurrentHashMap<>();
+
+        void record(long latencyNanos, HttpResponse<byte[]> response, Throwable error) {
+            latencies.recordValue(latencyNanos);
+
+            if (error != null) {
+                fail(error.getClass().getSimpleName());
+            } else if (response.statusCode() >= 400) {
+                fail("HTTP " + response.statusCode());
+            } else {
+                bytes.add(response.body().length);
+            }
+        }
+
+        LoadReport.OperationResult result() {
+            Map<String, Long> causes = new TreeMap<>();
+            errorCauses.forEach((cause, count) -> causes.put(cause, count.sum()));
+
+            return new LoadReport.OperationResult(latencies.getIntervalHistogram(), errors.sum(), bytes.sum(), causes);
+        }
+
+        private void fail(String cause) {
+            errors.increment();
+            errorCauses.computeIfAbsent(cause, key -> new LongAdder()).increment();
+        }
+    }
+
+    // The allocation counts only the Tomcat request threads, so that the load generator, which runs in the same JVM,
+    // doesn't inflate it. GC and CPU are for the whole process
+    record Resources(long serverAllocatedBytes, long gcCount, long gcMillis, long cpuNanos) {
+
+        static Resources sample() {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                    .getThreadMXBean();
+            long allocated = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith(SERVER_THREAD_PREFIX))
+                    .mapToLong(thread -> Math.max(0, threads.getThreadAllocatedBytes(thread.getId())))
+                    .sum();
+            long gcCount = 0;
+            long gcMillis = 0;
+
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, collector.getCollectionCount());
+                gcMillis += Math.max(0, collector.getCollectionTime());
+            }
+
+            long cpuNanos = ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                    .getProcessCpuTime();
+
+            return new Resources(allocated, gcCount, gcMillis, cpuNanos);
+        }
+
+        Resources minus(Resources other) {
+            return new Resources(serverAllocatedBytes - other.serverAllocatedBytes, gcCount - other.gcCount,
+                    gcMillis - other.gcMillis, cpuNanos - other.cpuNanos);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.martingarrote.reservationmanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.loadtest.LoadGenerator.Resources;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+record LoadReport(int targetRate, Duration duration, Map<Operation, OperationResult> operations,
+                  Resources resources) {
+
+    private static final double NANOS_PER_MILLI = 1_000_000D;
+
+    private static final String ROW = "%-26s %9s %9s %8s %8s %9s %9s %9s %9s %9s %10s%n";
+
+    void print(PrintStream out) {
+        out.printf(ROW, "operation", "requests", "req/s", "errors", "error %", "p50 ms", "p90 ms", "p99 ms",
+                "p99.9 ms", "max ms", "avg bytes");
+
+        operations.forEach((operation, result) -> printRow(out, operation.key(), result));
+        printRow(out, "total", total());
+
+        double seconds = seconds();
+        long requests = total().latencies().getTotalCount();
+
+        out.println();
+        out.printf("Throughput: %.1f req/s (target %d req/s)%n", requests / seconds, targetRate);
+        out.printf("Server allocation: %.1f MB/s, %.1f KB/request%n",
+                resources.serverAllocatedBytes() / seconds / (1024 * 1024),
+                resources.serverAllocatedBytes() / (double) Math.max(1, requests) / 1024);
+        out.printf("GC: %d collections, %d ms%n", resources.gcCount(), resources.gcMillis());
+        out.printf("Process CPU: %.0f%% of one core%n", resources.cpuNanos() / (seconds * 1e9) * 100);
+
+        operations.forEach((operation, result) -> result.errorCauses().forEach((cause, count) ->
+                out.printf("Errors of %s: %s x %d%n", operation.key(), cause, count)));
+    }
+
+    void write(Path output, ObjectMapper objectMapper) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        Map<String, Object> operationsJson = new LinkedHashMap<>();
+        double seconds = seconds();
+
+        operations.forEach((operation, result) -> operationsJson.put(operation.key(), toJson(result, seconds)));
+
+        json.put("targetRate", targetRate);
+        json.put("durationSeconds", seconds);
+        json.put("total", toJson(total(), seconds));
+        json.put("operations", operationsJson);
+        json.put("serverAllocatedBytesPerSecond", resources.serverAllocatedBytes() / seconds);
+        json.put("gcCount", resources.gcCount());
+        json.put("gcMillis", resources.gcMillis());
+        json.put("processCpuSeconds", resources.cpuNanos() / 1e9);
+
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), json);
+    }
+
+    private void printRow(PrintStream out, String name, OperationResult result) {
+        Histogram latencies = result.latencies();
+        long requests = latencies.getTotalCount();
+
+        out.printf(ROW, name, requests, format(requests / seconds()), result.errors(),
+                format(result.errors() * 100D / requests), millis(latencies, 50), millis(latencies, 90),
+                millis(latencies, 99), millis(latencies, 99.9), format(latencies.getMaxValue() / NANOS_PER_MILLI),
+                result.bytes() / Math.max(1, requests - result.errors()));
+    }
+
+    private Map<String, Object> toJson(OperationResult result, double seconds) {
+        Histogram latencies = result.latencies();
+        long requests = latencies.getTotalCount();
+        Map<String, Object> json = new LinkedHashMap<>();
+
+        json.put("requests", requests);
+        json.put("requestsPerSecond", requests / seconds);
+        json.put("errors", result.errors());
+        json.put("errorCauses", result.errorCauses());
+        json.put("p50Millis", latencies.getValueAtPercentile(50) / NANOS_PER_MILLI);
+        json.put("p90Millis", latencies.getValueAtPercentile(90) / NANOS_PER_MILLI);
+        json.put("p99Millis", latencies.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        json.put("p999Millis", latencies.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        json.put("maxMillis", latencies.getMaxValue() / NANOS_PER_MILLI);
+        json.put("bytes", result.bytes());
+
+        return json;
+    }
+
+    private OperationResult total() {
+        Histogram latencies = new Histogram(3);
+        long errors = 0;
+        long bytes = 0;
+
+        for (OperationResult result : operations.values()) {
+            latencies.add(result.latencies());
+            errors += result.errors();
+            bytes += result.bytes();
+        }
+
+        return new OperationResult(latencies, errors, bytes, Map.of());
+    }
+
+    private double seconds() {
+        return duration.toMillis() / 1000D;
+    }
+
+    private static String millis(Histogram latencies, double percentile) {
+        return format(latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+
+    record OperationResult(Histogram latencies, long errors, long bytes, Map<String, Long> errorCauses) {
+    }
+}
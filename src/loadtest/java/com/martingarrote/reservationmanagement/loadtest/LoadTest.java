@@ -0,0 +1,95 @@
+package com.martingarrote.reservationmanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.ReservationManagementApplication;
+import com.martingarrote.reservationmanagement.loadtest.Workload.IdRange;
+import com.martingarrote.reservationmanagement.utils.SyntheticDataGenerator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Starts the application on an in-memory H2 database, seeds it with a synthetic dataset and drives a mixed
+// read/write workload at a fixed rate against the /api endpoints. Everything runs in this JVM, no network needed:
+//   ./mvnw -Pload-test test-compile exec:exec -Dloadtest.args="--rate=300 --duration=2m"
+public class LoadTest {
+
+    // Below the default Hikari pool size, so that no generator thread waits for a connection
+    private static final int GENERATOR_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = start(options);
+
+        try {
+            DataSource dataSource = context.getBean(DataSource.class);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+            long seedStart = System.nanoTime();
+            new SyntheticDataGenerator(dataSource, options.seed(), GENERATOR_THREADS)
+                    .generate(options.customers(), options.rooms(), options.reservations());
+            System.out.printf("Seeded %d customers, %d rooms and %d reservations in %.1f s%n", options.customers(),
+                    options.rooms(), options.reservations(), (System.nanoTime() - seedStart) / 1e9);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Workload workload = new Workload("http://localhost:" + port, options.seed(), options.mix(),
+                    idRange(jdbcTemplate, "customer"), idRange(jdbcTemplate, "room"),
+                    idRange(jdbcTemplate, "reservation"));
+
+            System.out.printf("Running %s of warmup and %s at %d req/s%n", options.warmup(), options.duration(),
+                    options.rate());
+
+            LoadReport report = new LoadGenerator(workload, options.rate(), options.maxInFlight())
+                    .run(options.warmup(), options.duration());
+
+            report.print(System.out);
+            report.write(options.output(), context.getBean(ObjectMapper.class));
+            System.out.println("Report written to " + options.output());
+        } finally {
+            context.close();
+        }
+    }
+
+    // Production-like settings on top of the dev profile. They are passed as arguments to win over
+    // application-dev.properties, and an option naming the same property replaces them
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.profiles.active", "dev");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("statements.header.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.apache.catalina.loader.WebappClassLoaderBase", "ERROR");
+
+        List<String> args = new ArrayList<>();
+
+        for (String arg : options.applicationArgs()) {
+            int separator = arg.indexOf('=');
+
+            if (arg.startsWith("--") && separator > 2) {
+                properties.put(arg.substring(2, separator), arg.substring(separator + 1));
+            } else {
+                args.add(arg);
+            }
+        }
+
+        properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+
+        // A devtools restart would run main again with the application arguments only, losing the options
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        return SpringApplication.run(ReservationManagementApplication.class, args.toArray(String[]::new));
+    }
+
+    private static IdRange idRange(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM " + table,
+                (resultSet, row) -> new IdRange(resultSet.getLong(1), resultSet.getLong(2)));
+    }
+}
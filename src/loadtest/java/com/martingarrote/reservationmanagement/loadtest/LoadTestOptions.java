@@ -0,0 +1,81 @@
+package com.martingarrote.reservationmanagement.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// --key=value arguments of the load test. Anything it doesn't know is handed to the application,
+// e.g. --spring.profiles.active=dev,virtual-threads
+record LoadTestOptions(int customers, int rooms, int reservations, long seed, int rate, Duration warmup,
+                       Duration duration, int maxInFlight, Map<Operation, Integer> mix, Path output,
+                       List<String> applicationArgs) {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("customers", "100000");
+        DEFAULTS.put("rooms", "10000");
+        DEFAULTS.put("reservations", "1000000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("rate", "200");
+        DEFAULTS.put("warmup", "30s");
+        DEFAULTS.put("duration", "60s");
+        DEFAULTS.put("max-in-flight", "256");
+        DEFAULTS.put("mix", "");
+        DEFAULTS.put("output", "target/load-test-result.json");
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String key = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+
+            if (key != null && values.containsKey(key)) {
+                values.put(key, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        return new LoadTestOptions(
+                Integer.parseInt(values.get("customers")),
+                Integer.parseInt(values.get("rooms")),
+                Integer.parseInt(values.get("reservations")),
+                Long.parseLong(values.get("seed")),
+                Integer.parseInt(values.get("rate")),
+                DurationStyle.detectAndParse(values.get("warmup")),
+                DurationStyle.detectAndParse(values.get("duration")),
+                Integer.parseInt(values.get("max-in-flight")),
+                parseMix(values.get("mix")),
+                Path.of(values.get("output")),
+                applicationArgs
+        );
+    }
+
+    // "find-reservation:50,patch-room:0" changes those weights and keeps the default for the others
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, operation.defaultWeight());
+        }
+
+        if (!mix.isBlank()) {
+            for (String entry : mix.split(",")) {
+                String[] weight = entry.split(":");
+                weights.put(Operation.fromKey(weight[0]), Integer.parseInt(weight[1].trim()));
+            }
+        }
+
+        return weights;
+    }
+}
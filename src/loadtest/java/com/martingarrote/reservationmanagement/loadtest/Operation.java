@@ -0,0 +1,47 @@
+package com.martingarrote.reservationmanagement.loadtest;
+
+import java.util.Locale;
+
+// The requests the load test can send, with their share of the default mix (they add up to 100)
+enum Operation {
+
+    FIND_RESERVATION(25, false),
+    LIST_RESERVATIONS(10, false),
+    RESERVATIONS_BY_CUSTOMER(15, false),
+    RESERVATIONS_BY_ROOM(8, false),
+    FIND_CUSTOMER(14, false),
+    LIST_CUSTOMERS(5, false),
+    FIND_ROOM(8, false),
+    FREE_ROOMS(1, false),
+    SEARCH_ACTIVE(0, false),
+    CREATE_CUSTOMER(4, true),
+    PATCH_CUSTOMER(3, true),
+    PATCH_RESERVATION(5, true),
+    PATCH_ROOM(2, true);
+
+    private final int defaultWeight;
+
+    private final boolean write;
+
+    Operation(int defaultWeight, boolean write) {
+        this.defaultWeight = defaultWeight;
+        this.write = write;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    boolean write() {
+        return write;
+    }
+
+    // find-reservation, patch-room... as used in --mix
+    String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static Operation fromKey(String key) {
+        return valueOf(key.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
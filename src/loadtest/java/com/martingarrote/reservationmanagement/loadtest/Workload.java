@@ -0,0 +1,132 @@
+package com.martingarrote.reservationmanagement.loadtest;
+
+import com.martingarrote.reservationmanagement.utils.SyntheticDataGenerator;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.MERGE_PATCH_JSON_VALUE;
+
+// Picks the next operation by weight and builds its request against random rows of the dataset.
+// Only the load generator's thread uses it, and the same seed replays the same sequence of requests
+class Workload {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    // New customers take CPFs past the ones of the dataset
+    private static final long CREATED_CPF_OFFSET = 500_000_000L;
+
+    private final String baseUrl;
+
+    private final Random random;
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    private final int[] cumulativeWeights;
+
+    private final IdRange customers;
+
+    private final IdRange rooms;
+
+    private final IdRange reservations;
+
+    private long createdCustomers;
+
+    private long patches;
+
+    Workload(String baseUrl, long seed, Map<Operation, Integer> mix, IdRange customers, IdRange rooms,
+             IdRange reservations) {
+        this.baseUrl = baseUrl;
+        this.random = new Random(seed);
+        this.customers = customers;
+        this.rooms = rooms;
+        this.reservations = reservations;
+
+        mix.forEach((operation, weight) -> {
+            if (weight > 0) {
+                operations.add(operation);
+            }
+        });
+
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+
+        cumulativeWeights = new int[operations.size()];
+        int total = 0;
+
+        for (int i = 0; i < operations.size(); i++) {
+            total += mix.get(operations.get(i));
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Operation next() {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+
+        while (cumulativeWeights[i] <= value) {
+            i++;
+        }
+
+        return operations.get(i);
+    }
+
+    HttpRequest request(Operation operation) {
+        return switch (operation) {
+            case FIND_RESERVATION -> get("/api/reservations/" + reservations.pick(random));
+            case LIST_RESERVATIONS -> get("/api/reservations?size=20");
+            case RESERVATIONS_BY_CUSTOMER -> get("/api/reservations/customer/" + customers.pick(random));
+            case RESERVATIONS_BY_ROOM -> get("/api/reservations/room/" + rooms.pick(random));
+            case FIND_CUSTOMER -> get("/api/customers/" + customers.pick(random));
+            case LIST_CUSTOMERS -> get("/api/customers?size=20");
+            case FIND_ROOM -> get("/api/rooms/" + rooms.pick(random));
+            case FREE_ROOMS -> get("/api/rooms/status?busy=false");
+            case SEARCH_ACTIVE -> get("/api/reservations/search?active=true");
+            case CREATE_CUSTOMER -> createCustomer();
+            case PATCH_CUSTOMER -> patch("/api/customers/" + customers.pick(random),
+                    "{\"email\": \"patched" + ++patches + "@loadtest.example\"}");
+            case PATCH_RESERVATION -> patch("/api/reservations/" + reservations.pick(random),
+                    "{\"description\": \"Patched synthetic reservation " + ++patches + "\"}");
+            case PATCH_ROOM -> patch("/api/rooms/" + rooms.pick(random),
+                    "{\"pricePerMonth\": " + (300 + random.nextInt(48) * 100) + "}");
+        };
+    }
+
+    private HttpRequest createCustomer() {
+        long number = createdCustomers++;
+        LocalDate dateOfBirth = LocalDate.now().minusYears(18).minusDays(1 + random.nextInt(60 * 365));
+        String body = "{\"name\": \"Created customer " + number + "\", \"dateOfBirth\": \"" + dateOfBirth +
+                "\", \"cpf\": \"" + SyntheticDataGenerator.cpf(CREATED_CPF_OFFSET + number) +
+                "\", \"email\": \"created" + number + "@loadtest.example\"}";
+
+        return request("/api/customers").header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest patch(String path, String body) {
+        return request(path).header("Content-Type", MERGE_PATCH_JSON_VALUE)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+    }
+
+    record IdRange(long first, long last) {
+
+        long pick(Random random) {
+            return first + (long) (random.nextDouble() * (last - first + 1));
+        }
+    }
+}
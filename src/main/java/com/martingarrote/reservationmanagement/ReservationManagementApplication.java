@@ -4,8 +4,10 @@ import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// The reactive reads build their own connection pool, an R2DBC ConnectionFactory bean would turn off the JPA DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @OpenAPIDefinition(
         info = @Info(
                 title = "Reservation Management APIs",
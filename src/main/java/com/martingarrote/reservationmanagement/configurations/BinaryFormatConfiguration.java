@@ -0,0 +1,70 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Every endpoint answers in CBOR (Accept: application/cbor) or Smile (Accept: application/x-jackson-smile) as well.
+// Like the JSON converter they encode straight into the response stream, and they take Boot's Jackson settings
+// from the builder. They replace MVC's defaults in place, after the JSON converter, so JSON stays the default
+@Configuration
+public class BinaryFormatConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // The same URL answers in three formats, so a cache has to key the response, a 304 included, on Accept
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                boolean read = HttpMethod.GET.matches(request.getMethod())
+                        || HttpMethod.HEAD.matches(request.getMethod());
+
+                if (read && isNegotiated(handler)) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+
+    // The exports pick their format from a parameter and the occupancy stream only speaks SSE
+    private static boolean isNegotiated(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return false;
+        }
+
+        ResolvableType returnType = ResolvableType.forMethodReturnType(handlerMethod.getMethod());
+        Class<?> body = returnType.toClass() == ResponseEntity.class
+                ? returnType.getGeneric(0).toClass()
+                : returnType.toClass();
+
+        return !StreamingResponseBody.class.isAssignableFrom(body) && !ResponseBodyEmitter.class.isAssignableFrom(body);
+    }
+}
@@ -0,0 +1,31 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+@Configuration
+public class CacheConfiguration {
+
+    // Publishes hit/miss/eviction metrics for each second-level cache region (cache.gets, cache.evictions...)
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getCache()
+                    .getRegionFactory())
+                    .getCacheManager();
+
+            for (String cacheName : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(cacheName));
+            }
+        };
+    }
+}
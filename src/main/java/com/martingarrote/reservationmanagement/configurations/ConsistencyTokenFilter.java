@@ -0,0 +1,82 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+// Read-your-writes across requests: a write request answers with the number of the first heartbeat written after
+// its last commit, and a client sending that token back is only served by a replica that has replayed it
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    public static long requiredPosition() {
+        Context context = CURRENT.get();
+
+        return context == null ? 0 : context.requiredPosition;
+    }
+
+    // Later reads of the same request have to see the write as well. The position costs a query on the primary,
+    // so it is only asked for inside a request
+    public static void committed(LongSupplier position) {
+        Context context = CURRENT.get();
+
+        if (context == null) {
+            return;
+        }
+
+        context.requiredPosition = Math.max(context.requiredPosition, position.getAsLong());
+
+        if (context.response != null && !context.response.isCommitted()) {
+            context.response.setHeader(CONSISTENCY_TOKEN_HEADER, Long.toString(context.requiredPosition));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CURRENT.set(new Context(parse(request.getHeader(CONSISTENCY_TOKEN_HEADER)),
+                WRITE_METHODS.contains(request.getMethod()) ? response : null));
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    // A malformed token is ignored rather than refused, the read then only loses the read-your-writes guarantee
+    private static long parse(String token) {
+        if (token == null) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static class Context {
+
+        private long requiredPosition;
+
+        private final HttpServletResponse response;
+
+        Context(long requiredPosition, HttpServletResponse response) {
+            this.requiredPosition = requiredPosition;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import com.martingarrote.reservationmanagement.utils.SyntheticDataGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+// Fills the database of the other active profile with a synthetic dataset and exits, e.g.
+//   java -jar reservation-management.jar --spring.profiles.active=prod,generate-data --generator.reservations=5000000
+@Configuration
+@Profile("generate-data")
+public class DataGeneratorConfiguration {
+
+    @Value("${generator.customers}")
+    int customers;
+
+    @Value("${generator.rooms}")
+    int rooms;
+
+    @Value("${generator.reservations}")
+    int reservations;
+
+    @Value("${generator.seed}")
+    long seed;
+
+    @Value("${generator.threads}")
+    int threads;
+
+    @Bean
+    public ApplicationRunner dataGeneratorRunner(DataSource dataSource, ConfigurableApplicationContext context) {
+        return args -> {
+            new SyntheticDataGenerator(dataSource, seed, threads).generate(customers, rooms, reservations);
+
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import org.flywaydb.core.internal.database.postgresql.PostgreSQLConfigurationExtension;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfiguration {
+
+    // On PostgreSQL Flyway holds its advisory lock inside an open transaction by default, and CREATE INDEX
+    // CONCURRENTLY waits for every open transaction to end, so the vendor index migrations would never finish.
+    // Boot 3.1 has no spring.flyway.postgresql.* property for it
+    @Bean
+    public FlywayConfigurationCustomizer sessionLevelPostgreSqlLock() {
+        return configuration -> configuration.getPluginRegister()
+                .getPlugin(PostgreSQLConfigurationExtension.class)
+                .setTransactionalLock(false);
+    }
+}
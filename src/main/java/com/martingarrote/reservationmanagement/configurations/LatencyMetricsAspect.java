@@ -0,0 +1,94 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times the calls into the service, repository and mapper layers, the endpoints are covered by http.server.requests.
+// The histograms are set up in application.properties, under the "app" prefix
+@Aspect
+@Component
+public class LatencyMetricsAspect {
+
+    static final String SERVICE_TIMER = "app.service.calls";
+    static final String REPOSITORY_TIMER = "app.repository.calls";
+    static final String MAPPER_TIMER = "app.mapper.calls";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // Registering a timer builds its tags and takes a lock, so that only happens on the first call of each method
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    // A reactive method returns before its query runs, timing it would only measure the assembly
+    @Pointcut("execution(org.reactivestreams.Publisher+ *(..))")
+    void reactive() {
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..)) && !reactive()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) && !reactive()")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    @Around("execution(* com.martingarrote.reservationmanagement.interfaces.MapperInterface+.*(..))")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(MAPPER_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        TimerKey key = new TimerKey(name, joinPoint.getThis().getClass(),
+                ((MethodSignature) joinPoint.getSignature()).getMethod());
+        Timer timer = timers.get(key);
+
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, this::register);
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(key.name())
+                .tag("class", className(key.type()))
+                .tag("method", key.method().getName())
+                .register(meterRegistry);
+    }
+
+    // Repositories are interface proxies, the tag names the repository interface instead of the proxy class
+    private static String className(Class<?> type) {
+        for (Class<?> proxied : type.getInterfaces()) {
+            if (Repository.class.isAssignableFrom(proxied)) {
+                return proxied.getSimpleName();
+            }
+        }
+
+        return ClassUtils.getUserClass(type).getSimpleName();
+    }
+
+    private record TimerKey(String name, Class<?> type, Method method) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+
+public class PinnedThreadMonitor implements DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String UNKNOWN_FRAME = "unknown";
+
+    private final RecordingStream recordingStream = new RecordingStream();
+
+    // Reports as jvm.threads.virtual.pinned every time a virtual thread blocks while pinned to its carrier
+    // longer than the threshold, tagged with the first frame outside the JDK (usually a synchronized block)
+    public PinnedThreadMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, event -> Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads stayed blocked while pinned to their carrier thread")
+                .tag("frame", pinnedFrame(event))
+                .register(meterRegistry)
+                .record(event.getDuration()));
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        recordingStream.close();
+    }
+
+    private static String pinnedFrame(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+
+        if (stackTrace == null) {
+            return UNKNOWN_FRAME;
+        }
+
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+
+        return UNKNOWN_FRAME;
+    }
+}
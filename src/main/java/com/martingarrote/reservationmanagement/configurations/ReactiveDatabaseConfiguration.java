@@ -0,0 +1,56 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static io.r2dbc.spi.ConnectionFactoryOptions.PASSWORD;
+import static io.r2dbc.spi.ConnectionFactoryOptions.USER;
+
+@Configuration
+public class ReactiveDatabaseConfiguration implements DisposableBean {
+
+    @Value("${reactive.datasource.url}")
+    String url;
+
+    @Value("${reactive.datasource.username}")
+    String username;
+
+    @Value("${reactive.datasource.password}")
+    String password;
+
+    @Value("${reactive.datasource.pool-max-size}")
+    int poolMaxSize;
+
+    private ConnectionPool connectionPool;
+
+    // The pool stays out of the context on purpose, see ReservationManagementApplication
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        // Production shares DATABASE_URL with JDBC, the R2DBC driver takes the same URL with its own scheme
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url.replaceFirst("^jdbc:", "r2dbc:"))
+                .mutate()
+                .option(USER, username)
+                .option(PASSWORD, password)
+                .build();
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(poolMaxSize)
+                .build());
+
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
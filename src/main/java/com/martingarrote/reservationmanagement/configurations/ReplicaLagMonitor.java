@@ -0,0 +1,145 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Writes a numbered heartbeat on the primary and reads it back from every replica. The last heartbeat a replica
+// has replayed is its replication position: every transaction committed on the primary before that heartbeat is
+// visible there. The numbers and the times both come from the primary, never from this server's clock, so any
+// number of instances can beat and hand out consistency tokens
+public class ReplicaLagMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    public static final String LAG_METRIC = "datasource.replica.lag";
+
+    private static final String SQL_BEAT =
+            "UPDATE replica_heartbeat SET beat_number = beat_number + 1, beat_at = CURRENT_TIMESTAMP WHERE id = 1";
+
+    private static final String SQL_NEXT_BEAT = "SELECT beat_number + 1 FROM replica_heartbeat WHERE id = 1";
+
+    private static final String SQL_REPLICATED = "SELECT beat_number, beat_at FROM replica_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+
+    private final List<JdbcTemplate> replicas;
+
+    private final long maxLagMillis;
+
+    private final AtomicLongArray replicatedUntil;
+
+    private final AtomicLongArray replicatedBeatAt;
+
+    private volatile long primaryBeatAt;
+
+    private final boolean[] unreachable;
+
+    public ReplicaLagMonitor(DataSource primary, List<? extends DataSource> replicas, Duration maxLag,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas.stream().map(JdbcTemplate::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        this.replicatedUntil = new AtomicLongArray(replicas.size());
+        this.replicatedBeatAt = new AtomicLongArray(replicas.size());
+        this.unreachable = new boolean[replicas.size()];
+
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = i;
+
+            Gauge.builder(LAG_METRIC, () -> lagSeconds(replica))
+                    .description("Time between the last heartbeat on the primary and the last the replica replayed")
+                    .tag("replica", replicaName(replica))
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public static String replicaName(int replica) {
+        return "replica-" + replica;
+    }
+
+    public void beat() {
+        try {
+            primary.update(SQL_BEAT);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not write the replica heartbeat on the primary", e);
+        }
+
+        refresh();
+    }
+
+    // The first heartbeat that can start after the caller's commit, a replica that has replayed it has the commit.
+    // When the primary can't tell, the token keeps the client's reads on the primary
+    public long nextBeat() {
+        try {
+            Long next = primary.queryForObject(SQL_NEXT_BEAT, Long.class);
+
+            return next == null ? Long.MAX_VALUE : next;
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not read the replica heartbeat on the primary", e);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // An unreachable replica keeps its last position, so its lag grows until the routing skips it
+    public void refresh() {
+        try {
+            primaryBeatAt = primary.queryForObject(SQL_REPLICATED,
+                    (resultSet, row) -> millis(resultSet.getTimestamp(2)));
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not read the replica heartbeat on the primary", e);
+        }
+
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = i;
+
+            try {
+                replicas.get(i).query(SQL_REPLICATED, resultSet -> {
+                    replicatedUntil.set(replica, resultSet.getLong(1));
+                    replicatedBeatAt.set(replica, millis(resultSet.getTimestamp(2)));
+                });
+                unreachable[i] = false;
+            } catch (DataAccessException e) {
+                if (!unreachable[i]) {
+                    LOGGER.warn("Could not read the heartbeat of {}", replicaName(i), e);
+                }
+
+                unreachable[i] = true;
+            }
+        }
+    }
+
+    public int replicas() {
+        return replicas.size();
+    }
+
+    public long replicatedUntil(int replica) {
+        return replicatedUntil.get(replica);
+    }
+
+    public boolean isWithinMaxLag(int replica) {
+        long beatAt = replicatedBeatAt.get(replica);
+
+        return beatAt > 0 && primaryBeatAt > 0 && primaryBeatAt - beatAt <= maxLagMillis;
+    }
+
+    private double lagSeconds(int replica) {
+        long beatAt = replicatedBeatAt.get(replica);
+
+        return beatAt == 0 || primaryBeatAt == 0 ? Double.NaN : Math.max(0, primaryBeatAt - beatAt) / 1000d;
+    }
+
+    private static long millis(Timestamp timestamp) {
+        return timestamp == null ? 0 : timestamp.getTime();
+    }
+}
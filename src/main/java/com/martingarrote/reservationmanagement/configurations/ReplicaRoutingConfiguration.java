@@ -0,0 +1,130 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration implements DisposableBean {
+
+    @Autowired
+    DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    Environment environment;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${replica.urls}")
+    List<String> urls;
+
+    @Value("${replica.username}")
+    String username;
+
+    @Value("${replica.password}")
+    String password;
+
+    @Value("${replica.heartbeat-interval}")
+    Duration heartbeatInterval;
+
+    @Value("${replica.max-lag}")
+    Duration maxLag;
+
+    private HikariDataSource primary;
+
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+
+    // The pools stay out of the context, the routing DataSource is the only one the application sees
+    @PostConstruct
+    void createPools() {
+        primary = pool(ReplicaRoutingDataSource.PRIMARY, dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(pool(ReplicaLagMonitor.replicaName(i), urls.get(i), username, password));
+        }
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(TaskScheduler taskScheduler) {
+        ReplicaLagMonitor replicaLagMonitor = new ReplicaLagMonitor(primary, replicas, maxLag, meterRegistry);
+
+        // Until the first heartbeat the replicas count as lagging and every read goes to the primary
+        taskScheduler.scheduleWithFixedDelay(replicaLagMonitor::beat, Instant.now().plus(heartbeatInterval),
+                heartbeatInterval);
+
+        return replicaLagMonitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaLagMonitor replicaLagMonitor) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replicas,
+                replicaLagMonitor, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ConsistencyTokenFilter consistencyTokenFilter() {
+        return new ConsistencyTokenFilter();
+    }
+
+    // Hibernate holds its connection for the whole session by default, and open-in-view makes that the whole
+    // request: the first transaction would pick the database for every later one, writes included
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+
+        if (primary != null) {
+            primary.close();
+        }
+    }
+
+    // Every pool takes the spring.datasource.hikari settings, so the replicas are sized like the primary
+    private HikariDataSource pool(String name, String url, String username, String password) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricRegistry(meterRegistry);
+
+        return pool;
+    }
+}
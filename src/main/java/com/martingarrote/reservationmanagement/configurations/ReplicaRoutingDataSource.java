@@ -0,0 +1,91 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
+
+// Read-only transactions go round-robin to a replica that is within the maximum lag and has replayed the
+// heartbeat of the client's consistency token, everything else goes to the primary. It has to sit behind a
+// LazyConnectionDataSourceProxy: the transaction manager takes the connection before the read-only flag is set
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    public static final String ROUTING_METRIC = "datasource.routing";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                    ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.meterRegistry = meterRegistry;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(ReplicaLagMonitor.replicaName(i), replicas.get(i));
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return route(PRIMARY, "no-transaction");
+        }
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            afterCommit(() -> ConsistencyTokenFilter.committed(replicaLagMonitor::nextBeat));
+
+            return route(PRIMARY, "read-write");
+        }
+
+        long requiredPosition = ConsistencyTokenFilter.requiredPosition();
+        int replicas = replicaLagMonitor.replicas();
+        int first = nextReplica.getAndIncrement();
+        String reason = "lag";
+
+        for (int i = 0; i < replicas; i++) {
+            int replica = Math.floorMod(first + i, replicas);
+
+            if (!replicaLagMonitor.isWithinMaxLag(replica)) {
+                continue;
+            }
+
+            if (replicaLagMonitor.replicatedUntil(replica) >= requiredPosition) {
+                return route(ReplicaLagMonitor.replicaName(replica), "read-only");
+            }
+
+            reason = "consistency";
+        }
+
+        return route(PRIMARY, reason);
+    }
+
+    private String route(String target, String reason) {
+        Counter.builder(ROUTING_METRIC)
+                .description("Connections taken by the routing DataSource, by target and reason")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+
+        return target;
+    }
+}
@@ -0,0 +1,221 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import com.martingarrote.reservationmanagement.configurations.StatementCounter.Statements;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+
+// Counts the SQL statements each request runs. The count goes to the http.server.statements histogram,
+// and to the X-Statement-Count response header when statements.header.enabled is set (dev profile).
+// Streaming responses (the exports) run their queries in an async task, the count follows them there
+// and is recorded once the async dispatch completes the request
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENT_COUNT_HEADER = "X-Statement-Count";
+
+    public static final String STATEMENTS_METRIC = "http.server.statements";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementCountFilter.class);
+
+    private static final String STATEMENTS_ATTRIBUTE = StatementCountFilter.class.getName() + ".STATEMENTS";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${statements.header.enabled}")
+    boolean headerEnabled;
+
+    @Value("${statements.repeated-threshold}")
+    int repeatedThreshold;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Statements statements = startOrResume(request);
+        HttpServletResponse countedResponse = headerEnabled ? new HeaderResponse(response, statements) : response;
+
+        try {
+            filterChain.doFilter(request, countedResponse);
+        } finally {
+            StatementCounter.stop();
+
+            if (isAsyncStarted(request)) {
+                request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+            } else {
+                if (countedResponse instanceof HeaderResponse headerResponse) {
+                    headerResponse.writeHeader();
+                }
+
+                record(request, statements);
+            }
+        }
+    }
+
+    private Statements startOrResume(HttpServletRequest request) {
+        if (isAsyncDispatch(request) && request.getAttribute(STATEMENTS_ATTRIBUTE) instanceof Statements statements) {
+            StatementCounter.resume(statements);
+            return statements;
+        }
+
+        Statements statements = StatementCounter.start();
+        WebAsyncUtils.getAsyncManager(request)
+                .registerCallableInterceptor(STATEMENTS_ATTRIBUTE, new AsyncTaskCounter(statements));
+
+        return statements;
+    }
+
+    private void record(HttpServletRequest request, Statements statements) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        if (uri == null) {
+            return;
+        }
+
+        DistributionSummary.builder(STATEMENTS_METRIC)
+                .description("SQL statements run by each request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri.toString())
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                .register(meterRegistry)
+                .record(statements.count());
+
+        if (statements.maxRepeats() >= repeatedThreshold) {
+            LOGGER.warn("{} {} ran the same statement {} times, possible N+1: {}", request.getMethod(), uri,
+                    statements.maxRepeats(), statements.mostRepeated());
+        }
+    }
+
+    // Counts the statements of a Callable or StreamingResponseBody handler on the async executor thread
+    private record AsyncTaskCounter(Statements statements) implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            StatementCounter.resume(statements);
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            StatementCounter.stop();
+        }
+    }
+
+    // The header has to go out before the body commits the response, so it is written with the first byte of the
+    // body. By then the handler has run all of its queries, a streaming export has started its only one
+    private static class HeaderResponse extends HttpServletResponseWrapper {
+
+        private final Statements statements;
+
+        private boolean headerWritten;
+
+        HeaderResponse(HttpServletResponse response, Statements statements) {
+            super(response);
+            this.statements = statements;
+        }
+
+        void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                setHeader(STATEMENT_COUNT_HEADER, Integer.toString(statements.count()));
+            }
+
+            headerWritten = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return new HeaderOutputStream(super.getOutputStream());
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        private class HeaderOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream outputStream;
+
+            HeaderOutputStream(ServletOutputStream outputStream) {
+                this.outputStream = outputStream;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                writeHeader();
+                outputStream.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writeHeader();
+                outputStream.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writeHeader();
+                outputStream.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writeHeader();
+                outputStream.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return outputStream.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                outputStream.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Registered in application.properties as Hibernate's statement inspector, so it sees every SQL statement
+// Hibernate prepares (JPQL, native and Spring Data queries alike). Only the threads that started a count are counted
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Statements> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = CURRENT.get();
+
+        if (statements != null) {
+            statements.add(sql);
+        }
+
+        return sql;
+    }
+
+    public static Statements start() {
+        Statements statements = new Statements();
+        CURRENT.set(statements);
+
+        return statements;
+    }
+
+    // Carries a request's count over to another thread, such as the async task of a streaming response
+    public static void resume(Statements statements) {
+        CURRENT.set(statements);
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static class Statements {
+
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        private int count;
+
+        private int maxRepeats;
+
+        private String mostRepeated;
+
+        // The same SQL string prepared over and over in one request is the signature of an N+1
+        void add(String sql) {
+            int repeats = executions.merge(sql, 1, Integer::sum);
+            count++;
+
+            if (repeats > maxRepeats) {
+                maxRepeats = repeats;
+                mostRepeated = sql;
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public int maxRepeats() {
+            return maxRepeats;
+        }
+
+        public String mostRepeated() {
+            return mostRepeated;
+        }
+    }
+}
@@ -21,4 +21,22 @@ public class ExceptionConsts {
         public final static String DURATION_OUT_OF_ALLOWED_RANGE = "The reservation duration cannot be greater than 36 months.";
     }
 
+    public static class PaginationExceptions {
+        public final static String INVALID_CURSOR = "The given cursor is invalid for the requested sort.";
+        public final static String INVALID_PAGE_SIZE = "The page size should be greater than zero.";
+        public final static String INVALID_SORT = "The given sort field is not supported.";
+    }
+
+    public static class PatchExceptions {
+        public final static String INVALID_PATCH = "The patch should be a JSON object.";
+        public final static String FIELD_NOT_PATCHABLE = "The field %s cannot be patched.";
+        public final static String FIELD_CANNOT_BE_NULL = "The field %s cannot be null.";
+        public final static String INVALID_FIELD_VALUE = "The value given to the field %s is invalid.";
+    }
+
+    public static class SyncExceptions {
+        public final static String INVALID_WATERMARK = "The given watermark is invalid.";
+        public final static String WATERMARK_EXPIRED = "The given watermark is older than the kept deletions, sync again from scratch.";
+    }
+
 }
@@ -0,0 +1,11 @@
+package com.martingarrote.reservationmanagement.consts;
+
+public class MediaTypeConsts {
+
+    public final static String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    public final static String SMILE_VALUE = "application/x-jackson-smile";
+
+    public final static String CBOR_SEQ_VALUE = "application/cbor-seq";
+
+}
@@ -0,0 +1,79 @@
+package com.martingarrote.reservationmanagement.consts;
+
+public class QueryConsts {
+
+    public final static int EXPORT_FETCH_SIZE = 500;
+    public final static String EXPORT_FETCH_SIZE_HINT = "" + EXPORT_FETCH_SIZE;
+
+    private final static String PROJECTIONS = "com.martingarrote.reservationmanagement.models.projections.";
+
+    public final static String SELECT_CUSTOMER_PROJECTION = "SELECT new " + PROJECTIONS + "CustomerProjection(" +
+            "c.id, c.name, c.dateOfBirth, c.cpf, c.email) FROM Customer c ";
+
+    public final static String SELECT_ROOM_PROJECTION = "SELECT new " + PROJECTIONS + "RoomProjection(" +
+            "r.id, r.number, r.description, r.size, r.pricePerMonth, r.busy, r.active) FROM Room r ";
+
+    public final static String SELECT_ROOM_OCCUPANCY = "SELECT new " + PROJECTIONS + "RoomOccupancyProjection(" +
+            "r.id, r.number, r.busy, r.active, r.updatedAt) FROM Room r ";
+
+    public final static String SELECT_RESERVATION_PROJECTION = "SELECT new " + PROJECTIONS + "ReservationProjection(" +
+            "r.id, r.code, c.id, c.name, c.dateOfBirth, c.cpf, c.email, " +
+            "rr.id, rr.number, rr.description, rr.size, rr.pricePerMonth, rr.busy, rr.active, " +
+            "r.reservationPrice, r.description, r.duration, r.startDate, r.endDate, r.active) " +
+            "FROM Reservation r LEFT JOIN r.customer c LEFT JOIN r.reservedRoom rr ";
+
+    private final static String ENTITY_TYPES = "com.martingarrote.reservationmanagement.models.enums.EntityType.";
+
+    public final static String SELECT_CUSTOMER_VERSION = "SELECT new " + PROJECTIONS + "VersionProjection(" +
+            "COUNT(c), MAX(c.updatedAt)) FROM Customer c WHERE c.id = :id";
+
+    public final static String SELECT_ROOM_VERSION = "SELECT new " + PROJECTIONS + "VersionProjection(" +
+            "COUNT(r), MAX(r.updatedAt)) FROM Room r WHERE r.id = :id";
+
+    public final static String SELECT_RESERVATION_VERSION = "SELECT new " + PROJECTIONS + "VersionProjection(" +
+            "COUNT(r), MAX(r.updatedAt), MAX(c.updatedAt), MAX(rr.updatedAt)) " +
+            "FROM Reservation r LEFT JOIN r.customer c LEFT JOIN r.reservedRoom rr WHERE r.id = :id";
+
+    // Each max reads the last entry of its own index (updated_at, or entity and deleted_at for the tombstones):
+    // counting the rows to notice deletes would scan the whole table on every conditional GET
+    public final static String SELECT_CUSTOMERS_VERSION = "SELECT new " + PROJECTIONS + "VersionProjection(" +
+            "MAX(c.updatedAt), (SELECT MAX(t.deletedAt) FROM Tombstone t WHERE t.entity = " + ENTITY_TYPES +
+            "CUSTOMER)) FROM Customer c";
+
+    public final static String SELECT_ROOMS_VERSION = "SELECT new " + PROJECTIONS + "VersionProjection(" +
+            "MAX(r.updatedAt), (SELECT MAX(t.deletedAt) FROM Tombstone t WHERE t.entity = " + ENTITY_TYPES +
+            "ROOM)) FROM Room r";
+
+    public final static String SELECT_RESERVATIONS_VERSION = "SELECT new " + PROJECTIONS + "VersionProjection(" +
+            "MAX(r.updatedAt), (SELECT MAX(c.updatedAt) FROM Customer c), (SELECT MAX(rr.updatedAt) FROM Room rr), " +
+            "(SELECT MAX(t.deletedAt) FROM Tombstone t WHERE t.entity = " + ENTITY_TYPES + "RESERVATION)) " +
+            "FROM Reservation r";
+
+    // Keyset over (updatedAt, id) for the change feeds, ties on the same instant are broken by id
+    public final static String SELECT_CUSTOMER_CHANGE_KEYS = "SELECT new " + PROJECTIONS + "ChangeKey(c.id, c.updatedAt) " +
+            "FROM Customer c WHERE (c.updatedAt > :since OR (c.updatedAt = :since AND c.id > :lastId)) " +
+            "AND c.updatedAt <= :until ORDER BY c.updatedAt, c.id";
+
+    public final static String SELECT_ROOM_CHANGE_KEYS = "SELECT new " + PROJECTIONS + "ChangeKey(r.id, r.updatedAt) " +
+            "FROM Room r WHERE (r.updatedAt > :since OR (r.updatedAt = :since AND r.id > :lastId)) " +
+            "AND r.updatedAt <= :until ORDER BY r.updatedAt, r.id";
+
+    public final static String SELECT_RESERVATION_CHANGE_KEYS = "SELECT new " + PROJECTIONS + "ChangeKey(r.id, r.updatedAt) " +
+            "FROM Reservation r WHERE (r.updatedAt > :since OR (r.updatedAt = :since AND r.id > :lastId)) " +
+            "AND r.updatedAt <= :until ORDER BY r.updatedAt, r.id";
+
+    // Plain SQL for the reactive reads, same columns in the same order as the projections above
+    public final static String SQL_SELECT_ROOM = "SELECT r.id, r.number, r.description, r.size, " +
+            "r.price_per_month, r.busy, r.active FROM room r ";
+
+    public final static String SQL_SELECT_RESERVATION = "SELECT r.id, r.code, " +
+            "c.id, c.name, c.date_of_birth, c.cpf, c.email, " +
+            "rr.id, rr.number, rr.description, rr.size, rr.price_per_month, rr.busy, rr.active, " +
+            "r.reservation_price, r.description, r.duration, r.start_date, r.end_date, r.active " +
+            "FROM reservation r LEFT JOIN customer c ON c.id = r.customer_id " +
+            "LEFT JOIN room rr ON rr.id = r.reserved_room_id ";
+
+    public final static String SQL_INSERT_AUDIT_RECORD = "INSERT INTO audit_record " +
+            "(entity, entity_id, action, changes, changed_by, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+}
@@ -1,7 +1,10 @@
 package com.martingarrote.reservationmanagement.controllers;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.services.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,11 +12,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.Duration;
+
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.MERGE_PATCH_JSON_VALUE;
+import static com.martingarrote.reservationmanagement.utils.ConditionalRequestUtils.isNotModified;
 
 @RestController
 @RequestMapping(value = "/api/customers")
@@ -23,6 +35,9 @@ public class CustomerController {
     @Autowired
     CustomerService service;
 
+    @Value("${sync.commit-lag}")
+    Duration commitLag;
+
     @Operation(description = "Create a new customer", method = "POST")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Create a new customer"),
@@ -37,29 +52,91 @@ public class CustomerController {
         }
     }
 
-    @Operation(description = "List all existing customers", method = "GET")
+    @Operation(description = "List the existing customers page by page, following the next cursor", method = "GET")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List with all customers"),
-            @ApiResponse(responseCode = "204", description = "Not found any customer")
+            @ApiResponse(responseCode = "200", description = "Page of customers with the cursor of the next page"),
+            @ApiResponse(responseCode = "204", description = "Not found any customer"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Bad request: invalid cursor, size or sort")
     })
     @GetMapping
-    public ResponseEntity<List<CustomerDTO>> listAll() {
-        List<CustomerDTO> customerDTOS = service.listAll();
+    public ResponseEntity<?> listAll(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            WebRequest request
+    ) {
+        if (isNotModified(request, service.findVersion(), commitLag)) {
+            return null;
+        }
 
-        if (customerDTOS.isEmpty()) {
-            return ResponseEntity.noContent().build();
+        try {
+            PageDTO<CustomerDTO> page = service.listAll(cursor, size);
+
+            if (page.getContent().isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+    }
 
-        return ResponseEntity.ok(customerDTOS);
+    @Operation(description = "List the customers created, updated or deleted since the given watermark", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changed customers, ids of the deleted ones and the next watermark"),
+            @ApiResponse(responseCode = "400", description = "Bad request: invalid watermark or size"),
+            @ApiResponse(responseCode = "410", description = "Watermark older than the kept deletions, sync from scratch")
+    })
+    @GetMapping(value = "/changes")
+    public ResponseEntity<?> findChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(service.findChanges(since, size));
+        } catch (Exception e) {
+            if (WATERMARK_EXPIRED.equals(e.getMessage())) {
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.GONE);
+            }
+
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(description = "Export all customers as NDJSON or CSV, streamed row by row", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream with all customers"),
+            @ApiResponse(responseCode = "400", description = "Bad request: unsupported format")
+    })
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=customers." + exportFormat.getExtension())
+                .body(outputStream -> service.export(exportFormat, outputStream));
     }
 
     @Operation(description = "Get a customer based in given ID", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get a customer with given id"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found a customer with given id")
     })
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Object> findById(@PathVariable Long id) {
+    public ResponseEntity<Object> findById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, service.findVersionById(id), commitLag)) {
+            return null;
+        }
+
         CustomerDTO customer = service.findById(id);
 
         if (customer == null) {
@@ -92,6 +169,28 @@ public class CustomerController {
 
     }
 
+    @Operation(description = "Partially update a customer based in given ID with a JSON Merge Patch", method = "PATCH")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Update only the fields present in the patch"),
+            @ApiResponse(responseCode = "404", description = "Not found a customer with given id"),
+            @ApiResponse(responseCode = "400", description = "Bad request: unknown, null or invalid field in the patch")
+    })
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patch(@RequestBody JsonNode patch, @PathVariable Long id) {
+        try {
+            Long serviceReturn = service.patch(patch, id);
+
+            if (serviceReturn == null) {
+                return ResponseEntity.notFound().build();
+            } else {
+                return ResponseEntity.ok().body(serviceReturn);
+            }
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(description = "Delete a customer based in given ID", method = "DELETE")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Delete a customer with given id"),
@@ -0,0 +1,57 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.services.ReactiveReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.SMILE_VALUE;
+
+// Served as NDJSON the rows are written while they are read, with JSON, CBOR or Smile they're collected into one
+// array first
+@RestController
+@RequestMapping(value = "/api/reactive/reservations",
+        produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE,
+                MediaType.APPLICATION_CBOR_VALUE, SMILE_VALUE})
+@Tag(name = "Reactive reservation", description = "Non-blocking reservation read endpoints")
+public class ReactiveReservationController {
+
+    @Autowired
+    ReactiveReservationService service;
+
+    @Operation(description = "Stream the reservations based in active status and remaining months", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of the reservations, empty when none matches")
+    })
+    @GetMapping(value = "/search")
+    public Flux<ReservationDTO> search(
+            @RequestParam(value = "active", required = false) Boolean active,
+            @RequestParam(value = "endsIn", required = false) Integer endsIn
+    ) {
+        return service.search(active, endsIn);
+    }
+
+    @Operation(description = "Stream the reservations of a determined customer, base in the given ID", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of the reservations, empty when none matches")
+    })
+    @GetMapping(value = "/customer/{id}")
+    public Flux<ReservationDTO> findByCustomer(@PathVariable Long id) {
+        return service.findByCustomer(id);
+    }
+
+    @Operation(description = "Stream the reservations of a determined room, base in the given ID", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of the reservations, empty when none matches")
+    })
+    @GetMapping(value = "/room/{id}")
+    public Flux<ReservationDTO> findByRoom(@PathVariable Long id) {
+        return service.findByRoom(id);
+    }
+}
@@ -0,0 +1,36 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.services.ReactiveRoomService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.SMILE_VALUE;
+
+@RestController
+@RequestMapping(value = "/api/reactive/rooms",
+        produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE,
+                MediaType.APPLICATION_CBOR_VALUE, SMILE_VALUE})
+@Tag(name = "Reactive room", description = "Non-blocking room read endpoints")
+public class ReactiveRoomController {
+
+    @Autowired
+    ReactiveRoomService service;
+
+    @Operation(description = "Stream all rooms ordered by id", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of all rooms, empty when there is none")
+    })
+    @GetMapping
+    public Flux<RoomDTO> findAll() {
+        return service.findAll();
+    }
+}
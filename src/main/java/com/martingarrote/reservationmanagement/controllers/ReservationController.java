@@ -1,6 +1,10 @@
 package com.martingarrote.reservationmanagement.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
 import com.martingarrote.reservationmanagement.services.ReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,12 +12,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.MERGE_PATCH_JSON_VALUE;
+import static com.martingarrote.reservationmanagement.utils.ConditionalRequestUtils.isNotModified;
+
 @RestController
 @RequestMapping(value = "/api/reservations")
 @Tag(name = "Reservation", description = "Reservation endpoints")
@@ -22,6 +37,9 @@ public class ReservationController {
     @Autowired
     ReservationService service;
 
+    @Value("${sync.commit-lag}")
+    Duration commitLag;
+
     @Operation(description = "Create a new reservation", method = "POST")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Create a new reservation"),
@@ -36,29 +54,92 @@ public class ReservationController {
         }
     }
 
-    @Operation(description = "List all existing reservations", method = "GET")
+    @Operation(description = "List the existing reservations page by page, following the next cursor", method = "GET")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List with all reservations"),
-            @ApiResponse(responseCode = "204", description = "Not found any reservation")
+            @ApiResponse(responseCode = "200", description = "Page of reservations with the cursor of the next page"),
+            @ApiResponse(responseCode = "204", description = "Not found any reservation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Bad request: invalid cursor, size or sort")
     })
     @GetMapping
-    public ResponseEntity<List<ReservationDTO>> listAll() {
-        List<ReservationDTO> reservationDTOS = service.listAll();
+    public ResponseEntity<?> listAll(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            WebRequest request
+    ) {
+        if (isNotModified(request, service.findVersion(), commitLag)) {
+            return null;
+        }
 
-        if (reservationDTOS.isEmpty()) {
-            return ResponseEntity.noContent().build();
+        try {
+            PageDTO<ReservationDTO> page = service.listAll(cursor, size, sort);
+
+            if (page.getContent().isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(description = "List the reservations created, updated or deleted since the given watermark", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changed reservations, ids of the deleted ones and the next watermark"),
+            @ApiResponse(responseCode = "400", description = "Bad request: invalid watermark or size"),
+            @ApiResponse(responseCode = "410", description = "Watermark older than the kept deletions, sync from scratch")
+    })
+    @GetMapping(value = "/changes")
+    public ResponseEntity<?> findChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(service.findChanges(since, size));
+        } catch (Exception e) {
+            if (WATERMARK_EXPIRED.equals(e.getMessage())) {
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.GONE);
+            }
+
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(description = "Export all reservations as NDJSON or CSV, streamed row by row", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream with all reservations"),
+            @ApiResponse(responseCode = "400", description = "Bad request: unsupported format")
+    })
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(reservationDTOS);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reservations." + exportFormat.getExtension())
+                .body(outputStream -> service.export(exportFormat, outputStream));
     }
 
     @Operation(description = "Get a reservation based in given ID", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get a reservation with given id"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found a reservation with given id")
     })
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Object> findById(@PathVariable Long id) {
+    public ResponseEntity<Object> findById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, service.findVersionById(id), commitLag)) {
+            return null;
+        }
+
         ReservationDTO reservation = service.findById(id);
 
         if (reservation == null) {
@@ -71,13 +152,22 @@ public class ReservationController {
     @Operation(description = "Get the reservations based in active status and remaining months", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get the reservations with customized preferences of search"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found any reservation with determined preferences")
     })
     @GetMapping(value = "/search")
     public ResponseEntity<List<ReservationDTO>> search(
             @RequestParam(value = "active", required = false) Boolean active,
-            @RequestParam(value = "endsIn", required = false) Integer endsIn
+            @RequestParam(value = "endsIn", required = false) Integer endsIn,
+            WebRequest request
     ) {
+        VersionProjection version = service.findVersion();
+
+        // The endsIn window starts today, it moves at midnight even when no reservation changes
+        if (isNotModified(request, endsIn == null ? version : version.asOf(LocalDate.now()), commitLag)) {
+            return null;
+        }
+
         List<ReservationDTO> reservations = service.search(active, endsIn);
 
         if (reservations.isEmpty()) {
@@ -90,10 +180,15 @@ public class ReservationController {
     @Operation(description = "Get the reservations of a determined customer, base in the given ID", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get the reservations with given customer id"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found a reservation with given customer id")
     })
     @GetMapping(value = "/customer/{id}")
-    public ResponseEntity<List<ReservationDTO>> findByCustomer(@PathVariable Long id) {
+    public ResponseEntity<List<ReservationDTO>> findByCustomer(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, service.findVersion(), commitLag)) {
+            return null;
+        }
+
         List<ReservationDTO> reservations = service.findByCustomer(id);
 
         if (reservations.isEmpty()) {
@@ -106,10 +201,15 @@ public class ReservationController {
     @Operation(description = "Get the reservations of a determined room, base in the given ID", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get the reservations with given room id"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found a reservation with given room id")
     })
     @GetMapping(value = "/room/{id}")
-    public ResponseEntity<List<ReservationDTO>> findByRoom(@PathVariable Long id) {
+    public ResponseEntity<List<ReservationDTO>> findByRoom(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, service.findVersion(), commitLag)) {
+            return null;
+        }
+
         List<ReservationDTO> reservations = service.findByRoom(id);
 
         if (reservations.isEmpty()) {
@@ -142,6 +242,28 @@ public class ReservationController {
 
     }
 
+    @Operation(description = "Partially update a reservation based in given ID with a JSON Merge Patch", method = "PATCH")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Update only the fields present in the patch"),
+            @ApiResponse(responseCode = "404", description = "Not found a reservation with given id"),
+            @ApiResponse(responseCode = "400", description = "Bad request: unknown, null or invalid field in the patch")
+    })
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patch(@RequestBody JsonNode patch, @PathVariable Long id) {
+        try {
+            Long serviceReturn = service.patch(patch, id);
+
+            if (serviceReturn == null) {
+                return ResponseEntity.notFound().build();
+            } else {
+                return ResponseEntity.ok().body(serviceReturn);
+            }
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(description = "Delete a reservation based in given ID", method = "DELETE")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Delete a reservation with given id"),
@@ -1,6 +1,10 @@
 package com.martingarrote.reservationmanagement.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.services.RoomOccupancyService;
 import com.martingarrote.reservationmanagement.services.RoomService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,12 +12,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.util.List;
 
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.MERGE_PATCH_JSON_VALUE;
+import static com.martingarrote.reservationmanagement.utils.ConditionalRequestUtils.isNotModified;
+
 @RestController
 @RequestMapping(value = "/api/rooms")
 @Tag(name = "Room", description = "Room endpoints")
@@ -22,6 +37,12 @@ public class RoomController {
     @Autowired
     RoomService service;
 
+    @Autowired
+    RoomOccupancyService occupancyService;
+
+    @Value("${sync.commit-lag}")
+    Duration commitLag;
+
     @Operation(description = "Create a new room", method = "POST")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Create a new room"),
@@ -36,29 +57,91 @@ public class RoomController {
         }
     }
 
-    @Operation(description = "List all existing rooms", method = "GET")
+    @Operation(description = "List the existing rooms page by page, following the next cursor", method = "GET")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List with all rooms"),
-            @ApiResponse(responseCode = "204", description = "Not found any room")
+            @ApiResponse(responseCode = "200", description = "Page of rooms with the cursor of the next page"),
+            @ApiResponse(responseCode = "204", description = "Not found any room"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Bad request: invalid cursor, size or sort")
     })
     @GetMapping
-    public ResponseEntity<List<RoomDTO>> listAll() {
-        List<RoomDTO> roomsDTO = service.listAll();
+    public ResponseEntity<?> listAll(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            WebRequest request
+    ) {
+        if (isNotModified(request, service.findVersion(), commitLag)) {
+            return null;
+        }
+
+        try {
+            PageDTO<RoomDTO> page = service.listAll(cursor, size);
 
-        if (roomsDTO.isEmpty()) {
-            return ResponseEntity.noContent().build();
+            if (page.getContent().isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+    }
 
-        return ResponseEntity.ok(roomsDTO);
+    @Operation(description = "List the rooms created, updated or deleted since the given watermark", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changed rooms, ids of the deleted ones and the next watermark"),
+            @ApiResponse(responseCode = "400", description = "Bad request: invalid watermark or size"),
+            @ApiResponse(responseCode = "410", description = "Watermark older than the kept deletions, sync from scratch")
+    })
+    @GetMapping(value = "/changes")
+    public ResponseEntity<?> findChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(service.findChanges(since, size));
+        } catch (Exception e) {
+            if (WATERMARK_EXPIRED.equals(e.getMessage())) {
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.GONE);
+            }
+
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(description = "Export all rooms as NDJSON or CSV, streamed row by row", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream with all rooms"),
+            @ApiResponse(responseCode = "400", description = "Bad request: unsupported format")
+    })
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=rooms." + exportFormat.getExtension())
+                .body(outputStream -> service.export(exportFormat, outputStream));
     }
 
     @Operation(description = "Get a room based in given ID", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get a room with given id"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found a room with given id")
     })
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Object> findById(@PathVariable Long id) {
+    public ResponseEntity<Object> findById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, service.findVersionById(id), commitLag)) {
+            return null;
+        }
+
         RoomDTO room = service.findById(id);
 
         if (room == null) {
@@ -71,10 +154,15 @@ public class RoomController {
     @Operation(description = "Get all rooms based in busy status", method = "GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Get rooms with expected busy status"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Not found any room with the determined busy status")
     })
     @GetMapping(value = "/status")
-    public ResponseEntity<Object> findByBusy(@RequestParam("busy") boolean busy) {
+    public ResponseEntity<Object> findByBusy(@RequestParam("busy") boolean busy, WebRequest request) {
+        if (isNotModified(request, service.findVersion(), commitLag)) {
+            return null;
+        }
+
         List<RoomDTO> roomDTOS = service.findByBusy(busy);
 
         if (roomDTOS.isEmpty()) {
@@ -84,6 +172,15 @@ public class RoomController {
         return ResponseEntity.ok(roomDTOS);
     }
 
+    @Operation(description = "Stream the busy and active status of the rooms as it changes", method = "GET")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Server-sent events: a snapshot of every room, then occupancy and deleted events")
+    })
+    @GetMapping(value = "/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOccupancy() {
+        return occupancyService.subscribe();
+    }
+
     @Operation(description = "Update a room based in given ID", method = "PUT")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Update the room"),
@@ -107,6 +204,28 @@ public class RoomController {
 
     }
 
+    @Operation(description = "Partially update a room based in given ID with a JSON Merge Patch", method = "PATCH")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Update only the fields present in the patch"),
+            @ApiResponse(responseCode = "404", description = "Not found a room with given id"),
+            @ApiResponse(responseCode = "400", description = "Bad request: unknown, null or invalid field in the patch")
+    })
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patch(@RequestBody JsonNode patch, @PathVariable Long id) {
+        try {
+            Long serviceReturn = service.patch(patch, id);
+
+            if (serviceReturn == null) {
+                return ResponseEntity.notFound().build();
+            } else {
+                return ResponseEntity.ok().body(serviceReturn);
+            }
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(description = "Delete a room based in given ID", method = "DELETE")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Delete a room with given id"),
@@ -0,0 +1,11 @@
+package com.martingarrote.reservationmanagement.interfaces;
+
+// Maps loaded entities, for the writes and the single-entity reads. The list, search, export and change reads
+// come from the records in models.projections, and their toDTO() is the canonical read mapping: it skips the
+// entity and its persistence context. A field added to a DTO goes into both, ProjectionMappingTest checks they agree
+public interface MapperInterface<E, D> {
+
+    D toDTO(E entity);
+
+    E toEntity(D dto);
+}
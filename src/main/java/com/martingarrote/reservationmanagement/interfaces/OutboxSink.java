@@ -0,0 +1,10 @@
+package com.martingarrote.reservationmanagement.interfaces;
+
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+
+// Delivery is at least once, a message that fails on any sink is sent to all of them again on the retry
+public interface OutboxSink {
+
+    void deliver(OutboxMessage message) throws Exception;
+
+}
@@ -0,0 +1,40 @@
+package com.martingarrote.reservationmanagement.mappers;
+
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CustomerMapper implements MapperInterface<Customer, CustomerDTO> {
+
+    @Override
+    public CustomerDTO toDTO(Customer customer) {
+        if (customer == null) {
+            return null;
+        }
+
+        return new CustomerDTO(
+                customer.getId(),
+                customer.getName(),
+                customer.getDateOfBirth(),
+                customer.getCpf(),
+                customer.getEmail()
+        );
+    }
+
+    @Override
+    public Customer toEntity(CustomerDTO customerDTO) {
+        if (customerDTO == null) {
+            return null;
+        }
+
+        return new Customer(
+                customerDTO.getId() == null ? 0 : customerDTO.getId(),
+                customerDTO.getName(),
+                customerDTO.getDateOfBirth(),
+                customerDTO.getCpf(),
+                customerDTO.getEmail()
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package com.martingarrote.reservationmanagement.mappers;
+
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReservationMapper implements MapperInterface<Reservation, ReservationDTO> {
+
+    @Autowired
+    MapperInterface<Customer, CustomerDTO> customerMapper;
+
+    @Autowired
+    MapperInterface<Room, RoomDTO> roomMapper;
+
+    @Override
+    public ReservationDTO toDTO(Reservation reservation) {
+        if (reservation == null) {
+            return null;
+        }
+
+        return new ReservationDTO(
+                reservation.getId(),
+                reservation.getCode(),
+                customerMapper.toDTO(reservation.getCustomer()),
+                roomMapper.toDTO(reservation.getReservedRoom()),
+                reservation.getReservationPrice(),
+                reservation.getDescription(),
+                reservation.getDuration(),
+                reservation.getStartDate(),
+                reservation.getEndDate(),
+                reservation.isActive()
+        );
+    }
+
+    @Override
+    public Reservation toEntity(ReservationDTO reservationDTO) {
+        if (reservationDTO == null) {
+            return null;
+        }
+
+        return new Reservation(
+                reservationDTO.getId() == null ? 0 : reservationDTO.getId(),
+                reservationDTO.getCode(),
+                customerMapper.toEntity(reservationDTO.getCustomer()),
+                roomMapper.toEntity(reservationDTO.getReservedRoom()),
+                reservationDTO.getReservationPrice() == null ? 0 : reservationDTO.getReservationPrice(),
+                reservationDTO.getDescription(),
+                reservationDTO.getDuration() == null ? 0 : reservationDTO.getDuration(),
+                reservationDTO.getStartDate(),
+                reservationDTO.getEndDate(),
+                Boolean.TRUE.equals(reservationDTO.getActive())
+        );
+    }
+}
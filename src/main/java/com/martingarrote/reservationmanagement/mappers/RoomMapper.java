@@ -0,0 +1,44 @@
+package com.martingarrote.reservationmanagement.mappers;
+
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RoomMapper implements MapperInterface<Room, RoomDTO> {
+
+    @Override
+    public RoomDTO toDTO(Room room) {
+        if (room == null) {
+            return null;
+        }
+
+        return new RoomDTO(
+                room.getId(),
+                room.getNumber(),
+                room.getDescription(),
+                room.getSize(),
+                room.getPricePerMonth(),
+                room.isBusy(),
+                room.isActive()
+        );
+    }
+
+    @Override
+    public Room toEntity(RoomDTO roomDTO) {
+        if (roomDTO == null) {
+            return null;
+        }
+
+        return new Room(
+                roomDTO.getId() == null ? 0 : roomDTO.getId(),
+                roomDTO.getNumber() == null ? 0 : roomDTO.getNumber(),
+                roomDTO.getDescription(),
+                roomDTO.getSize() == null ? 0 : roomDTO.getSize(),
+                roomDTO.getPricePerMonth() == null ? 0 : roomDTO.getPricePerMonth(),
+                Boolean.TRUE.equals(roomDTO.getBusy()),
+                Boolean.TRUE.equals(roomDTO.getActive())
+        );
+    }
+}
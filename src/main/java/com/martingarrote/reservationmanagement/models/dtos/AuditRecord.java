@@ -0,0 +1,10 @@
+package com.martingarrote.reservationmanagement.models.dtos;
+
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+
+import java.sql.Timestamp;
+
+public record AuditRecord(EntityType entity, long entityId, AuditAction action, String changes, String changedBy,
+                          Timestamp changedAt) {
+}
@@ -0,0 +1,71 @@
+package com.martingarrote.reservationmanagement.models.dtos;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+public class ChangesDTO<T> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private List<T> changed;
+
+    private List<Long> deleted;
+
+    private String watermark;
+
+    private boolean hasMore;
+
+    public ChangesDTO() {
+    }
+
+    public ChangesDTO(List<T> changed, List<Long> deleted, String watermark, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.watermark = watermark;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<T> changed) {
+        this.changed = changed;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangesDTO{" +
+                "changed=" + changed +
+                ", deleted=" + deleted +
+                ", watermark='" + watermark + '\'' +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package com.martingarrote.reservationmanagement.models.dtos;
+
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+
+import java.sql.Timestamp;
+
+// What the sinks receive, the id stays the same across retries so receivers can drop duplicates
+public record OutboxMessage(long id, EntityType aggregateType, long aggregateId, OutboxEventType type,
+                            String payload, Timestamp createdAt) {
+}
@@ -0,0 +1,47 @@
+package com.martingarrote.reservationmanagement.models.dtos;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+public class PageDTO<T> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private List<T> content;
+
+    private String next;
+
+    public PageDTO() {
+    }
+
+    public PageDTO(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    @Override
+    public String toString() {
+        return "PageDTO{" +
+                "content=" + content +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
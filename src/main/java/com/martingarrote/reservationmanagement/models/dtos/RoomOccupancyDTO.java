@@ -0,0 +1,70 @@
+package com.martingarrote.reservationmanagement.models.dtos;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+public class RoomOccupancyDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private Integer number;
+
+    private Boolean busy;
+
+    private Boolean active;
+
+    public RoomOccupancyDTO() {
+    }
+
+    public RoomOccupancyDTO(Long id, Integer number, Boolean busy, Boolean active) {
+        this.id = id;
+        this.number = number;
+        this.busy = busy;
+        this.active = active;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getNumber() {
+        return number;
+    }
+
+    public void setNumber(Integer number) {
+        this.number = number;
+    }
+
+    public Boolean getBusy() {
+        return busy;
+    }
+
+    public void setBusy(Boolean busy) {
+        this.busy = busy;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomOccupancyDTO{" +
+                "id=" + id +
+                ", number=" + number +
+                ", busy=" + busy +
+                ", active=" + active +
+                '}';
+    }
+}
@@ -2,12 +2,16 @@ package com.martingarrote.reservationmanagement.models.entities;
 
 import com.martingarrote.reservationmanagement.interfaces.AuditInterface;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
 
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
 public class Customer implements AuditInterface {
 
     @Id
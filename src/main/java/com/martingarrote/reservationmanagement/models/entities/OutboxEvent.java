@@ -0,0 +1,122 @@
+package com.martingarrote.reservationmanagement.models.entities;
+
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+
+// Written in the same transaction as the change it describes, and deleted once every sink has it
+@Entity
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private EntityType aggregateType;
+
+    @Column(nullable = false, updatable = false)
+    private long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private OutboxEventType eventType;
+
+    @Column(nullable = false, updatable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false, updatable = false)
+    private Timestamp createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Timestamp nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public OutboxEvent() {
+
+    }
+
+    public OutboxEvent(EntityType aggregateType, long aggregateId, OutboxEventType eventType, String payload,
+                       Timestamp createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public OutboxMessage toMessage() {
+        return new OutboxMessage(id, aggregateType, aggregateId, eventType, payload, createdAt);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public EntityType getAggregateType() {
+        return aggregateType;
+    }
+
+    public long getAggregateId() {
+        return aggregateId;
+    }
+
+    public OutboxEventType getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Timestamp getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Timestamp nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id=" + id +
+                ", aggregateType=" + aggregateType +
+                ", aggregateId=" + aggregateId +
+                ", eventType=" + eventType +
+                ", createdAt=" + createdAt +
+                ", attempts=" + attempts +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+}
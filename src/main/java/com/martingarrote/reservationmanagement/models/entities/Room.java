@@ -2,10 +2,14 @@ package com.martingarrote.reservationmanagement.models.entities;
 
 import com.martingarrote.reservationmanagement.interfaces.AuditInterface;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.sql.Timestamp;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "room")
 public class Room implements AuditInterface {
 
     @Id
@@ -0,0 +1,61 @@
+package com.martingarrote.reservationmanagement.models.entities;
+
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+
+// Marks a hard-deleted row, so the change feeds can tell clients to drop it from their copies
+@Entity
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private EntityType entity;
+
+    @Column(nullable = false, updatable = false)
+    private long entityId;
+
+    @Column(nullable = false, updatable = false)
+    private Timestamp deletedAt;
+
+    public Tombstone() {
+
+    }
+
+    public Tombstone(EntityType entity, long entityId, Timestamp deletedAt) {
+        this.entity = entity;
+        this.entityId = entityId;
+        this.deletedAt = deletedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public EntityType getEntity() {
+        return entity;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public Timestamp getDeletedAt() {
+        return deletedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Tombstone{" +
+                "id=" + id +
+                ", entity=" + entity +
+                ", entityId=" + entityId +
+                ", deletedAt=" + deletedAt +
+                '}';
+    }
+}
@@ -0,0 +1,8 @@
+package com.martingarrote.reservationmanagement.models.enums;
+
+public enum AuditAction {
+    CREATE,
+    UPDATE,
+    PATCH,
+    DELETE
+}
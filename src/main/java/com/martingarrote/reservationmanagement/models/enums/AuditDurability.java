@@ -0,0 +1,8 @@
+package com.martingarrote.reservationmanagement.models.enums;
+
+public enum AuditDurability {
+    // Buffered in memory after the commit and written in batches, a full buffer or a crash loses records
+    BEST_EFFORT,
+    // Inserted inside the business transaction, the change and its record commit or roll back together
+    TRANSACTIONAL
+}
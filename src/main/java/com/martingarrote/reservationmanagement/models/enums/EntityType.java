@@ -0,0 +1,7 @@
+package com.martingarrote.reservationmanagement.models.enums;
+
+public enum EntityType {
+    ROOM,
+    CUSTOMER,
+    RESERVATION
+}
@@ -0,0 +1,41 @@
+package com.martingarrote.reservationmanagement.models.enums;
+
+import org.springframework.http.MediaType;
+
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.CBOR_SEQ_VALUE;
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.SMILE_VALUE;
+
+public enum ExportFormat {
+
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON),
+    CSV("csv", new MediaType("text", "csv")),
+    CBOR("cbor", MediaType.parseMediaType(CBOR_SEQ_VALUE)),
+    SMILE("smile", MediaType.parseMediaType(SMILE_VALUE));
+
+    private final String extension;
+
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat fromValue(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.martingarrote.reservationmanagement.models.enums;
+
+public enum OutboxEventType {
+    CREATED,
+    UPDATED,
+    PATCHED,
+    DELETED
+}
@@ -0,0 +1,6 @@
+package com.martingarrote.reservationmanagement.models.projections;
+
+import java.sql.Timestamp;
+
+public record ChangeKey(long id, Timestamp changedAt) {
+}
@@ -0,0 +1,12 @@
+package com.martingarrote.reservationmanagement.models.projections;
+
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+
+import java.time.LocalDate;
+
+public record CustomerProjection(long id, String name, LocalDate dateOfBirth, String cpf, String email) {
+
+    public CustomerDTO toDTO() {
+        return new CustomerDTO(id, name, dateOfBirth, cpf, email);
+    }
+}
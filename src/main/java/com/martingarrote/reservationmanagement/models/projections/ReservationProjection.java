@@ -0,0 +1,27 @@
+package com.martingarrote.reservationmanagement.models.projections;
+
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+
+import java.time.LocalDate;
+
+// JPQL constructor expressions can't be nested, so customer and room columns come flattened
+public record ReservationProjection(long id, String code,
+                                    Long customerId, String customerName, LocalDate customerDateOfBirth,
+                                    String customerCpf, String customerEmail,
+                                    Long roomId, Integer roomNumber, String roomDescription, Double roomSize,
+                                    Double roomPricePerMonth, Boolean roomBusy, Boolean roomActive,
+                                    double reservationPrice, String description, int duration,
+                                    LocalDate startDate, LocalDate endDate, boolean active) {
+
+    public ReservationDTO toDTO() {
+        CustomerDTO customer = customerId == null ? null
+                : new CustomerDTO(customerId, customerName, customerDateOfBirth, customerCpf, customerEmail);
+        RoomDTO reservedRoom = roomId == null ? null
+                : new RoomDTO(roomId, roomNumber, roomDescription, roomSize, roomPricePerMonth, roomBusy, roomActive);
+
+        return new ReservationDTO(id, code, customer, reservedRoom, reservationPrice, description, duration,
+                startDate, endDate, active);
+    }
+}
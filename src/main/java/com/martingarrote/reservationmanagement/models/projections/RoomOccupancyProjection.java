@@ -0,0 +1,12 @@
+package com.martingarrote.reservationmanagement.models.projections;
+
+import com.martingarrote.reservationmanagement.models.dtos.RoomOccupancyDTO;
+
+import java.sql.Timestamp;
+
+public record RoomOccupancyProjection(long id, int number, boolean busy, boolean active, Timestamp updatedAt) {
+
+    public RoomOccupancyDTO toDTO() {
+        return new RoomOccupancyDTO(id, number, busy, active);
+    }
+}
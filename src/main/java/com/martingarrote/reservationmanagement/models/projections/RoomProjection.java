@@ -0,0 +1,11 @@
+package com.martingarrote.reservationmanagement.models.projections;
+
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+
+public record RoomProjection(long id, int number, String description, double size, double pricePerMonth,
+                             boolean busy, boolean active) {
+
+    public RoomDTO toDTO() {
+        return new RoomDTO(id, number, description, size, pricePerMonth, busy, active);
+    }
+}
@@ -0,0 +1,67 @@
+package com.martingarrote.reservationmanagement.models.projections;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Latest updatedAt and latest deletion of what a GET returns, enough to answer a conditional request without
+// loading it. Inserts and updates move the first, deletes leave a tombstone that moves the second
+public record VersionProjection(boolean exists, Timestamp lastModified, Timestamp lastDeleted) {
+
+    // A single row, the count is 0 or 1
+    public VersionProjection(long count, Timestamp updatedAt) {
+        this(count > 0, updatedAt, null);
+    }
+
+    // Reservations embed their customer and room, so their version also moves when either of them changes
+    public VersionProjection(long count, Timestamp updatedAt, Timestamp customerUpdatedAt, Timestamp roomUpdatedAt) {
+        this(count, latest(updatedAt, customerUpdatedAt, roomUpdatedAt));
+    }
+
+    // A whole table, read from the updated_at and tombstone indexes instead of counting the rows
+    public VersionProjection(Timestamp updatedAt, Timestamp deletedAt) {
+        this(updatedAt != null, updatedAt, deletedAt);
+    }
+
+    public VersionProjection(Timestamp updatedAt, Timestamp customerUpdatedAt, Timestamp roomUpdatedAt,
+                             Timestamp deletedAt) {
+        this(latest(updatedAt, customerUpdatedAt, roomUpdatedAt), deletedAt);
+    }
+
+    // Results relative to today move at midnight without any row changing, so the day counts as a modification
+    public VersionProjection asOf(LocalDate today) {
+        Timestamp startOfDay = Timestamp.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        return new VersionProjection(exists, latest(lastModified, startOfDay), lastDeleted);
+    }
+
+    public String eTag() {
+        return eTag(null);
+    }
+
+    // Strong, so every encoding of the same version gets its own tag, JSON keeps the plain one
+    public String eTag(String representation) {
+        String suffix = representation == null ? "" : "-" + representation;
+
+        return "\"" + millis(lastDeleted) + "-" + millis(lastModified) + suffix + "\"";
+    }
+
+    public long lastModifiedMillis() {
+        Timestamp latest = latest(lastModified, lastDeleted);
+
+        return latest == null ? -1 : latest.getTime();
+    }
+
+    private static long millis(Timestamp timestamp) {
+        return timestamp == null ? 0 : timestamp.getTime();
+    }
+
+    private static Timestamp latest(Timestamp... timestamps) {
+        return Stream.of(timestamps)
+                .filter(Objects::nonNull)
+                .max(Timestamp::compareTo)
+                .orElse(null);
+    }
+}
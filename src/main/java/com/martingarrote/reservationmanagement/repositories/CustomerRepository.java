@@ -1,10 +1,62 @@
 package com.martingarrote.reservationmanagement.repositories;
 
 import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.projections.ChangeKey;
+import com.martingarrote.reservationmanagement.models.projections.CustomerProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.EXPORT_FETCH_SIZE_HINT;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_CUSTOMER_CHANGE_KEYS;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_CUSTOMER_PROJECTION;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_CUSTOMER_VERSION;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_CUSTOMERS_VERSION;
+import static org.hibernate.jpa.HibernateHints.*;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, PartialUpdateRepository {
+
+    @Query(SELECT_CUSTOMER_PROJECTION + "WHERE c.id > :lastId ORDER BY c.id")
+    List<CustomerProjection> findPageOrderById(@Param("lastId") long lastId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE_HINT),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_CUSTOMER_PROJECTION + "ORDER BY c.id")
+    Stream<CustomerProjection> streamAllOrderById();
+
+    @Query(SELECT_CUSTOMER_CHANGE_KEYS)
+    List<ChangeKey> findChangedSince(@Param("since") Timestamp since, @Param("lastId") long lastId,
+                                     @Param("until") Timestamp until, Pageable pageable);
+
+    @Query(SELECT_CUSTOMER_PROJECTION + "WHERE c.id IN :ids ORDER BY c.updatedAt, c.id")
+    List<CustomerProjection> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_CUSTOMER_VERSION)
+    VersionProjection findVersionById(@Param("id") long id);
+
+    @Query(SELECT_CUSTOMERS_VERSION)
+    VersionProjection findVersion();
+
+    // Returns 0 both when the customer doesn't exist and when a reservation still points to it
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Customer c WHERE c.id = :id " +
+            "AND NOT EXISTS (SELECT res.id FROM Reservation res WHERE res.customer.id = :id)")
+    int deleteByIdIfUnreserved(@Param("id") long id);
 
 }
@@ -0,0 +1,33 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.entities.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Only the oldest event of each aggregate is claimable, so a reservation's events go out one at a time and in order.
+    // A lock timeout of -2 is Hibernate's SKIP_LOCKED: rows claimed by another dispatcher are passed over, not waited on
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.nextAttemptAt <= :now " +
+            "AND e.id = (SELECT MIN(h.id) FROM OutboxEvent h " +
+            "WHERE h.aggregateType = e.aggregateType AND h.aggregateId = e.aggregateId) " +
+            "ORDER BY e.id")
+    List<OutboxEvent> claimBatch(@Param("now") Timestamp now, Pageable pageable);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e")
+    Timestamp findOldestCreatedAt();
+
+}
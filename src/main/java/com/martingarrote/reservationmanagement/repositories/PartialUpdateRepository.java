@@ -0,0 +1,9 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import java.util.Map;
+
+public interface PartialUpdateRepository {
+
+    // Updates only the given columns in one statement, returns 0 when there is no row with the id
+    int updateById(Class<?> entityClass, long id, Map<String, Object> changes);
+}
@@ -0,0 +1,35 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+public class PartialUpdateRepositoryImpl implements PartialUpdateRepository {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateById(Class<?> entityClass, long id, Map<String, Object> changes) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<?> update = createUpdate(builder, entityClass, id, changes);
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private <T> CriteriaUpdate<T> createUpdate(CriteriaBuilder builder, Class<T> entityClass, long id,
+                                               Map<String, Object> changes) {
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+
+        changes.forEach((field, value) -> update.set(root.get(field), value));
+
+        return update.where(builder.equal(root.get("id"), id));
+    }
+}
@@ -0,0 +1,60 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SQL_SELECT_RESERVATION;
+
+@Repository
+public class ReactiveReservationRepository {
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    public Flux<ReservationProjection> findByActive(boolean active) {
+        return databaseClient.sql(SQL_SELECT_RESERVATION + "WHERE r.active = :active ORDER BY r.id")
+                .bind("active", active)
+                .map(ReactiveReservationRepository::toProjection)
+                .all();
+    }
+
+    public Flux<ReservationProjection> findByEndDateBetween(LocalDate from, LocalDate to) {
+        return databaseClient.sql(SQL_SELECT_RESERVATION + "WHERE r.end_date BETWEEN :from AND :to ORDER BY r.id")
+                .bind("from", from)
+                .bind("to", to)
+                .map(ReactiveReservationRepository::toProjection)
+                .all();
+    }
+
+    public Flux<ReservationProjection> findByCustomerId(long customerId) {
+        return databaseClient.sql(SQL_SELECT_RESERVATION + "WHERE r.customer_id = :customerId ORDER BY r.id")
+                .bind("customerId", customerId)
+                .map(ReactiveReservationRepository::toProjection)
+                .all();
+    }
+
+    public Flux<ReservationProjection> findByReservedRoomId(long roomId) {
+        return databaseClient.sql(SQL_SELECT_RESERVATION + "WHERE r.reserved_room_id = :roomId ORDER BY r.id")
+                .bind("roomId", roomId)
+                .map(ReactiveReservationRepository::toProjection)
+                .all();
+    }
+
+    private static ReservationProjection toProjection(Readable row) {
+        return new ReservationProjection(
+                row.get(0, Long.class), row.get(1, String.class),
+                row.get(2, Long.class), row.get(3, String.class), row.get(4, LocalDate.class),
+                row.get(5, String.class), row.get(6, String.class),
+                row.get(7, Long.class), row.get(8, Integer.class), row.get(9, String.class), row.get(10, Double.class),
+                row.get(11, Double.class), row.get(12, Boolean.class), row.get(13, Boolean.class),
+                row.get(14, Double.class), row.get(15, String.class), row.get(16, Integer.class),
+                row.get(17, LocalDate.class), row.get(18, LocalDate.class), row.get(19, Boolean.class)
+        );
+    }
+}
@@ -0,0 +1,30 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.projections.RoomProjection;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SQL_SELECT_ROOM;
+
+@Repository
+public class ReactiveRoomRepository {
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    public Flux<RoomProjection> findAllOrderById() {
+        return databaseClient.sql(SQL_SELECT_ROOM + "ORDER BY r.id")
+                .map(ReactiveRoomRepository::toProjection)
+                .all();
+    }
+
+    private static RoomProjection toProjection(Readable row) {
+        return new RoomProjection(
+                row.get(0, Long.class), row.get(1, Integer.class), row.get(2, String.class), row.get(3, Double.class),
+                row.get(4, Double.class), row.get(5, Boolean.class), row.get(6, Boolean.class)
+        );
+    }
+}
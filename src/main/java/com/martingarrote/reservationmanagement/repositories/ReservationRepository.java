@@ -1,23 +1,80 @@
 package com.martingarrote.reservationmanagement.repositories;
 
 import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.projections.ChangeKey;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.*;
+import static org.hibernate.jpa.HibernateHints.*;
 
 @Repository
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, PartialUpdateRepository {
+
+    @Override
+    @EntityGraph(attributePaths = {"customer", "reservedRoom"})
+    Optional<Reservation> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"customer", "reservedRoom"})
+    List<Reservation> findAll();
+
+    @Query(SELECT_RESERVATION_CHANGE_KEYS)
+    List<ChangeKey> findChangedSince(@Param("since") Timestamp since, @Param("lastId") long lastId,
+                                     @Param("until") Timestamp until, Pageable pageable);
+
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE r.id IN :ids ORDER BY r.updatedAt, r.id")
+    List<ReservationProjection> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_RESERVATION_VERSION)
+    VersionProjection findVersionById(@Param("id") long id);
+
+    @Query(SELECT_RESERVATIONS_VERSION)
+    VersionProjection findVersion();
+
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE r.active = :active")
+    List<ReservationProjection> findByActive(@Param("active") boolean active);
+
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE r.endDate BETWEEN :from AND :to")
+    List<ReservationProjection> findByEndDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE c.id = :customerId")
+    List<ReservationProjection> findByCustomerId(@Param("customerId") Long customerId);
+
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE rr.id = :roomId")
+    List<ReservationProjection> findByReservedRoomId(@Param("roomId") Long roomId);
 
-    @Query("SELECT r FROM Reservation r WHERE r.active = :active " +
-            "OR r.endDate BETWEEN CURRENT_DATE AND :endsIn")
-    List<Reservation> search(@Param("active") Boolean active, @Param("endsIn") LocalDate endsIn);
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE r.id > :lastId ORDER BY r.id")
+    List<ReservationProjection> findPageOrderById(@Param("lastId") long lastId, Pageable pageable);
 
-    List<Reservation> findByCustomerId(Long customerId);
+    @Query(SELECT_RESERVATION_PROJECTION + "ORDER BY r.endDate, r.id")
+    List<ReservationProjection> findFirstPageOrderByEndDate(Pageable pageable);
 
+    @Query(SELECT_RESERVATION_PROJECTION + "WHERE r.endDate >= :lastEndDate " +
+            "AND (r.endDate > :lastEndDate OR r.id > :lastId) ORDER BY r.endDate, r.id")
+    List<ReservationProjection> findPageOrderByEndDate(@Param("lastEndDate") LocalDate lastEndDate,
+                                                       @Param("lastId") long lastId,
+                                                       Pageable pageable);
 
-    List<Reservation> findByReservedRoomId(Long roomId);
-}
\ No newline at end of file
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE_HINT),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_RESERVATION_PROJECTION + "ORDER BY r.id")
+    Stream<ReservationProjection> streamAllOrderById();
+}
@@ -1,14 +1,74 @@
 package com.martingarrote.reservationmanagement.repositories;
 
 import com.martingarrote.reservationmanagement.models.entities.Room;
+import com.martingarrote.reservationmanagement.models.projections.ChangeKey;
+import com.martingarrote.reservationmanagement.models.projections.RoomOccupancyProjection;
+import com.martingarrote.reservationmanagement.models.projections.RoomProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.EXPORT_FETCH_SIZE_HINT;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_ROOM_CHANGE_KEYS;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_ROOM_OCCUPANCY;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_ROOM_PROJECTION;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_ROOM_VERSION;
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SELECT_ROOMS_VERSION;
+import static org.hibernate.jpa.HibernateHints.*;
 
 @Repository
-public interface RoomRepository extends JpaRepository<Room, Long> {
+public interface RoomRepository extends JpaRepository<Room, Long>, PartialUpdateRepository {
+
+    @Query(SELECT_ROOM_PROJECTION + "WHERE r.busy = :busy")
+    List<RoomProjection> findByBusy(@Param("busy") boolean busy);
+
+    @Query(SELECT_ROOM_PROJECTION + "WHERE r.id > :lastId ORDER BY r.id")
+    List<RoomProjection> findPageOrderById(@Param("lastId") long lastId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE_HINT),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_ROOM_PROJECTION + "ORDER BY r.id")
+    Stream<RoomProjection> streamAllOrderById();
+
+    @Query(SELECT_ROOM_OCCUPANCY + "WHERE r.id = :id")
+    Optional<RoomOccupancyProjection> findOccupancyById(@Param("id") long id);
+
+    @Query(SELECT_ROOM_OCCUPANCY + "ORDER BY r.id")
+    List<RoomOccupancyProjection> findAllOccupancy();
+
+    @Query(SELECT_ROOM_CHANGE_KEYS)
+    List<ChangeKey> findChangedSince(@Param("since") Timestamp since, @Param("lastId") long lastId,
+                                     @Param("until") Timestamp until, Pageable pageable);
+
+    @Query(SELECT_ROOM_PROJECTION + "WHERE r.id IN :ids ORDER BY r.updatedAt, r.id")
+    List<RoomProjection> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_ROOM_VERSION)
+    VersionProjection findVersionById(@Param("id") long id);
+
+    @Query(SELECT_ROOMS_VERSION)
+    VersionProjection findVersion();
 
-    List<Room> findByBusy(boolean busy);
+    // Returns 0 both when the room doesn't exist and when a reservation still points to it
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Room r WHERE r.id = :id " +
+            "AND NOT EXISTS (SELECT res.id FROM Reservation res WHERE res.reservedRoom.id = :id)")
+    int deleteByIdIfUnreserved(@Param("id") long id);
 
 }
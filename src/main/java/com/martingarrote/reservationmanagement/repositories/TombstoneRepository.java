@@ -0,0 +1,31 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.entities.Tombstone;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    @Query("SELECT t FROM Tombstone t WHERE t.entity = :entity " +
+            "AND (t.deletedAt > :since OR (t.deletedAt = :since AND t.id > :lastId)) AND t.deletedAt <= :until " +
+            "ORDER BY t.deletedAt, t.id")
+    List<Tombstone> findDeletedSince(@Param("entity") EntityType entity, @Param("since") Timestamp since,
+                                     @Param("lastId") long lastId, @Param("until") Timestamp until,
+                                     Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Tombstone t WHERE t.deletedAt < :before")
+    int deleteByDeletedAtBefore(@Param("before") Timestamp before);
+
+}
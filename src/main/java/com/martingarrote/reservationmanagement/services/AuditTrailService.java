@@ -0,0 +1,273 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.martingarrote.reservationmanagement.models.dtos.AuditRecord;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.AuditDurability;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SQL_INSERT_AUDIT_RECORD;
+import static com.martingarrote.reservationmanagement.utils.AuditUtils.AUDIT_USER;
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
+
+@Service
+public class AuditTrailService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditTrailService.class);
+
+    private static final Set<String> AUDIT_FIELDS = Set.of("createdBy", "createdAt", "updatedBy", "updatedAt");
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${audit.buffer-size}")
+    int bufferSize;
+
+    @Value("${audit.batch-size}")
+    int batchSize;
+
+    @Value("${audit.retry-interval}")
+    Duration retryInterval;
+
+    @Value("${audit.max-retries}")
+    int maxRetries;
+
+    @Value("${audit.durability}")
+    AuditDurability durability;
+
+    // A fixed-size ring, the request threads add at one end and the writer takes whole batches from the other
+    BlockingQueue<AuditRecord> buffer;
+
+    private Counter writtenCounter;
+
+    private Counter droppedCounter;
+
+    private Counter failureCounter;
+
+    private Counter rejectedCounter;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    @PostConstruct
+    void start() {
+        init();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void init() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        Gauge.builder("audit.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+        writtenCounter = Counter.builder("audit.records.written").register(meterRegistry);
+        droppedCounter = Counter.builder("audit.records.dropped").register(meterRegistry);
+        failureCounter = Counter.builder("audit.write.failures").register(meterRegistry);
+        rejectedCounter = Counter.builder("audit.records.rejected").register(meterRegistry);
+    }
+
+    // Before is null when the old state wasn't read (a patch, a delete by statement), after is null for a delete
+    public void record(EntityType entity, long entityId, AuditAction action, Object before, Object after) {
+        ObjectNode changes = diff(before, after);
+
+        if (changes.isEmpty() && action != AuditAction.DELETE) {
+            return;
+        }
+
+        AuditRecord record = new AuditRecord(entity, entityId, action, changes.toString(), AUDIT_USER,
+                new Timestamp(System.currentTimeMillis()));
+
+        // Written with the change itself, the record commits or rolls back with it
+        if (durability == AuditDurability.TRANSACTIONAL) {
+            write(List.of(record));
+            return;
+        }
+
+        // Rolled back changes leave no record, and the transaction is never held up by the buffer
+        afterCommit(() -> enqueue(record));
+    }
+
+    // Only the fields that changed, as {"field": {"from": ..., "to": ...}}, a side that wasn't known is left out
+    ObjectNode diff(Object before, Object after) {
+        JsonNode from = objectMapper.valueToTree(before);
+        JsonNode to = objectMapper.valueToTree(after);
+        ObjectNode changes = objectMapper.createObjectNode();
+
+        Set<String> fields = new LinkedHashSet<>();
+        from.fieldNames().forEachRemaining(fields::add);
+        to.fieldNames().forEachRemaining(fields::add);
+        fields.removeAll(AUDIT_FIELDS);
+
+        for (String field : fields) {
+            JsonNode oldValue = from.get(field);
+            JsonNode newValue = to.get(field);
+
+            if (Objects.equals(oldValue, newValue)) {
+                continue;
+            }
+
+            ObjectNode change = changes.putObject(field);
+
+            if (from.isObject()) {
+                change.set("from", oldValue == null ? NullNode.getInstance() : oldValue);
+            }
+            if (to.isObject()) {
+                change.set("to", newValue == null ? NullNode.getInstance() : newValue);
+            }
+        }
+
+        return changes;
+    }
+
+    void enqueue(AuditRecord record) {
+        if (!buffer.offer(record)) {
+            droppedCounter.increment();
+        }
+    }
+
+    // Takes whatever has piled up since the last write, so the batches grow with the load
+    boolean writeNext(List<AuditRecord> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            AuditRecord first = buffer.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+            if (first == null) {
+                return false;
+            }
+
+            batch.add(first);
+            buffer.drainTo(batch, batchSize - 1);
+        }
+
+        write(batch);
+        batch.clear();
+        return true;
+    }
+
+    private void writeLoop() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        int failures = 0;
+
+        while (running) {
+            try {
+                writeNext(batch);
+                failures = 0;
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                // The batch is kept and written again, new records wait in the buffer meanwhile
+                failureCounter.increment();
+
+                // A batch that keeps failing may hold a row the database will never take, so it is split up
+                if (++failures >= maxRetries) {
+                    failures = 0;
+                    writeEach(batch);
+                }
+
+                if (!batch.isEmpty()) {
+                    pause();
+                }
+            }
+        }
+
+        buffer.drainTo(batch);
+
+        for (int start = 0; start < batch.size(); start += batchSize) {
+            List<AuditRecord> chunk = new ArrayList<>(batch.subList(start, Math.min(start + batchSize, batch.size())));
+
+            try {
+                write(chunk);
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                writeEach(chunk);
+            }
+        }
+    }
+
+    // Writes the records one at a time, a rejected one is logged and left out, any other error keeps the rest
+    void writeEach(List<AuditRecord> batch) {
+        Iterator<AuditRecord> records = batch.iterator();
+
+        while (records.hasNext()) {
+            AuditRecord record = records.next();
+
+            try {
+                write(List.of(record));
+            } catch (DataIntegrityViolationException e) {
+                LOGGER.error("Audit record rejected by the database, left out: {}", record, e);
+                rejectedCounter.increment();
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                return;
+            }
+
+            records.remove();
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        jdbcTemplate.batchUpdate(SQL_INSERT_AUDIT_RECORD, batch.stream()
+                .map(record -> new Object[]{
+                        record.entity().name(), record.entityId(), record.action().name(),
+                        record.changes(), record.changedBy(), record.changedAt()
+                })
+                .toList());
+
+        writtenCounter.increment(batch.size());
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The writer isn't interrupted mid-batch, it sees the flag within a poll and flushes what is left
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+}
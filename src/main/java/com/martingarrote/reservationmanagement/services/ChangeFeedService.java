@@ -0,0 +1,115 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
+import com.martingarrote.reservationmanagement.models.entities.Tombstone;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.projections.ChangeKey;
+import com.martingarrote.reservationmanagement.repositories.TombstoneRepository;
+import com.martingarrote.reservationmanagement.utils.WatermarkUtils.Watermark;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
+import static com.martingarrote.reservationmanagement.utils.WatermarkUtils.decode;
+import static com.martingarrote.reservationmanagement.utils.WatermarkUtils.encode;
+
+@Service
+public class ChangeFeedService {
+
+    @FunctionalInterface
+    public interface ChangedKeysQuery {
+        List<ChangeKey> find(Timestamp since, long lastId, Timestamp until, Pageable pageable);
+    }
+
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Value("${pagination.default-size}")
+    int defaultPageSize;
+
+    @Value("${pagination.max-size}")
+    int maxPageSize;
+
+    @Value("${sync.commit-lag}")
+    Duration commitLag;
+
+    @Value("${sync.tombstone-retention}")
+    Duration tombstoneRetention;
+
+    public void recordDeletion(EntityType entity, long id) {
+        tombstoneRepository.save(new Tombstone(entity, id, new Timestamp(System.currentTimeMillis())));
+    }
+
+    public <T> ChangesDTO<T> findChanges(EntityType entity, String since, Integer size,
+                                         ChangedKeysQuery changedKeys, Function<List<Long>, List<T>> load) throws Exception {
+        int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+        long now = System.currentTimeMillis();
+
+        // Rows stamped within the commit lag may belong to transactions still open, they are left for the next call
+        Timestamp until = new Timestamp(now - commitLag.toMillis());
+
+        // The first sync lists every row and skips the tombstones, there is nothing to delete on the client yet
+        Watermark watermark = since == null
+                ? new Watermark(new Timestamp(0), 0, until, Long.MAX_VALUE)
+                : decode(since);
+
+        if (watermark.deletedAt().getTime() < now - tombstoneRetention.toMillis()) {
+            throw new Exception(WATERMARK_EXPIRED);
+        }
+
+        List<ChangeKey> changed = changedKeys.find(watermark.changedAt(), watermark.lastChangedId(),
+                until, lookAhead(pageSize));
+        List<Tombstone> deleted = tombstoneRepository.findDeletedSince(entity, watermark.deletedAt(),
+                watermark.lastDeletedId(), until, lookAhead(pageSize));
+
+        boolean moreChanged = changed.size() > pageSize;
+        boolean moreDeleted = deleted.size() > pageSize;
+        changed = trim(changed, pageSize);
+        deleted = trim(deleted, pageSize);
+
+        Timestamp changedAt = until;
+        long lastChangedId = Long.MAX_VALUE;
+
+        if (moreChanged) {
+            changedAt = changed.get(pageSize - 1).changedAt();
+            lastChangedId = changed.get(pageSize - 1).id();
+        } else if (watermark.changedAt().after(until)) {
+            changedAt = watermark.changedAt();
+            lastChangedId = watermark.lastChangedId();
+        }
+
+        Timestamp deletedAt = until;
+        long lastDeletedId = Long.MAX_VALUE;
+
+        if (moreDeleted) {
+            deletedAt = deleted.get(pageSize - 1).getDeletedAt();
+            lastDeletedId = deleted.get(pageSize - 1).getId();
+        } else if (watermark.deletedAt().after(until)) {
+            deletedAt = watermark.deletedAt();
+            lastDeletedId = watermark.lastDeletedId();
+        }
+
+        List<Long> changedIds = changed.stream().map(ChangeKey::id).toList();
+        List<T> rows = changedIds.isEmpty() ? List.of() : load.apply(changedIds);
+        List<Long> deletedIds = deleted.stream().map(Tombstone::getEntityId).toList();
+        String next = encode(new Watermark(changedAt, lastChangedId, deletedAt, lastDeletedId));
+
+        return new ChangesDTO<>(rows, deletedIds, next, moreChanged || moreDeleted);
+    }
+
+    // Watermarks older than the retention are refused before their tombstones could be missing
+    @Scheduled(cron = "0 30 0 * * *")
+    public void purgeExpiredTombstones() {
+        tombstoneRepository.deleteByDeletedAtBefore(
+                new Timestamp(System.currentTimeMillis() - tombstoneRetention.toMillis()));
+    }
+}
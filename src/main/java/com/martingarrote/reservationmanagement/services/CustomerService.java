@@ -1,74 +1,172 @@
 package com.martingarrote.reservationmanagement.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
 import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.projections.CustomerProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
 import com.martingarrote.reservationmanagement.repositories.CustomerRepository;
-import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
 import com.martingarrote.reservationmanagement.utils.AuditUtils;
+import com.martingarrote.reservationmanagement.utils.CursorUtils.Cursor;
+import com.martingarrote.reservationmanagement.utils.ExportWriter;
 import com.martingarrote.reservationmanagement.utils.LocalDateUtils;
-import org.modelmapper.ModelMapper;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.CustomerExceptions.AGE_SHOULD_BIGGER_THAN_EIGHTEEN;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.*;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
+import static com.martingarrote.reservationmanagement.utils.MergePatchUtils.toChanges;
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
 
 @Service
 public class CustomerService {
 
+    private static final String[] CSV_HEADER = {
+            "id", "name", "dateOfBirth", "cpf", "email"
+    };
+
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "name", "dateOfBirth", "cpf", "email"
+    );
+
     @Autowired
     CustomerRepository customerRepository;
 
     @Autowired
-    ModelMapper mapper;
+    ChangeFeedService changeFeedService;
+
+    @Autowired
+    AuditTrailService auditTrailService;
+
+    @Autowired
+    MapperInterface<Customer, CustomerDTO> mapper;
 
     @Autowired
-    ReservationRepository reservationRepository;
+    ReservationService reservationService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Value("${pagination.default-size}")
+    int defaultPageSize;
 
-    public List<CustomerDTO> listAll() {
-        List<CustomerDTO> customersDTO = customerRepository.findAll().stream()
-                .map(customer -> mapper.map(customer, CustomerDTO.class)).toList();
+    @Value("${pagination.max-size}")
+    int maxPageSize;
 
-        return customersDTO;
+    @Transactional(readOnly = true)
+    public PageDTO<CustomerDTO> listAll(String cursor, Integer size) throws Exception {
+        int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+        long lastId = cursor == null ? 0 : decode(cursor, SORT_BY_ID).lastId();
+
+        List<CustomerProjection> customers = customerRepository.findPageOrderById(lastId, lookAhead(pageSize));
+
+        List<CustomerDTO> customersDTO = trim(customers, pageSize).stream()
+                .map(CustomerProjection::toDTO).toList();
+        String next = nextCursor(customers, pageSize, last -> new Cursor(SORT_BY_ID, last.id(), null));
+
+        return new PageDTO<>(customersDTO, next);
     }
 
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, OutputStream outputStream) throws IOException {
+        ExportWriter<CustomerDTO> writer = new ExportWriter<>(format, objectMapper, outputStream, CSV_HEADER,
+                customer -> new Object[]{
+                        customer.getId(), customer.getName(), customer.getDateOfBirth(),
+                        customer.getCpf(), customer.getEmail()
+                });
+
+        try (Stream<CustomerProjection> customers = customerRepository.streamAllOrderById()) {
+            Iterator<CustomerProjection> iterator = customers.iterator();
+
+            while (iterator.hasNext()) {
+                writer.write(iterator.next().toDTO());
+            }
+        }
+
+        writer.finish();
+    }
+
+    @Transactional(readOnly = true)
+    public VersionProjection findVersionById(Long id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public VersionProjection findVersion() {
+        return customerRepository.findVersion();
+    }
+
+    @Transactional(readOnly = true)
+    public ChangesDTO<CustomerDTO> findChanges(String since, Integer size) throws Exception {
+        return changeFeedService.findChanges(EntityType.CUSTOMER, since, size, customerRepository::findChangedSince,
+                ids -> customerRepository.findByIdIn(ids).stream().map(CustomerProjection::toDTO).toList());
+    }
+
+    // Stays on the primary: the entity goes into the second-level cache, which a lagging replica must not fill
+    @Transactional
     public CustomerDTO findById(Long id) {
         Optional<Customer> optional = customerRepository.findById(id);
         CustomerDTO customerDTO = null;
 
         if (optional.isPresent()) {
-            customerDTO = mapper.map(optional.get(), CustomerDTO.class);
+            customerDTO = mapper.toDTO(optional.get());
         }
 
         return customerDTO;
     }
 
+    @Transactional
     public boolean deleteById(Long id) throws Exception {
-        if (!customerRepository.existsById(id)) {
-            return false;
+        // The reservation check and the delete run as one statement, so they can't be interleaved
+        if (customerRepository.deleteByIdIfUnreserved(id) == 1) {
+            changeFeedService.recordDeletion(EntityType.CUSTOMER, id);
+            auditTrailService.record(EntityType.CUSTOMER, id, AuditAction.DELETE, null, null);
+            return true;
         }
 
-        if (!reservationRepository.findByCustomerId(id).isEmpty()) {
-            throw new Exception(UNABLE_TO_DELETE);
+        if (!customerRepository.existsById(id)) {
+            return false;
         }
 
-        customerRepository.deleteById(id);
-        return true;
+        throw new Exception(UNABLE_TO_DELETE);
     }
 
     public Long create(CustomerDTO customerDTO) throws Exception {
         return save(customerDTO);
     }
 
+    @Transactional
     public Long update(CustomerDTO customerDTO, Long id) throws Exception {
         var optional = customerRepository.findById(id);
         AuditUtils auditUtils = new AuditUtils();
 
         if (optional.isPresent()) {
             Customer customer = optional.get();
+            CustomerDTO before = mapper.toDTO(customer);
 
             if (!customerDTO.getName().isEmpty()) {
                 customer.setName(customerDTO.getName());
@@ -86,6 +184,9 @@ public class CustomerService {
             auditUtils.AuditDefineFields(customer);
 
             customerRepository.save(customer);
+            auditTrailService.record(EntityType.CUSTOMER, customer.getId(), AuditAction.UPDATE,
+                    before, mapper.toDTO(customer));
+            afterCommit(reservationService::evictSearchCache);
             return customer.getId();
 
         } else {
@@ -96,6 +197,29 @@ public class CustomerService {
         }
     }
 
+    public Long patch(JsonNode patch, Long id) throws Exception {
+        AuditUtils auditUtils = new AuditUtils();
+
+        Map<String, Object> changes = toChanges(patch, CustomerDTO.class, PATCHABLE_FIELDS, objectMapper, validator);
+
+        if (changes.containsKey("dateOfBirth")
+                && LocalDateUtils.getAgeByDateOfBirth((LocalDate) changes.get("dateOfBirth")) < 18) {
+            throw new Exception(AGE_SHOULD_BIGGER_THAN_EIGHTEEN);
+        }
+
+        auditUtils.AuditDefineUpdateFields(changes);
+
+        // No read before the write, the affected row count tells whether the customer exists
+        if (customerRepository.updateById(Customer.class, id, changes) == 0) {
+            return null;
+        }
+
+        auditTrailService.record(EntityType.CUSTOMER, id, AuditAction.PATCH, null, changes);
+
+        afterCommit(reservationService::evictSearchCache);
+        return id;
+    }
+
     public Long save(CustomerDTO customerDTO) throws Exception {
 
         AuditUtils auditUtils = new AuditUtils();
@@ -105,11 +229,13 @@ public class CustomerService {
         }
 
         try {
-            Customer customer = mapper.map(customerDTO, Customer.class);
+            Customer customer = mapper.toEntity(customerDTO);
 
             auditUtils.AuditDefineFields(customer);
 
             Customer created = customerRepository.save(customer);
+            auditTrailService.record(EntityType.CUSTOMER, created.getId(), AuditAction.CREATE,
+                    null, mapper.toDTO(created));
 
             return created.getId();
         } catch (Exception e) {
@@ -0,0 +1,21 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.interfaces.OutboxSink;
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+// Stands in for a broker while none is configured
+@Service
+@ConditionalOnProperty(name = "outbox.logging-sink.enabled", havingValue = "true")
+public class LoggingOutboxSink implements OutboxSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingOutboxSink.class);
+
+    @Override
+    public void deliver(OutboxMessage message) {
+        LOGGER.info("{} {} {} {}", message.aggregateType(), message.aggregateId(), message.type(), message.payload());
+    }
+}
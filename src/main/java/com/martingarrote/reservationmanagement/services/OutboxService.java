@@ -0,0 +1,194 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.interfaces.OutboxSink;
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+import com.martingarrote.reservationmanagement.models.entities.OutboxEvent;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import com.martingarrote.reservationmanagement.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
+
+@Service
+public class OutboxService {
+
+    private static final int LAST_ERROR_MAX_LENGTH = 1000;
+
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+
+    @Autowired(required = false)
+    List<OutboxSink> sinks = List.of();
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    Executor executor;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${outbox.batch-size}")
+    int batchSize;
+
+    @Value("${outbox.retry.initial-backoff}")
+    Duration initialBackoff;
+
+    @Value("${outbox.retry.max-backoff}")
+    Duration maxBackoff;
+
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    private Timer lagTimer;
+
+    private Counter failureCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        lagTimer = Timer.builder("outbox.dispatch.lag").register(meterRegistry);
+        failureCounter = Counter.builder("outbox.dispatch.failures").register(meterRegistry);
+        Gauge.builder("outbox.pending.age", this, OutboxService::oldestPendingAgeSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // Joins the caller's transaction, the event only exists if the change it describes was committed
+    public void record(EntityType aggregateType, long aggregateId, OutboxEventType type, Object payload) {
+        String json = objectMapper.valueToTree(payload).toString();
+
+        outboxEventRepository.save(new OutboxEvent(aggregateType, aggregateId, type, json,
+                new Timestamp(System.currentTimeMillis())));
+        afterCommit(this::requestDispatch);
+    }
+
+    // Commits wake the dispatcher right away, the sweep picks up retries and anything a busy executor turned down
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.SECONDS)
+    public void dispatchPending() {
+        requestDispatch();
+    }
+
+    // Without a sink the events are kept, they go out once one is configured
+    void requestDispatch() {
+        if (sinks.isEmpty()) {
+            return;
+        }
+
+        dispatchRequested.set(true);
+
+        if (dispatching.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                dispatching.set(false);
+            }
+        }
+    }
+
+    // A single drain runs at a time, requests made while it runs only make it go around once more
+    void drain() {
+        try {
+            while (dispatchRequested.getAndSet(false)) {
+                int claimed;
+
+                do {
+                    claimed = dispatchBatch();
+                } while (claimed > 0);
+            }
+        } finally {
+            dispatching.set(false);
+        }
+
+        if (dispatchRequested.get()) {
+            requestDispatch();
+        }
+    }
+
+    // Claiming, delivering and deleting share one transaction, the claimed rows stay locked until the batch is done
+    int dispatchBatch() {
+        Integer claimed = transactionTemplate.execute(status -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<OutboxEvent> events = outboxEventRepository.claimBatch(now, PageRequest.of(0, batchSize));
+            List<Long> delivered = new ArrayList<>();
+
+            for (OutboxEvent event : events) {
+                if (deliver(event, now)) {
+                    delivered.add(event.getId());
+                }
+            }
+
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(delivered);
+            }
+
+            return events.size();
+        });
+
+        return claimed == null ? 0 : claimed;
+    }
+
+    // A failed event stays at the head of its aggregate, later events of the same reservation wait behind it
+    private boolean deliver(OutboxEvent event, Timestamp now) {
+        OutboxMessage message = event.toMessage();
+
+        try {
+            for (OutboxSink sink : sinks) {
+                sink.deliver(message);
+            }
+        } catch (Exception e) {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(new Timestamp(now.getTime() + backoff(event.getAttempts()).toMillis()));
+            event.setLastError(truncate(String.valueOf(e.getMessage())));
+            failureCounter.increment();
+            return false;
+        }
+
+        lagTimer.record(System.currentTimeMillis() - message.createdAt().getTime(), TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private double oldestPendingAgeSeconds() {
+        Timestamp oldest = outboxEventRepository.findOldestCreatedAt();
+
+        return oldest == null ? 0 : (System.currentTimeMillis() - oldest.getTime()) / 1000d;
+    }
+
+    private String truncate(String message) {
+        return message.length() > LAST_ERROR_MAX_LENGTH ? message.substring(0, LAST_ERROR_MAX_LENGTH) : message;
+    }
+}
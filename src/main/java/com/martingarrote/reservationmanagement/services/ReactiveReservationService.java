@@ -0,0 +1,41 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import com.martingarrote.reservationmanagement.repositories.ReactiveReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+@Service
+public class ReactiveReservationService {
+
+    @Autowired
+    ReactiveReservationRepository reactiveReservationRepository;
+
+    // Both filters come ordered by id, merging them keeps that order and puts a reservation
+    // matched by both side by side, so duplicates drop without holding the whole result
+    public Flux<ReservationDTO> search(Boolean active, Integer endsIn) {
+        LocalDate today = LocalDate.now();
+
+        Flux<ReservationProjection> byActive = active == null ? Flux.empty()
+                : reactiveReservationRepository.findByActive(active);
+        Flux<ReservationProjection> byEndDate = endsIn == null ? Flux.empty()
+                : reactiveReservationRepository.findByEndDateBetween(today, today.plusMonths(endsIn));
+
+        return Flux.mergeComparing(Comparator.comparingLong(ReservationProjection::id), byActive, byEndDate)
+                .distinctUntilChanged(ReservationProjection::id)
+                .map(ReservationProjection::toDTO);
+    }
+
+    public Flux<ReservationDTO> findByCustomer(Long id) {
+        return reactiveReservationRepository.findByCustomerId(id).map(ReservationProjection::toDTO);
+    }
+
+    public Flux<ReservationDTO> findByRoom(Long id) {
+        return reactiveReservationRepository.findByReservedRoomId(id).map(ReservationProjection::toDTO);
+    }
+}
@@ -0,0 +1,19 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.projections.RoomProjection;
+import com.martingarrote.reservationmanagement.repositories.ReactiveRoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+@Service
+public class ReactiveRoomService {
+
+    @Autowired
+    ReactiveRoomRepository reactiveRoomRepository;
+
+    public Flux<RoomDTO> findAll() {
+        return reactiveRoomRepository.findAllOrderById().map(RoomProjection::toDTO);
+    }
+}
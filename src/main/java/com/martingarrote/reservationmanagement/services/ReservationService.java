@@ -1,113 +1,305 @@
 package com.martingarrote.reservationmanagement.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
 import com.martingarrote.reservationmanagement.models.entities.Customer;
 import com.martingarrote.reservationmanagement.models.entities.Reservation;
 import com.martingarrote.reservationmanagement.models.entities.Room;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
 import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
+import com.martingarrote.reservationmanagement.repositories.RoomRepository;
 import com.martingarrote.reservationmanagement.utils.AuditUtils;
+import com.martingarrote.reservationmanagement.utils.CursorUtils.Cursor;
+import com.martingarrote.reservationmanagement.utils.ExportWriter;
 import com.martingarrote.reservationmanagement.utils.MathUtils;
-import org.modelmapper.ModelMapper;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PaginationExceptions.INVALID_SORT;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.ReservationExceptions.*;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.RoomExceptions.ROOM_IS_BUSY;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.UPDATE_ERROR;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
 import static com.martingarrote.reservationmanagement.utils.LocalDateUtils.getFutureDateBasedInMonthsQuantity;
+import static com.martingarrote.reservationmanagement.utils.MergePatchUtils.toChanges;
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
 
 @Service
 public class ReservationService {
 
+    private static final String[] CSV_HEADER = {
+            "id", "code", "customerId", "customerName", "reservedRoomId", "reservedRoomNumber",
+            "reservationPrice", "description", "duration", "startDate", "endDate", "active"
+    };
+
+    // The price and the dates follow from the duration and the room, a change to them goes through update()
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "code", "description", "active"
+    );
+
+    private static final int SEARCH_CACHE_MAXIMUM_SIZE = 1000;
+
+    // Writes bump the generation, so a load that started before a write can't be served after it
+    private final AtomicLong searchGeneration = new AtomicLong();
+
+    // LoadingCache.get loads each key once, concurrent misses on the same key wait for that load
+    private final LoadingCache<SearchKey, List<ReservationDTO>> searchCache = Caffeine.newBuilder()
+            .maximumSize(SEARCH_CACHE_MAXIMUM_SIZE)
+            .build(this::loadSearch);
+
     @Autowired
     ReservationRepository reservationRepository;
 
     @Autowired
-    ModelMapper mapper;
+    RoomRepository roomRepository;
+
+    @Autowired
+    ChangeFeedService changeFeedService;
+
+    @Autowired
+    RoomOccupancyService roomOccupancyService;
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    AuditTrailService auditTrailService;
+
+    @Autowired
+    MapperInterface<Reservation, ReservationDTO> mapper;
+
+    @Autowired
+    MapperInterface<Customer, CustomerDTO> customerMapper;
+
+    @Autowired
+    MapperInterface<Room, RoomDTO> roomMapper;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Value("${pagination.default-size}")
+    int defaultPageSize;
+
+    @Value("${pagination.max-size}")
+    int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public PageDTO<ReservationDTO> listAll(String cursor, Integer size, String sort) throws Exception {
+        int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+        List<ReservationProjection> reservations;
+
+        if (SORT_BY_ID.equals(sort)) {
+            long lastId = cursor == null ? 0 : decode(cursor, SORT_BY_ID).lastId();
+            reservations = reservationRepository.findPageOrderById(lastId, lookAhead(pageSize));
+        } else if (SORT_BY_END_DATE.equals(sort)) {
+            if (cursor == null) {
+                reservations = reservationRepository.findFirstPageOrderByEndDate(lookAhead(pageSize));
+            } else {
+                Cursor decoded = decode(cursor, SORT_BY_END_DATE);
+                reservations = reservationRepository.findPageOrderByEndDate(
+                        decoded.lastEndDate(), decoded.lastId(), lookAhead(pageSize));
+            }
+        } else {
+            throw new Exception(INVALID_SORT);
+        }
+
+        List<ReservationDTO> reservationsDTO = trim(reservations, pageSize).stream()
+                .map(ReservationProjection::toDTO).toList();
+        String next = nextCursor(reservations, pageSize, last -> new Cursor(sort, last.id(),
+                SORT_BY_END_DATE.equals(sort) ? last.endDate() : null));
+
+        return new PageDTO<>(reservationsDTO, next);
+    }
+
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, OutputStream outputStream) throws IOException {
+        ExportWriter<ReservationDTO> writer = new ExportWriter<>(format, objectMapper, outputStream, CSV_HEADER,
+                reservation -> new Object[]{
+                        reservation.getId(), reservation.getCode(),
+                        reservation.getCustomer().getId(), reservation.getCustomer().getName(),
+                        reservation.getReservedRoom().getId(), reservation.getReservedRoom().getNumber(),
+                        reservation.getReservationPrice(), reservation.getDescription(), reservation.getDuration(),
+                        reservation.getStartDate(), reservation.getEndDate(), reservation.getActive()
+                });
+
+        try (Stream<ReservationProjection> reservations = reservationRepository.streamAllOrderById()) {
+            Iterator<ReservationProjection> iterator = reservations.iterator();
+
+            while (iterator.hasNext()) {
+                writer.write(iterator.next().toDTO());
+            }
+        }
+
+        writer.finish();
+    }
+
+    @Transactional(readOnly = true)
+    public VersionProjection findVersionById(Long id) {
+        return reservationRepository.findVersionById(id);
+    }
 
-    public List<ReservationDTO> listAll() {
-        List<ReservationDTO> reservationsDTO = reservationRepository.findAll().stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class)).toList();
+    @Transactional(readOnly = true)
+    public VersionProjection findVersion() {
+        return reservationRepository.findVersion();
+    }
 
-        return reservationsDTO;
+    @Transactional(readOnly = true)
+    public ChangesDTO<ReservationDTO> findChanges(String since, Integer size) throws Exception {
+        return changeFeedService.findChanges(EntityType.RESERVATION, since, size, reservationRepository::findChangedSince,
+                ids -> reservationRepository.findByIdIn(ids).stream().map(ReservationProjection::toDTO).toList());
     }
 
+    // Stays on the primary: the entity goes into the second-level cache, which a lagging replica must not fill
+    @Transactional
     public ReservationDTO findById(Long id) {
         Optional<Reservation> optional = reservationRepository.findById(id);
         ReservationDTO reservationDTO = null;
 
         if (optional.isPresent()) {
-            reservationDTO = mapper.map(optional.get(), ReservationDTO.class);
+            reservationDTO = mapper.toDTO(optional.get());
         }
 
         return reservationDTO;
     }
 
+    // Not read-only: the results stay cached until the next write, stale rows from a replica would stay as long
     public List<ReservationDTO> search(Boolean active, Integer endsIn) {
-        LocalDate endsInDate = getFutureDateBasedInMonthsQuantity(endsIn);
+        // Today is part of the key because the search window moves with CURRENT_DATE
+        return searchCache.get(new SearchKey(active, endsIn, LocalDate.now(), searchGeneration.get()));
+    }
 
-        List<ReservationDTO> reservationDTOS = reservationRepository
-                .search(active, endsInDate)
+    public void evictSearchCache() {
+        searchGeneration.incrementAndGet();
+        searchCache.invalidateAll();
+    }
+
+    @Scheduled(cron = "0 0 0 * * *")
+    public void evictSearchCacheAtMidnight() {
+        evictSearchCache();
+    }
+
+    // Each filter runs as its own query, so both can use an index; an OR across the two columns can't
+    private List<ReservationDTO> loadSearch(SearchKey key) {
+        Map<Long, ReservationProjection> reservations = new TreeMap<>();
+
+        if (key.active() != null) {
+            reservationRepository.findByActive(key.active())
+                    .forEach(reservation -> reservations.put(reservation.id(), reservation));
+        }
+
+        if (key.endsIn() != null) {
+            LocalDate endsInDate = key.today().plusMonths(key.endsIn());
+
+            reservationRepository.findByEndDateBetween(key.today(), endsInDate)
+                    .forEach(reservation -> reservations.putIfAbsent(reservation.id(), reservation));
+        }
+
+        List<ReservationDTO> reservationDTOS = reservations.values()
                 .stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class))
+                .map(ReservationProjection::toDTO)
                 .toList();
 
         return reservationDTOS;
     }
 
+    @Transactional(readOnly = true)
     public List<ReservationDTO> findByCustomer(Long id) {
         List<ReservationDTO> reservationDTOS = reservationRepository
                 .findByCustomerId(id)
                 .stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class))
+                .map(ReservationProjection::toDTO)
                 .toList();
 
         return reservationDTOS;
     }
 
+    @Transactional(readOnly = true)
     public List<ReservationDTO> findByRoom(Long id) {
         List<ReservationDTO> reservationDTOS = reservationRepository
                 .findByReservedRoomId(id)
                 .stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class))
+                .map(ReservationProjection::toDTO)
                 .toList();
 
         return reservationDTOS;
     }
 
+    @Transactional
     public boolean deleteById(Long id) {
         if (reservationRepository.existsById(id)) {
             reservationRepository.deleteById(id);
+            changeFeedService.recordDeletion(EntityType.RESERVATION, id);
+            outboxService.record(EntityType.RESERVATION, id, OutboxEventType.DELETED, Map.of("id", id));
+            auditTrailService.record(EntityType.RESERVATION, id, AuditAction.DELETE, null, null);
+            afterCommit(this::evictSearchCache);
             return true;
         } else {
             return false;
         }
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public Long create(ReservationDTO reservationDTO) throws Exception {
         return save(reservationDTO);
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public Long update(ReservationDTO reservationDTO, Long id) throws Exception {
         var optional = reservationRepository.findById(id);
         AuditUtils auditUtils = new AuditUtils();
 
         if (optional.isPresent()) {
             Reservation reservation = optional.get();
+            ReservationDTO before = mapper.toDTO(reservation);
 
             if (!reservationDTO.getCode().isEmpty()) {
                 reservation.setCode(reservationDTO.getCode());
             }
             if (!reservationDTO.getCustomer().toString().isEmpty()) {
-                Customer customer = mapper.map(reservationDTO.getCustomer(), Customer.class);
+                Customer customer = customerMapper.toEntity(reservationDTO.getCustomer());
                 reservation.setCustomer(customer);
             }
             if (!reservationDTO.getReservedRoom().toString().isEmpty()) {
-                Room room = mapper.map(reservationDTO.getReservedRoom(), Room.class);
+                Room room = roomMapper.toEntity(reservationDTO.getReservedRoom());
+
+                // The room is merged along with the reservation, without its own stamp updatedAt would be cleared
+                if (room != null) {
+                    auditUtils.AuditDefineFields(room);
+                }
+
                 reservation.setReservedRoom(room);
             }
             if (!reservationDTO.getReservationPrice().toString().isEmpty()) {
@@ -132,6 +324,16 @@ public class ReservationService {
             auditUtils.AuditDefineFields(reservation);
 
             reservationRepository.save(reservation);
+
+            ReservationDTO updated = mapper.toDTO(reservation);
+            outboxService.record(EntityType.RESERVATION, reservation.getId(), OutboxEventType.UPDATED, updated);
+            auditTrailService.record(EntityType.RESERVATION, reservation.getId(), AuditAction.UPDATE, before, updated);
+            afterCommit(this::evictSearchCache);
+
+            if (reservation.getReservedRoom() != null) {
+                roomOccupancyService.publish(reservation.getReservedRoom().getId());
+            }
+
             return reservation.getId();
 
         } else {
@@ -142,6 +344,27 @@ public class ReservationService {
         }
     }
 
+    @Transactional(rollbackFor = Exception.class)
+    public Long patch(JsonNode patch, Long id) throws Exception {
+        AuditUtils auditUtils = new AuditUtils();
+
+        Map<String, Object> changes = toChanges(patch, ReservationDTO.class, PATCHABLE_FIELDS, objectMapper, validator);
+
+        auditUtils.AuditDefineUpdateFields(changes);
+
+        // No read before the write, the affected row count tells whether the reservation exists
+        if (reservationRepository.updateById(Reservation.class, id, changes) == 0) {
+            return null;
+        }
+
+        // Only the patched fields are sent, the patch itself never reads the reservation
+        outboxService.record(EntityType.RESERVATION, id, OutboxEventType.PATCHED, changes);
+        auditTrailService.record(EntityType.RESERVATION, id, AuditAction.PATCH, null, changes);
+        afterCommit(this::evictSearchCache);
+        return id;
+    }
+
+    @Transactional(rollbackFor = Exception.class)
     public Long save(ReservationDTO reservationDTO) throws Exception {
 
         AuditUtils auditUtils = new AuditUtils();
@@ -176,15 +399,35 @@ public class ReservationService {
         }
 
         try {
-            Reservation reservation = mapper.map(reservationDTO, Reservation.class);
+            Reservation reservation = mapper.toEntity(reservationDTO);
 
             auditUtils.AuditDefineFields(reservation);
 
             Reservation created = reservationRepository.save(reservation);
 
+            // A new reservation is persisted, not merged, so the cascade never writes the room's busy flag
+            if (created.getReservedRoom() != null) {
+                Map<String, Object> roomChanges = new HashMap<>(Map.of("busy", true));
+                auditUtils.AuditDefineUpdateFields(roomChanges);
+
+                roomRepository.updateById(Room.class, created.getReservedRoom().getId(), roomChanges);
+                auditTrailService.record(EntityType.ROOM, created.getReservedRoom().getId(), AuditAction.PATCH,
+                        null, roomChanges);
+                roomOccupancyService.publish(created.getReservedRoom().getId());
+            }
+
+            ReservationDTO createdDTO = mapper.toDTO(created);
+            outboxService.record(EntityType.RESERVATION, created.getId(), OutboxEventType.CREATED, createdDTO);
+            auditTrailService.record(EntityType.RESERVATION, created.getId(), AuditAction.CREATE, null, createdDTO);
+
+            afterCommit(this::evictSearchCache);
+
             return created.getId();
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
+
+    private record SearchKey(Boolean active, Integer endsIn, LocalDate today, long generation) {
+    }
 }
@@ -0,0 +1,354 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.RoomOccupancyDTO;
+import com.martingarrote.reservationmanagement.models.projections.RoomOccupancyProjection;
+import com.martingarrote.reservationmanagement.repositories.RoomRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
+
+@Service
+public class RoomOccupancyService {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String OCCUPANCY_EVENT = "occupancy";
+    static final String DELETED_EVENT = "deleted";
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    Executor executor;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${occupancy.buffer-size}")
+    int bufferSize;
+
+    @Value("${occupancy.sender-threads}")
+    int senderThreads;
+
+    @Value("${occupancy.sender-queue-capacity}")
+    int senderQueueCapacity;
+
+    @Value("${occupancy.send-timeout}")
+    Duration sendTimeout;
+
+    // Sends block while the client's TCP window is full, so they get their own bounded pool: a slow client can
+    // hold one of these threads, never the application executor the exports and the broadcasts run on
+    Executor senders;
+
+    private ThreadPoolTaskExecutor senderPool;
+
+    final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Broadcasts run concurrently, so a state read before a newer one was sent must not overwrite it
+    private final Map<Long, Long> lastSentUpdatedAt = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("rooms.occupancy.subscribers", subscribers, Set::size).register(meterRegistry);
+
+        senderPool = new ThreadPoolTaskExecutor();
+        senderPool.setCorePoolSize(senderThreads);
+        senderPool.setMaxPoolSize(senderThreads);
+        senderPool.setQueueCapacity(senderQueueCapacity);
+        senderPool.setThreadNamePrefix("occupancy-sender-");
+        senderPool.initialize();
+        senders = senderPool;
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter());
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+
+        // Registered before the snapshot is read, so a change committed in between is queued instead of lost
+        subscribers.add(subscriber);
+
+        try {
+            emitter.send(snapshot());
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        subscriber.start();
+        return emitter;
+    }
+
+    // The room is read once per change, after the commit and only while someone is listening
+    public void publish(long roomId) {
+        afterCommit(() -> executor.execute(() -> broadcast(roomId)));
+    }
+
+    void broadcast(long roomId) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Optional<RoomOccupancyProjection> occupancy = roomRepository.findOccupancyById(roomId);
+
+        if (occupancy.isPresent() && isStale(occupancy.get())) {
+            return;
+        }
+
+        if (occupancy.isEmpty()) {
+            lastSentUpdatedAt.remove(roomId);
+        }
+
+        OccupancyChange change = new OccupancyChange(roomId, occupancy.map(RoomOccupancyProjection::toDTO).orElse(null));
+        subscribers.forEach(subscriber -> subscriber.offer(change));
+    }
+
+    // Idle proxies drop silent connections, and writing is the only way to notice a client that went away
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void sendHeartbeats() {
+        subscribers.forEach(Subscriber::offerHeartbeat);
+    }
+
+    // A send stuck past the timeout drops its subscriber, which then gets no more work
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.SECONDS)
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+
+        subscribers.stream()
+                .filter(subscriber -> subscriber.isStalled(now, sendTimeout.toNanos()))
+                .forEach(Subscriber::drop);
+    }
+
+    @PreDestroy
+    void completeSubscribers() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+
+        if (senderPool != null) {
+            senderPool.shutdown();
+        }
+    }
+
+    private boolean isStale(RoomOccupancyProjection occupancy) {
+        if (occupancy.updatedAt() == null) {
+            return false;
+        }
+
+        long updatedAt = occupancy.updatedAt().getTime();
+
+        return lastSentUpdatedAt.merge(occupancy.id(), updatedAt, Math::max) != updatedAt;
+    }
+
+    private SseEmitter.SseEventBuilder snapshot() {
+        List<RoomOccupancyDTO> rooms = roomRepository.findAllOccupancy().stream()
+                .map(RoomOccupancyProjection::toDTO).toList();
+
+        return SseEmitter.event().name(SNAPSHOT_EVENT).data(rooms, MediaType.APPLICATION_JSON);
+    }
+
+    record OccupancyChange(long roomId, RoomOccupancyDTO occupancy) {
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (occupancy == null) {
+                return SseEmitter.event().name(DELETED_EVENT).data(roomId);
+            }
+
+            return SseEmitter.event().name(OCCUPANCY_EVENT).data(occupancy, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    // Pending changes are coalesced per room, so a slow client only gets the latest state of each room.
+    // Past bufferSize distinct rooms the queue is dropped and the client gets a fresh snapshot instead
+    final class Subscriber {
+
+        final SseEmitter emitter;
+
+        private final Map<Long, OccupancyChange> pending = new LinkedHashMap<>();
+
+        private boolean started;
+
+        private boolean draining;
+
+        private boolean overflowed;
+
+        private boolean heartbeat;
+
+        private volatile boolean dropped;
+
+        // System.nanoTime() when the send in progress started, 0 between sends
+        private volatile long sendingSince;
+
+        private volatile Thread sender;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void start() {
+            started = true;
+            scheduleDrain();
+        }
+
+        synchronized void offer(OccupancyChange change) {
+            pending.remove(change.roomId());
+
+            if (!overflowed && pending.size() >= bufferSize) {
+                pending.clear();
+                overflowed = true;
+                meterRegistry.counter("rooms.occupancy.overflows").increment();
+            }
+
+            if (!overflowed) {
+                pending.put(change.roomId(), change);
+            }
+
+            scheduleDrain();
+        }
+
+        synchronized void offerHeartbeat() {
+            heartbeat = true;
+            scheduleDrain();
+        }
+
+        // At most one drain per subscriber is queued or running, so events reach the client in order
+        private void scheduleDrain() {
+            if (!started || draining || (!overflowed && !heartbeat && pending.isEmpty())) {
+                return;
+            }
+
+            draining = true;
+
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Every sender is busy and the queue is full, this client is dropped rather than queued further
+                drop();
+            }
+        }
+
+        boolean isStalled(long now, long timeoutNanos) {
+            long since = sendingSince;
+
+            return since != 0 && now - since > timeoutNanos;
+        }
+
+        // Completing waits for a send in progress, so a stalled sender is interrupted and the emitter is
+        // completed by the drain once the write gives up. The interrupt is best effort: a write that ignores it
+        // ends at the connector's write timeout at the latest, holding a sender thread but no longer getting work
+        void drop() {
+            if (dropped || !subscribers.remove(this)) {
+                return;
+            }
+
+            dropped = true;
+            meterRegistry.counter("rooms.occupancy.dropped").increment();
+
+            Thread thread = sender;
+
+            if (thread != null) {
+                thread.interrupt();
+            } else {
+                emitter.complete();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            if (dropped) {
+                throw new IOException("Dropped as a slow consumer");
+            }
+
+            sendingSince = System.nanoTime();
+
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        private void drain() {
+            sender = Thread.currentThread();
+
+            try {
+                drainPending();
+            } finally {
+                sender = null;
+                // Clears an interrupt that arrived after the last send, the pool thread is reused
+                Thread.interrupted();
+            }
+
+            if (dropped) {
+                emitter.complete();
+            }
+        }
+
+        private void drainPending() {
+            while (!dropped) {
+                List<OccupancyChange> changes;
+                boolean resync;
+                boolean ping;
+
+                synchronized (this) {
+                    if (!overflowed && !heartbeat && pending.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+
+                    changes = List.copyOf(pending.values());
+                    resync = overflowed;
+                    ping = heartbeat;
+                    pending.clear();
+                    overflowed = false;
+                    heartbeat = false;
+                }
+
+                try {
+                    if (resync) {
+                        send(snapshot());
+                    }
+
+                    for (OccupancyChange change : changes) {
+                        send(change.toEvent());
+                    }
+
+                    if (ping && !resync && changes.isEmpty()) {
+                        send(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client is gone or the emitter already completed, draining stays set so nothing is queued again
+                    subscribers.remove(this);
+                    return;
+                }
+            }
+        }
+    }
+}
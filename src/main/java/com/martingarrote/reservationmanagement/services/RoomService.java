@@ -1,80 +1,181 @@
 package com.martingarrote.reservationmanagement.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
 import com.martingarrote.reservationmanagement.models.entities.Room;
-import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.projections.RoomProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
 import com.martingarrote.reservationmanagement.repositories.RoomRepository;
 import com.martingarrote.reservationmanagement.utils.AuditUtils;
-import org.modelmapper.ModelMapper;
+import com.martingarrote.reservationmanagement.utils.CursorUtils.Cursor;
+import com.martingarrote.reservationmanagement.utils.ExportWriter;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.*;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
+import static com.martingarrote.reservationmanagement.utils.MergePatchUtils.toChanges;
+import static com.martingarrote.reservationmanagement.utils.TransactionUtils.afterCommit;
 
 @Service
 public class RoomService {
 
+    private static final String[] CSV_HEADER = {
+            "id", "number", "description", "size", "pricePerMonth", "busy", "active"
+    };
+
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "number", "description", "size", "pricePerMonth", "busy", "active"
+    );
+
     @Autowired
     RoomRepository roomRepository;
 
     @Autowired
-    ModelMapper mapper;
+    ChangeFeedService changeFeedService;
+
+    @Autowired
+    AuditTrailService auditTrailService;
 
     @Autowired
-    ReservationRepository reservationRepository;
+    RoomOccupancyService roomOccupancyService;
 
-    public List<RoomDTO> listAll() {
-        List<RoomDTO> roomsDTO = roomRepository.findAll().stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList();
+    @Autowired
+    MapperInterface<Room, RoomDTO> mapper;
 
-        return roomsDTO;
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Value("${pagination.default-size}")
+    int defaultPageSize;
+
+    @Value("${pagination.max-size}")
+    int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public PageDTO<RoomDTO> listAll(String cursor, Integer size) throws Exception {
+        int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+        long lastId = cursor == null ? 0 : decode(cursor, SORT_BY_ID).lastId();
+
+        List<RoomProjection> rooms = roomRepository.findPageOrderById(lastId, lookAhead(pageSize));
+
+        List<RoomDTO> roomsDTO = trim(rooms, pageSize).stream()
+                .map(RoomProjection::toDTO).toList();
+        String next = nextCursor(rooms, pageSize, last -> new Cursor(SORT_BY_ID, last.id(), null));
+
+        return new PageDTO<>(roomsDTO, next);
+    }
+
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, OutputStream outputStream) throws IOException {
+        ExportWriter<RoomDTO> writer = new ExportWriter<>(format, objectMapper, outputStream, CSV_HEADER,
+                room -> new Object[]{
+                        room.getId(), room.getNumber(), room.getDescription(), room.getSize(),
+                        room.getPricePerMonth(), room.getBusy(), room.getActive()
+                });
+
+        try (Stream<RoomProjection> rooms = roomRepository.streamAllOrderById()) {
+            Iterator<RoomProjection> iterator = rooms.iterator();
+
+            while (iterator.hasNext()) {
+                writer.write(iterator.next().toDTO());
+            }
+        }
+
+        writer.finish();
+    }
+
+    @Transactional(readOnly = true)
+    public VersionProjection findVersionById(Long id) {
+        return roomRepository.findVersionById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public VersionProjection findVersion() {
+        return roomRepository.findVersion();
     }
 
+    @Transactional(readOnly = true)
+    public ChangesDTO<RoomDTO> findChanges(String since, Integer size) throws Exception {
+        return changeFeedService.findChanges(EntityType.ROOM, since, size, roomRepository::findChangedSince,
+                ids -> roomRepository.findByIdIn(ids).stream().map(RoomProjection::toDTO).toList());
+    }
+
+    // Stays on the primary: the entity goes into the second-level cache, which a lagging replica must not fill
+    @Transactional
     public RoomDTO findById(Long id) {
         Optional<Room> optional = roomRepository.findById(id);
         RoomDTO roomDTO = null;
 
         if (optional.isPresent()) {
-            roomDTO = mapper.map(optional.get(), RoomDTO.class);
+            roomDTO = mapper.toDTO(optional.get());
         }
 
         return roomDTO;
     }
 
+    @Transactional(readOnly = true)
     public List<RoomDTO> findByBusy(boolean busy) {
         List<RoomDTO> roomsDTO = roomRepository.findByBusy(busy).stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList();
+                .map(RoomProjection::toDTO).toList();
 
         return roomsDTO;
     }
 
+    @Transactional
     public boolean deleteById(Long id) throws Exception {
+        // The reservation check and the delete run as one statement, so they can't be interleaved
+        if (roomRepository.deleteByIdIfUnreserved(id) == 1) {
+            changeFeedService.recordDeletion(EntityType.ROOM, id);
+            auditTrailService.record(EntityType.ROOM, id, AuditAction.DELETE, null, null);
+            roomOccupancyService.publish(id);
+            return true;
+        }
 
         if (!roomRepository.existsById(id)) {
             return false;
         }
 
-        if (!reservationRepository.findByReservedRoomId(id).isEmpty()) {
-            throw new Exception(UNABLE_TO_DELETE);
-        }
-
-        roomRepository.deleteById(id);
-        return true;
+        throw new Exception(UNABLE_TO_DELETE);
     }
 
     public Long create(RoomDTO roomDTO) throws Exception {
         return save(roomDTO);
     }
 
+    @Transactional
     public Long update(RoomDTO roomDTO, Long id) throws Exception {
         var optional = roomRepository.findById(id);
         AuditUtils auditUtils = new AuditUtils();
 
         if (optional.isPresent()) {
             Room room = optional.get();
+            RoomDTO before = mapper.toDTO(room);
 
             if (!roomDTO.getNumber().toString().isEmpty()) {
                 room.setNumber(roomDTO.getNumber());
@@ -98,6 +199,9 @@ public class RoomService {
             auditUtils.AuditDefineFields(room);
 
             roomRepository.save(room);
+            auditTrailService.record(EntityType.ROOM, room.getId(), AuditAction.UPDATE, before, mapper.toDTO(room));
+            afterCommit(reservationService::evictSearchCache);
+            roomOccupancyService.publish(room.getId());
             return room.getId();
 
         } else {
@@ -108,16 +212,39 @@ public class RoomService {
         }
     }
 
+    public Long patch(JsonNode patch, Long id) throws Exception {
+        AuditUtils auditUtils = new AuditUtils();
+
+        Map<String, Object> changes = toChanges(patch, RoomDTO.class, PATCHABLE_FIELDS, objectMapper, validator);
+        auditUtils.AuditDefineUpdateFields(changes);
+
+        // No read before the write, the affected row count tells whether the room exists
+        if (roomRepository.updateById(Room.class, id, changes) == 0) {
+            return null;
+        }
+
+        auditTrailService.record(EntityType.ROOM, id, AuditAction.PATCH, null, changes);
+
+        afterCommit(reservationService::evictSearchCache);
+
+        if (changes.containsKey("busy") || changes.containsKey("active")) {
+            roomOccupancyService.publish(id);
+        }
+
+        return id;
+    }
+
     public Long save(RoomDTO roomDTO) throws Exception {
 
         AuditUtils auditUtils = new AuditUtils();
 
         try {
-            Room room = mapper.map(roomDTO, Room.class);
+            Room room = mapper.toEntity(roomDTO);
 
             auditUtils.AuditDefineFields(room);
 
             Room created = roomRepository.save(room);
+            auditTrailService.record(EntityType.ROOM, created.getId(), AuditAction.CREATE, null, mapper.toDTO(created));
 
             return created.getId();
         } catch (Exception e) {
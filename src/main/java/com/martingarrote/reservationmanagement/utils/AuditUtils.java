@@ -3,20 +3,31 @@ package com.martingarrote.reservationmanagement.utils;
 import com.martingarrote.reservationmanagement.interfaces.AuditInterface;
 
 import java.sql.Timestamp;
+import java.util.Map;
 
 public class AuditUtils {
 
+    public static final String AUDIT_USER = "Admin";
+
     public void AuditDefineFields(AuditInterface object) {
 
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
 
         if (object.getCreatedAt() == null || object.getCreatedBy() == null) {
-            object.setCreatedBy("Admin");
+            object.setCreatedBy(AUDIT_USER);
             object.setCreatedAt(timestamp);
         }
 
-        object.setUpdatedBy("Admin");
+        object.setUpdatedBy(AUDIT_USER);
         object.setUpdatedAt(timestamp);
     }
 
+    public void AuditDefineUpdateFields(Map<String, Object> changes) {
+
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+
+        changes.put("updatedBy", AUDIT_USER);
+        changes.put("updatedAt", timestamp);
+    }
+
 }
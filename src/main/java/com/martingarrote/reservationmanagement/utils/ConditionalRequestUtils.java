@@ -0,0 +1,63 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.SMILE_VALUE;
+
+public class ConditionalRequestUtils {
+
+    private static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    // In the order of the message converters, JSON first
+    private static final List<MediaType> REPRESENTATIONS = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE
+    );
+
+    // Also writes ETag and Last-Modified to the response. When true the status is already 304 and the
+    // handler should return null without loading anything, missing or empty results skip the check.
+    // updated_at is stamped before commit, so a transaction that stamped an earlier time may still commit
+    // under the current max. Within the commit lag no validators are sent, a client can't keep a version
+    // that doesn't cover that transaction yet
+    public static boolean isNotModified(WebRequest request, VersionProjection version, Duration commitLag) {
+        if (!version.exists() || System.currentTimeMillis() - version.lastModifiedMillis() < commitLag.toMillis()) {
+            return false;
+        }
+
+        return request.checkNotModified(version.eTag(representation(request)), version.lastModifiedMillis());
+    }
+
+    // The body hasn't been negotiated yet, so the Accept header is matched against the formats the same way
+    // the converters will: the most specific accepted type with the highest quality, JSON on a tie
+    static String representation(WebRequest request) {
+        List<MediaType> compatible = new ArrayList<>();
+
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT))) {
+                for (MediaType representation : REPRESENTATIONS) {
+                    if (accepted.isCompatibleWith(representation)) {
+                        compatible.add(representation.copyQualityValue(accepted));
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+
+        MimeTypeUtils.sortBySpecificity(compatible);
+
+        if (compatible.isEmpty() || compatible.get(0).equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+            return null;
+        }
+
+        return compatible.get(0).equalsTypeAndSubtype(SMILE) ? "smile" : "cbor";
+    }
+}
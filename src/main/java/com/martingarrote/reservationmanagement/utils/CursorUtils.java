@@ -0,0 +1,83 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PaginationExceptions.*;
+
+public class CursorUtils {
+
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_END_DATE = "endDate";
+
+    private static final String SEPARATOR = "|";
+
+    public record Cursor(String sort, long lastId, LocalDate lastEndDate) {
+    }
+
+    public static String encode(Cursor cursor) {
+        String raw = cursor.sort() + SEPARATOR + cursor.lastId();
+
+        if (cursor.lastEndDate() != null) {
+            raw += SEPARATOR + cursor.lastEndDate();
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor, String expectedSort) throws Exception {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+
+            if (!parts[0].equals(expectedSort)) {
+                throw new IllegalArgumentException();
+            }
+
+            long lastId = Long.parseLong(parts[1]);
+
+            if (SORT_BY_END_DATE.equals(expectedSort)) {
+                return new Cursor(expectedSort, lastId, LocalDate.parse(parts[2]));
+            }
+
+            return new Cursor(expectedSort, lastId, null);
+        } catch (RuntimeException e) {
+            throw new Exception(INVALID_CURSOR);
+        }
+    }
+
+    public static int resolvePageSize(Integer requested, int defaultSize, int maxSize) throws Exception {
+        if (requested == null) {
+            return defaultSize;
+        }
+
+        if (requested < 1) {
+            throw new Exception(INVALID_PAGE_SIZE);
+        }
+
+        return Math.min(requested, maxSize);
+    }
+
+    // One extra row is fetched only to know whether there is a next page
+    public static Pageable lookAhead(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    public static <T> List<T> trim(List<T> rows, int pageSize) {
+        return rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+    }
+
+    public static <T> String nextCursor(List<T> rows, int pageSize, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return null;
+        }
+
+        return encode(cursorOf.apply(rows.get(pageSize - 1)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+public class ExportWriter<T> {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    private final ExportFormat format;
+
+    private final ObjectWriter rowWriter;
+
+    private final Writer writer;
+
+    private final JsonGenerator generator;
+
+    private final String[] csvHeader;
+
+    private final Function<T, Object[]> csvColumns;
+
+    private boolean started;
+
+    private long written;
+
+    public ExportWriter(ExportFormat format,
+                        ObjectMapper objectMapper,
+                        OutputStream outputStream,
+                        String[] csvHeader,
+                        Function<T, Object[]> csvColumns) throws IOException {
+        this.format = format;
+        // Flushing after every row would push each one to the client, the rows go out every FLUSH_EVERY instead
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.csvHeader = csvHeader;
+        this.csvColumns = csvColumns;
+
+        // The binary formats write their rows as a sequence of root values, each one decodable on arrival
+        this.generator = switch (format) {
+            case NDJSON -> objectMapper.getFactory().createGenerator(writer).setRootValueSeparator(null);
+            case CBOR -> CBOR_FACTORY.createGenerator(outputStream);
+            case SMILE -> SMILE_FACTORY.createGenerator(outputStream);
+            case CSV -> null;
+        };
+    }
+
+    public void write(T row) throws IOException {
+        start();
+
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(csvColumns.apply(row));
+        } else {
+            rowWriter.writeValue(generator, row);
+
+            if (format == ExportFormat.NDJSON) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        written++;
+
+        // The first row goes out right away, the next ones in blocks
+        if (written == 1 || written % FLUSH_EVERY == 0) {
+            flush();
+        }
+    }
+
+    public void finish() throws IOException {
+        start();
+        flush();
+    }
+
+    // The CSV header waits for the first row, by then the export query has run and has not failed
+    private void start() throws IOException {
+        if (!started && format == ExportFormat.CSV) {
+            writeCsvLine(csvHeader);
+        }
+
+        started = true;
+    }
+
+    private void flush() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+
+        writer.flush();
+    }
+
+    private void writeCsvLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+
+            writer.write(escapeCsv(values[i]));
+        }
+
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        String text = value.toString();
+
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,64 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PatchExceptions.*;
+
+public class MergePatchUtils {
+
+    // Turns a JSON Merge Patch (RFC 7386) into the changed columns, validated against the DTO constraints
+    public static Map<String, Object> toChanges(JsonNode patch, Class<?> dtoClass, Set<String> patchableFields,
+                                                ObjectMapper objectMapper, Validator validator) throws Exception {
+        if (patch == null || !patch.isObject()) {
+            throw new Exception(INVALID_PATCH);
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+
+            if (!patchableFields.contains(name)) {
+                throw new Exception(String.format(FIELD_NOT_PATCHABLE, name));
+            }
+
+            // A null member removes the value, and every patchable column is required
+            if (field.getValue().isNull()) {
+                throw new Exception(String.format(FIELD_CANNOT_BE_NULL, name));
+            }
+
+            Object value = toValue(field.getValue(), dtoClass, name, objectMapper);
+            Set<? extends ConstraintViolation<?>> violations = validator.validateValue(dtoClass, name, value);
+
+            if (!violations.isEmpty()) {
+                throw new Exception(violations.iterator().next().getMessage());
+            }
+
+            changes.put(name, value);
+        }
+
+        return changes;
+    }
+
+    private static Object toValue(JsonNode node, Class<?> dtoClass, String name, ObjectMapper objectMapper)
+            throws Exception {
+        Class<?> type = BeanUtils.getPropertyDescriptor(dtoClass, name).getPropertyType();
+
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (Exception e) {
+            throw new Exception(String.format(INVALID_FIELD_VALUE, name));
+        }
+    }
+}
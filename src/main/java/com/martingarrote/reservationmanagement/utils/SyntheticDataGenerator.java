@@ -0,0 +1,388 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.martingarrote.reservationmanagement.utils.AuditUtils.AUDIT_USER;
+
+// Streams a large dataset straight into the schema, bypassing JPA, with multi-row INSERTs split in chunks
+// that are written in parallel, each chunk in its own transaction. The rows follow the business rules:
+// adult customers with unique, well-formed CPFs, and rooms whose reservations never overlap. A busy room's
+// latest reservation is the active one, the older ones are history.
+// Ids are given explicitly and every chunk draws from its own random stream, so the same seed produces the
+// same rows whatever the number of threads
+public class SyntheticDataGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final int ROWS_PER_INSERT = 1_000;
+
+    private static final int ROWS_PER_CHUNK = 50_000;
+
+    private static final double ACTIVE_ROOMS = 0.95;
+
+    private static final double BUSY_ROOMS = 0.7;
+
+    private static final long CUSTOMER_STREAM = 1;
+
+    private static final long ROOM_STREAM = 2;
+
+    private static final String[] CUSTOMER_COLUMNS = {
+            "id", "name", "date_of_birth", "cpf", "email", "created_by", "created_at", "updated_by", "updated_at"
+    };
+
+    private static final String[] ROOM_COLUMNS = {
+            "id", "number", "description", "size", "busy", "active", "price_per_month",
+            "created_by", "created_at", "updated_by", "updated_at"
+    };
+
+    private static final String[] RESERVATION_COLUMNS = {
+            "id", "code", "customer_id", "reserved_room_id", "reservation_price", "description", "duration",
+            "start_date", "end_date", "active", "created_by", "created_at", "updated_by", "updated_at"
+    };
+
+    private final DataSource dataSource;
+
+    private final long seed;
+
+    private final int threads;
+
+    private final LocalDate today = LocalDate.now();
+
+    private final Timestamp now = new Timestamp(System.currentTimeMillis());
+
+    public SyntheticDataGenerator(DataSource dataSource, long seed, int threads) {
+        this.dataSource = dataSource;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    // CPF 9 base digits plus the two check digits, distinct for every number below 900 million
+    public static String cpf(long number) {
+        int[] digits = new int[11];
+        long base = 100_000_000L + number;
+
+        for (int i = 8; i >= 0; i--) {
+            digits[i] = (int) (base % 10);
+            base /= 10;
+        }
+
+        digits[9] = checkDigit(digits, 9);
+        digits[10] = checkDigit(digits, 10);
+
+        char[] cpf = new char[11];
+        for (int i = 0; i < 11; i++) {
+            cpf[i] = (char) ('0' + digits[i]);
+        }
+
+        return new String(cpf);
+    }
+
+    public void generate(int customers, int rooms, int reservations) throws SQLException, InterruptedException {
+        if (reservations > 0 && (customers == 0 || rooms == 0)) {
+            throw new IllegalArgumentException("Reservations need at least one customer and one room");
+        }
+
+        long firstCustomer = next("customer", "id");
+        long firstRoom = next("room", "id");
+        long firstRoomNumber = next("room", "number");
+        long firstReservation = next("reservation", "id");
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Callable<Void>> chunks = new ArrayList<>();
+
+            for (int from = 0; from < customers; from += ROWS_PER_CHUNK) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(customers, from + ROWS_PER_CHUNK);
+                chunks.add(() -> insertCustomers(firstCustomer, chunkFrom, chunkTo));
+            }
+
+            for (int from = 0; from < rooms; from += ROWS_PER_CHUNK) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(rooms, from + ROWS_PER_CHUNK);
+                chunks.add(() -> insertRooms(firstRoom, firstRoomNumber, chunkFrom, chunkTo, rooms, reservations));
+            }
+
+            run(executor, chunks);
+            log("customers and rooms", customers + rooms, start);
+
+            // The reservations reference the customers and rooms, so they only start once those are committed
+            long reservationsStart = System.nanoTime();
+            int roomsPerChunk = Math.max(1, ROWS_PER_CHUNK / Math.max(1, reservations / Math.max(1, rooms)));
+            chunks.clear();
+
+            for (int from = 0; from < rooms && reservations > 0; from += roomsPerChunk) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(rooms, from + roomsPerChunk);
+                chunks.add(() -> insertReservations(firstReservation, firstRoom, firstCustomer, customers,
+                        chunkFrom, chunkTo, rooms, reservations));
+            }
+
+            run(executor, chunks);
+            log("reservations", reservations, reservationsStart);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            restartIdentity(statement, "customer", firstCustomer + customers);
+            restartIdentity(statement, "room", firstRoom + rooms);
+            restartIdentity(statement, "reservation", firstReservation + reservations);
+            statement.execute("ANALYZE");
+        }
+
+        log("rows in total", (long) customers + rooms + reservations, start);
+    }
+
+    private Void insertCustomers(long firstId, int from, int to) throws SQLException {
+        SplittableRandom random = random(CUSTOMER_STREAM, from);
+
+        try (Connection connection = transaction();
+             MultiRowInsert insert = new MultiRowInsert(connection, "customer", CUSTOMER_COLUMNS)) {
+            for (int i = from; i < to; i++) {
+                long id = firstId + i;
+
+                insert.add(id, "Customer " + id,
+                        Date.valueOf(today.minusYears(18).minusDays(1 + random.nextInt(60 * 365))),
+                        cpf(id), "customer" + id + "@example.com", AUDIT_USER, now, AUDIT_USER, now);
+            }
+
+            insert.flush();
+            connection.commit();
+        }
+
+        return null;
+    }
+
+    private Void insertRooms(long firstId, long firstNumber, int from, int to, int rooms, int reservations)
+            throws SQLException {
+        try (Connection connection = transaction();
+             MultiRowInsert insert = new MultiRowInsert(connection, "room", ROOM_COLUMNS)) {
+            for (int i = from; i < to; i++) {
+                RoomPlan room = roomPlan(i, rooms, reservations);
+                long id = firstId + i;
+
+                insert.add(id, (int) (firstNumber + i), "Room " + id, room.size(), room.busy(), room.active(), room.pricePerMonth(),
+                        AUDIT_USER, now, AUDIT_USER, now);
+            }
+
+            insert.flush();
+            connection.commit();
+        }
+
+        return null;
+    }
+
+    // Walks back in time from each room's latest reservation, every reservation ending when the next one starts
+    private Void insertReservations(long firstId, long firstRoom, long firstCustomer, int customers, int from, int to,
+                                    int rooms, int reservations) throws SQLException {
+        try (Connection connection = transaction();
+             MultiRowInsert insert = new MultiRowInsert(connection, "reservation", RESERVATION_COLUMNS)) {
+            for (int i = from; i < to; i++) {
+                RoomPlan room = roomPlan(i, rooms, reservations);
+                SplittableRandom random = room.random();
+                long id = firstId + firstReservationOf(i, rooms, reservations);
+                long roomId = firstRoom + i;
+                int duration = 1 + random.nextInt(12);
+                LocalDate startDate = room.busy()
+                        ? today.minusMonths(random.nextInt(duration)).minusDays(random.nextInt(28))
+                        : today.minusMonths(duration).minusDays(1 + random.nextInt(60));
+
+                for (int j = 0; j < room.reservations(); j++, id++) {
+                    insert.add(id, "R" + id, firstCustomer + random.nextInt(customers), roomId,
+                            room.pricePerMonth() * duration, "Reservation of room " + roomId, duration,
+                            Date.valueOf(startDate), Date.valueOf(startDate.plusMonths(duration)),
+                            room.busy() && j == 0, AUDIT_USER, now, AUDIT_USER, now);
+
+                    duration = 1 + random.nextInt(12);
+                    startDate = startDate.minusMonths(duration);
+                }
+            }
+
+            insert.flush();
+            connection.commit();
+        }
+
+        return null;
+    }
+
+    // Both the room and the reservation chunks derive a room from its own stream, so they agree on it
+    private RoomPlan roomPlan(int index, int rooms, int reservations) {
+        SplittableRandom random = random(ROOM_STREAM, index);
+        int roomReservations = reservations / rooms + (index < reservations % rooms ? 1 : 0);
+        boolean active = random.nextDouble() < ACTIVE_ROOMS;
+        boolean busy = active && random.nextDouble() < BUSY_ROOMS && roomReservations > 0;
+
+        return new RoomPlan(active, busy, 10D + random.nextInt(111), 300D + random.nextInt(48) * 100,
+                roomReservations, random);
+    }
+
+    private static long firstReservationOf(int room, int rooms, int reservations) {
+        return (long) room * (reservations / rooms) + Math.min(room, reservations % rooms);
+    }
+
+    private SplittableRandom random(long stream, long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + index);
+    }
+
+    private Connection transaction() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+
+        return connection;
+    }
+
+    // Room numbers are unique as well, the generated ones continue after the highest existing number
+    private long next(String table, String column) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    // The ids were given explicitly, the identity has to continue after them
+    private static void restartIdentity(Statement statement, String table, long next) throws SQLException {
+        statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    private static void run(ExecutorService executor, List<Callable<Void>> chunks)
+            throws SQLException, InterruptedException {
+        for (Future<Void> chunk : executor.invokeAll(chunks)) {
+            try {
+                chunk.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static void log(String what, long rows, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOGGER.info("Generated {} {} in {} s ({} rows/s)", rows, what, String.format("%.1f", seconds),
+                Math.round(rows / Math.max(seconds, 1e-3)));
+    }
+
+    private static int checkDigit(int[] digits, int length) {
+        int sum = 0;
+
+        for (int i = 0; i < length; i++) {
+            sum += digits[i] * (length + 1 - i);
+        }
+
+        int remainder = sum % 11;
+
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+
+    private record RoomPlan(boolean active, boolean busy, double size, double pricePerMonth, int reservations,
+                            SplittableRandom random) {
+    }
+
+    // Buffers rows and writes them ROWS_PER_INSERT at a time as INSERT ... VALUES (...), (...), ...
+    private static class MultiRowInsert implements AutoCloseable {
+
+        private final Connection connection;
+
+        private final String table;
+
+        private final String[] columns;
+
+        private final Object[] values;
+
+        private PreparedStatement fullInsert;
+
+        private int size;
+
+        MultiRowInsert(Connection connection, String table, String[] columns) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.values = new Object[ROWS_PER_INSERT * columns.length];
+        }
+
+        void add(Object... row) throws SQLException {
+            System.arraycopy(row, 0, values, size, columns.length);
+            size += columns.length;
+
+            if (size == values.length) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            int rows = size / columns.length;
+
+            if (rows == 0) {
+                return;
+            }
+
+            if (rows == ROWS_PER_INSERT) {
+                if (fullInsert == null) {
+                    fullInsert = connection.prepareStatement(sql(rows));
+                }
+                execute(fullInsert);
+            } else {
+                try (PreparedStatement partialInsert = connection.prepareStatement(sql(rows))) {
+                    execute(partialInsert);
+                }
+            }
+
+            size = 0;
+        }
+
+        private void execute(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < size; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+
+            statement.executeUpdate();
+        }
+
+        private String sql(int rows) {
+            String row = "(?" + ", ?".repeat(columns.length - 1) + ")";
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(String.join(", ", columns)).append(") VALUES ").append(row);
+
+            for (int i = 1; i < rows; i++) {
+                sql.append(", ").append(row);
+            }
+
+            return sql.toString();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (fullInsert != null) {
+                fullInsert.close();
+            }
+        }
+    }
+}
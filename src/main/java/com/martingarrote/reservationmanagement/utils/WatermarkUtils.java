@@ -0,0 +1,37 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.INVALID_WATERMARK;
+
+public class WatermarkUtils {
+
+    private static final String SEPARATOR = "|";
+
+    // Separate keysets for the changed rows and for the tombstones, as the two feeds are paged independently
+    public record Watermark(Timestamp changedAt, long lastChangedId, Timestamp deletedAt, long lastDeletedId) {
+    }
+
+    // Instants keep the nanoseconds, a watermark truncated to millis would send rows of the same millisecond forever
+    public static String encode(Watermark watermark) {
+        String raw = watermark.changedAt().toInstant() + SEPARATOR + watermark.lastChangedId() + SEPARATOR
+                + watermark.deletedAt().toInstant() + SEPARATOR + watermark.lastDeletedId();
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Watermark decode(String watermark) throws Exception {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+
+            return new Watermark(Timestamp.from(Instant.parse(parts[0])), Long.parseLong(parts[1]),
+                    Timestamp.from(Instant.parse(parts[2])), Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new Exception(INVALID_WATERMARK);
+        }
+    }
+}
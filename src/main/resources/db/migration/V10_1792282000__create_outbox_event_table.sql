@@ -0,0 +1,15 @@
+create table outbox_event (
+    id bigint generated by default as identity,
+    aggregate_type varchar(32) not null,
+    aggregate_id bigint not null,
+    event_type varchar(32) not null,
+    payload varchar(4000) not null,
+    created_at timestamp(6) not null,
+    attempts integer not null,
+    next_attempt_at timestamp(6) not null,
+    last_error varchar(1000),
+    primary key (id)
+);
+
+create index idx_outbox_event_aggregate on outbox_event (aggregate_type, aggregate_id, id);
+create index idx_outbox_event_next_attempt_at on outbox_event (next_attempt_at, id);
@@ -0,0 +1,12 @@
+create table audit_record (
+    id bigint generated by default as identity,
+    entity varchar(32) not null,
+    entity_id bigint not null,
+    action varchar(32) not null,
+    changes varchar(4000) not null,
+    changed_by varchar(255) not null,
+    changed_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_audit_record_entity on audit_record (entity, entity_id, changed_at);
@@ -0,0 +1,7 @@
+create table replica_heartbeat (
+    id int not null,
+    beat_at timestamp(6) not null,
+    primary key (id)
+);
+
+insert into replica_heartbeat (id, beat_at) values (1, current_timestamp);
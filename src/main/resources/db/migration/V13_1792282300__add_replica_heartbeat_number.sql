@@ -0,0 +1 @@
+alter table replica_heartbeat add column beat_number bigint not null default 0;
@@ -0,0 +1,9 @@
+create table tombstone (
+    id bigint generated by default as identity,
+    entity varchar(32) not null,
+    entity_id bigint not null,
+    deleted_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_tombstone_entity_deleted_at on tombstone (entity, deleted_at, id);
@@ -0,0 +1,21 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.database.postgresql.PostgreSQLConfigurationExtension;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlywayConfigurationTest {
+
+    @Test
+    void sessionLevelPostgreSqlLock_ShouldTurnOffTheTransactionalLock() {
+        FluentConfiguration configuration = Flyway.configure();
+
+        new FlywayConfiguration().sessionLevelPostgreSqlLock().customize(configuration);
+
+        assertThat(configuration.getPluginRegister().getPlugin(PostgreSQLConfigurationExtension.class)
+                .isTransactionalLock()).isFalse();
+    }
+}
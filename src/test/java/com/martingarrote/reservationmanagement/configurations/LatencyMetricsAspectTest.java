@@ -0,0 +1,58 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import com.martingarrote.reservationmanagement.services.ReactiveRoomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import static com.martingarrote.reservationmanagement.configurations.LatencyMetricsAspect.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class LatencyMetricsAspectTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReactiveRoomService reactiveRoomService;
+
+    @Test
+    void request_ShouldBeTimedInEveryLayer() {
+        restTemplate.getForObject("/api/rooms/1", String.class);
+
+        assertThat(meterRegistry.get(SERVICE_TIMER).tag("class", "RoomService").tag("method", "findById")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get(REPOSITORY_TIMER).tag("class", "RoomRepository").tag("method", "findById")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get(MAPPER_TIMER).tag("class", "RoomMapper").tag("method", "toDTO")
+                .timer().count()).isPositive();
+    }
+
+    @Test
+    void prometheusEndpoint_ShouldPublishTheLayerHistograms() {
+        restTemplate.getForObject("/api/rooms/1", String.class);
+
+        String scrape = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertThat(scrape)
+                .contains("app_service_calls_seconds_bucket{class=\"RoomService\",method=\"findById\",le=\"0.001\",}")
+                .contains("app_repository_calls_seconds_bucket{class=\"RoomRepository\",method=\"findById\"")
+                .contains("http_server_requests_seconds_bucket{error=\"none\",exception=\"none\",method=\"GET\"," +
+                        "outcome=\"SUCCESS\",status=\"200\",uri=\"/api/rooms/{id}\"");
+    }
+
+    @Test
+    void reactiveCalls_ShouldNotBeTimed() {
+        reactiveRoomService.findAll().collectList().block();
+
+        assertThat(meterRegistry.find(SERVICE_TIMER).tag("class", "ReactiveRoomService").timers()).isEmpty();
+    }
+}
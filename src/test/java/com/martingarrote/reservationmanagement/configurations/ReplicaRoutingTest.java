@@ -0,0 +1,176 @@
+package com.martingarrote.reservationmanagement.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static com.martingarrote.reservationmanagement.configurations.ConsistencyTokenFilter.CONSISTENCY_TOKEN_HEADER;
+import static com.martingarrote.reservationmanagement.configurations.ReplicaLagMonitor.LAG_METRIC;
+import static com.martingarrote.reservationmanagement.configurations.ReplicaRoutingDataSource.ROUTING_METRIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two H2 databases stand in for the primary and its replica. Nothing replicates between them: rows only the
+// replica has show which database served a read, and the test moves the replica's heartbeat by hand
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "replica.enabled=true",
+        "replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "replica.username=sa",
+        "replica.heartbeat-interval=1h",
+        "replica.max-lag=10s"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static JdbcTemplate replica;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeAll
+    static void migrateReplica() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(REPLICA_URL);
+        dataSource.setUser("sa");
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldGoToTheReplica_AndWritesToThePrimary() throws Exception {
+        insertIntoReplica(900, "Replica only customer", "90000000001");
+        replicateUntil(0, System.currentTimeMillis());
+        double replicaReads = routed("replica-0", "read-only");
+
+        assertThat(listCustomers(get("/api/customers?size=100"))).contains("Replica only customer");
+        assertThat(routed("replica-0", "read-only")).isGreaterThan(replicaReads);
+
+        // The version check reads the replica, the entity read of the same request still goes to the primary
+        mockMvc.perform(get("/api/customers/900")).andExpect(status().isNotFound());
+
+        mockMvc.perform(createCustomer("Primary only customer", "90000000002"))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(CONSISTENCY_TOKEN_HEADER));
+
+        assertThat(countByCpf(new JdbcTemplate(primary()), "90000000002")).isEqualTo(1);
+        assertThat(countByCpf(replica, "90000000002")).isZero();
+        assertThat(routed("primary", "read-write")).isPositive();
+    }
+
+    @Test
+    void readsWithAConsistencyToken_ShouldGoToThePrimary_UntilTheReplicaCatchesUp() throws Exception {
+        String token = mockMvc.perform(createCustomer("Token customer", "90000000003"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(CONSISTENCY_TOKEN_HEADER);
+        long position = Long.parseLong(token);
+        double consistencyReads = routed("primary", "consistency");
+
+        // The token is the primary's next heartbeat, whatever this server's clock says
+        assertThat(position).isEqualTo(new JdbcTemplate(primary())
+                .queryForObject("SELECT beat_number FROM replica_heartbeat WHERE id = 1", Long.class) + 1);
+
+        replicateUntil(position - 1, System.currentTimeMillis());
+
+        assertThat(listCustomers(get("/api/customers?size=100").header(CONSISTENCY_TOKEN_HEADER, token)))
+                .contains("Token customer");
+        assertThat(routed("primary", "consistency")).isGreaterThan(consistencyReads);
+        assertThat(listCustomers(get("/api/customers?size=100"))).doesNotContain("Token customer");
+
+        // The replica replayed the heartbeat after the write, the token no longer keeps the read on the primary
+        replicateUntil(position, System.currentTimeMillis());
+
+        assertThat(listCustomers(get("/api/customers?size=100").header(CONSISTENCY_TOKEN_HEADER, token)))
+                .doesNotContain("Token customer");
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldSkipAReplicaBeyondTheMaximumLag() throws Exception {
+        insertIntoReplica(901, "Lagging replica customer", "90000000004");
+        replicaLagMonitor.beat();
+        Timestamp primaryBeatAt = new JdbcTemplate(primary())
+                .queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Timestamp.class);
+        replicateUntil(0, primaryBeatAt.getTime() - 60_000);
+        double lagReads = routed("primary", "lag");
+
+        assertThat(listCustomers(get("/api/customers?size=100"))).doesNotContain("Lagging replica customer");
+        assertThat(routed("primary", "lag")).isGreaterThan(lagReads);
+        assertThat(meterRegistry.get(LAG_METRIC).tag("replica", "replica-0").gauge().value())
+                .isEqualTo(60);
+    }
+
+    private String listCustomers(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private RequestBuilder createCustomer(String name, String cpf) throws Exception {
+        CustomerDTO customer = new CustomerDTO(null, name, LocalDate.of(1990, 1, 1), cpf,
+                cpf + "@example.com");
+
+        return post("/api/customers").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(customer));
+    }
+
+    private void replicateUntil(long beatNumber, long beatAt) {
+        replica.update("UPDATE replica_heartbeat SET beat_number = ?, beat_at = ? WHERE id = 1", beatNumber,
+                new Timestamp(beatAt));
+        replicaLagMonitor.refresh();
+    }
+
+    private static void insertIntoReplica(long id, String name, String cpf) {
+        replica.update("INSERT INTO customer (id, name, date_of_birth, cpf, email) VALUES (?, ?, ?, ?, ?)",
+                id, name, LocalDate.of(1990, 1, 1), cpf, cpf + "@example.com");
+    }
+
+    private static long countByCpf(JdbcTemplate jdbcTemplate, String cpf) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer WHERE cpf = ?", Long.class, cpf);
+    }
+
+    private static JdbcDataSource primary() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(PRIMARY_URL);
+        dataSource.setUser("sa");
+
+        return dataSource;
+    }
+
+    private double routed(String target, String reason) {
+        var counter = meterRegistry.find(ROUTING_METRIC).tag("target", target).tag("reason", reason).counter();
+
+        return counter == null ? 0 : counter.count();
+    }
+}
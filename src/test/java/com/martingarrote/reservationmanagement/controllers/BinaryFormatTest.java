@@ -0,0 +1,139 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.CBOR_SEQ_VALUE;
+import static com.martingarrote.reservationmanagement.consts.MediaTypeConsts.SMILE_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The seed rows are stamped when the context migrates the database, without a commit lag their validators are
+// sent right away
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "sync.commit-lag=0s")
+class BinaryFormatTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    private static final List<String> READ_URLS = List.of("/api/reservations", "/api/reservations/customer/1",
+            "/api/customers", "/api/rooms", "/api/rooms/status?busy=false", "/api/reactive/rooms");
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void readEndpoints_ShouldAnswerCborAndSmile_WithTheSameContentAsJson() throws Exception {
+        for (String url : READ_URLS) {
+            JsonNode json = objectMapper.readTree(get(url, MediaType.APPLICATION_JSON).getBody());
+
+            ResponseEntity<byte[]> cbor = get(url, MediaType.APPLICATION_CBOR);
+            assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+            assertThat(cborMapper.readTree(cbor.getBody())).as(url).isEqualTo(json);
+
+            ResponseEntity<byte[]> smile = get(url, SMILE);
+            assertThat(smile.getHeaders().getContentType()).isEqualTo(SMILE);
+            assertThat(smileMapper.readTree(smile.getBody())).as(url).isEqualTo(json);
+        }
+    }
+
+    @Test
+    void readEndpoints_ShouldStayJson_WhenAnyTypeIsAccepted() {
+        ResponseEntity<byte[]> response = get("/api/reservations", MediaType.ALL);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void readEndpoints_ShouldVaryOnAccept_AndTagEachFormatApart() {
+        ResponseEntity<byte[]> json = get("/api/customers/1", MediaType.APPLICATION_JSON);
+        ResponseEntity<byte[]> cbor = get("/api/customers/1", MediaType.APPLICATION_CBOR);
+        ResponseEntity<byte[]> smile = get("/api/customers/1", SMILE);
+
+        assertThat(json.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+        assertThat(List.of(json, cbor, smile)).extracting(response -> response.getHeaders().getETag())
+                .doesNotHaveDuplicates()
+                .allSatisfy(eTag -> assertThat(eTag).startsWith("\""));
+
+        // A JSON tag doesn't validate the CBOR body, the CBOR tag does
+        assertThat(conditionalGet(MediaType.APPLICATION_CBOR, json.getHeaders().getETag()).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<byte[]> notModified = conditionalGet(MediaType.APPLICATION_CBOR, cbor.getHeaders().getETag());
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    void export_ShouldNotVaryOnAccept() {
+        ResponseEntity<byte[]> export = get("/api/reservations/export?format=ndjson", MediaType.ALL);
+
+        assertThat(export.getHeaders().getVary()).doesNotContain(HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    void export_ShouldStreamCborAndSmileSequences_WithTheSameRowsAsNdjson() throws Exception {
+        List<JsonNode> ndjson = new ArrayList<>();
+        String body = new String(get("/api/reservations/export?format=ndjson", MediaType.ALL).getBody(),
+                StandardCharsets.UTF_8);
+
+        for (String line : body.split("\n")) {
+            ndjson.add(objectMapper.readTree(line));
+        }
+
+        ResponseEntity<byte[]> cbor = get("/api/reservations/export?format=cbor", MediaType.ALL);
+        assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.parseMediaType(CBOR_SEQ_VALUE));
+        assertThat(readSequence(cborMapper, cbor.getBody())).isNotEmpty().isEqualTo(ndjson);
+
+        ResponseEntity<byte[]> smile = get("/api/reservations/export?format=smile", MediaType.ALL);
+        assertThat(smile.getHeaders().getContentType()).isEqualTo(SMILE);
+        assertThat(readSequence(smileMapper, smile.getBody())).isEqualTo(ndjson);
+    }
+
+    private ResponseEntity<byte[]> get(String url, MediaType accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+
+        ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+                byte[].class);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).as(url).isTrue();
+
+        return response;
+    }
+
+    private ResponseEntity<byte[]> conditionalGet(MediaType accept, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+        headers.setIfNoneMatch(eTag);
+
+        return restTemplate.exchange("/api/customers/1", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    private static List<JsonNode> readSequence(ObjectMapper mapper, byte[] body) throws IOException {
+        return mapper.readerFor(JsonNode.class).<JsonNode>readValues(body).readAll();
+    }
+}
@@ -0,0 +1,106 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Its own database, so the version of the rooms only moves with the commits of this test
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-requests;DB_CLOSE_DELAY=-1",
+        "sync.commit-lag=1s"
+})
+class ConditionalRequestTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void listAll_ShouldNotHandOutAVersion_ThatAnEarlierStampedCommitCanStillJoin() throws Exception {
+        long now = System.currentTimeMillis();
+        CountDownLatch stamped = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // A stamps the earlier time and stays open, B stamps a later one and commits first
+            Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                insertRoom(9501, now - 100);
+                stamped.countDown();
+                awaitQuietly(release);
+            }));
+            assertThat(stamped.await(5, TimeUnit.SECONDS)).isTrue();
+            insertRoom(9502, now);
+
+            ResponseEntity<String> between = get(null);
+
+            assertThat(between.getBody()).contains("9502").doesNotContain("9501");
+            assertThat(between.getHeaders().getETag()).isNull();
+            assertThat(between.getHeaders().getLastModified()).isEqualTo(-1);
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        while (System.currentTimeMillis() <= now + 1000) {
+            Thread.sleep(50);
+        }
+
+        // Past the commit lag the version covers both commits, and it is handed out and honored
+        ResponseEntity<String> after = get(null);
+
+        assertThat(after.getBody()).contains("9501", "9502");
+        assertThat(after.getHeaders().getETag()).isNotNull();
+        assertThat(get(after.getHeaders().getETag()).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    private ResponseEntity<String> get(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+
+        if (eTag != null) {
+            headers.setIfNoneMatch(eTag);
+        }
+
+        return restTemplate.exchange("/api/rooms?size=100", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private void insertRoom(int number, long updatedAt) {
+        Timestamp timestamp = new Timestamp(updatedAt);
+
+        jdbcTemplate.update("INSERT INTO room (number, description, size, busy, active, price_per_month, " +
+                        "created_by, created_at, updated_by, updated_at) VALUES (?, 'Room', 10, false, true, 300, " +
+                        "'Admin', ?, 'Admin', ?)", number, timestamp, timestamp);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.martingarrote.reservationmanagement.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
 import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
 import com.martingarrote.reservationmanagement.services.CustomerService;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,12 +14,20 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.List;
 
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.INVALID_WATERMARK;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CustomerControllerTest {
@@ -27,9 +40,25 @@ public class CustomerControllerTest {
 
     Long defaultId;
 
+    MockHttpServletRequest servletRequest;
+
+    MockHttpServletResponse servletResponse;
+
+    ServletWebRequest request;
+
+    VersionProjection version;
+
     @Before
     public void setUp() {
         this.defaultId = 1L;
+        this.servletRequest = new MockHttpServletRequest("GET", "/");
+        this.servletResponse = new MockHttpServletResponse();
+        this.request = new ServletWebRequest(servletRequest, servletResponse);
+        this.controller.commitLag = Duration.ofSeconds(5);
+        this.version = new VersionProjection(2, Timestamp.valueOf("2023-09-01 10:00:00"));
+
+        lenient().when(service.findVersion()).thenReturn(version);
+        lenient().when(service.findVersionById(defaultId)).thenReturn(version);
     }
 
     @Test
@@ -54,31 +83,83 @@ public class CustomerControllerTest {
     }
 
     @Test
-    public void listAll_StatusOk() {
+    public void listAll_StatusOk() throws Exception {
         List<CustomerDTO> customersDTO = List.of(new CustomerDTO(), new CustomerDTO());
-        when(service.listAll()).thenReturn(customersDTO);
+        PageDTO<CustomerDTO> page = new PageDTO<>(customersDTO, "next");
+        when(service.listAll(null, null)).thenReturn(page);
 
-        ResponseEntity<?> response = controller.listAll();
+        ResponseEntity<?> response = controller.listAll(null, null, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isEqualTo(customersDTO);
+        assertThat(response.getBody()).isEqualTo(page);
     }
 
     @Test
-    public void listAll_NoContent() {
-        when(service.listAll()).thenReturn(List.of());
+    public void listAll_NoContent() throws Exception {
+        when(service.listAll(null, null)).thenReturn(new PageDTO<>(List.of(), null));
 
-        ResponseEntity<?> response = controller.listAll();
+        ResponseEntity<?> response = controller.listAll(null, null, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    public void listAll_StatusBadRequest() throws Exception {
+        when(service.listAll(null, null)).thenThrow(Exception.class);
+
+        ResponseEntity<?> response = controller.listAll(null, null, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void listAll_StatusNotModified() throws Exception {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.listAll(null, null, request);
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(service, never()).listAll(null, null);
+    }
+
+    @Test
+    public void findById_StatusOk_WithValidators() {
+        when(service.findById(defaultId)).thenReturn(new CustomerDTO());
+
+        controller.findById(defaultId, request);
+
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(version.eTag());
+        assertThat(servletResponse.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(version.lastModifiedMillis());
+    }
+
+    @Test
+    public void findById_StatusNotModified() {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.findById(defaultId, request);
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(service, never()).findById(defaultId);
+    }
+
+    @Test
+    public void findById_StatusOk_WhenModifiedSince() {
+        when(service.findById(defaultId)).thenReturn(new CustomerDTO());
+        servletRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, version.lastModifiedMillis() - 1000);
+
+        ResponseEntity<?> response = controller.findById(defaultId, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
     @Test
     public void findById_StatusOk() {
         CustomerDTO customerDTO = new CustomerDTO();
         when(service.findById(defaultId)).thenReturn(customerDTO);
 
-        ResponseEntity<?> response = controller.findById(defaultId);
+        ResponseEntity<?> response = controller.findById(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(customerDTO);
@@ -88,7 +169,7 @@ public class CustomerControllerTest {
     public void findById_StatusNotFound() {
         when(service.findById(defaultId)).thenReturn(null);
 
-        ResponseEntity<?> response = controller.findById(defaultId);
+        ResponseEntity<?> response = controller.findById(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -124,6 +205,37 @@ public class CustomerControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    public void patch_StatusOk() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().put("description", "Patched");
+        when(service.patch(patch, defaultId)).thenReturn(defaultId);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(defaultId);
+    }
+
+    @Test
+    public void patch_StatusNotFound() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().put("description", "Patched");
+        when(service.patch(patch, defaultId)).thenReturn(null);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void patch_StatusBadRequest() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().putNull("description");
+        when(service.patch(patch, defaultId)).thenThrow(Exception.class);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     public void delete_StatusNoContent() throws Exception {
         when(service.deleteById(defaultId)).thenReturn(true);
@@ -150,4 +262,33 @@ public class CustomerControllerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
     }
+
+    @Test
+    public void findChanges_StatusOk() throws Exception {
+        ChangesDTO<CustomerDTO> changes = new ChangesDTO<>(List.of(new CustomerDTO()), List.of(2L), "watermark", false);
+        when(service.findChanges("since", null)).thenReturn(changes);
+
+        ResponseEntity<?> response = controller.findChanges("since", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(changes);
+    }
+
+    @Test
+    public void findChanges_StatusBadRequest() throws Exception {
+        when(service.findChanges("garbage", null)).thenThrow(new Exception(INVALID_WATERMARK));
+
+        ResponseEntity<?> response = controller.findChanges("garbage", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void findChanges_StatusGone() throws Exception {
+        when(service.findChanges("expired", null)).thenThrow(new Exception(WATERMARK_EXPIRED));
+
+        ResponseEntity<?> response = controller.findChanges("expired", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GONE);
+    }
 }
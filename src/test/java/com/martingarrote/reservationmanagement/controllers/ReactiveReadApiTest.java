@@ -0,0 +1,94 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.services.ReservationService;
+import com.martingarrote.reservationmanagement.services.RoomService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveReadApiTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Test
+    void search_ShouldStreamSameReservationsAsBlockingSearch() throws Exception {
+        List<ReservationDTO> reservations = getNdjson("/api/reactive/reservations/search?active=true&endsIn=12",
+                ReservationDTO.class);
+
+        assertThat(reservations).isNotEmpty();
+        assertThat(reservations).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(reservationService.search(true, 12));
+    }
+
+    @Test
+    void findByCustomer_ShouldStreamSameReservationsAsBlockingRead() throws Exception {
+        List<ReservationDTO> reservations = getNdjson("/api/reactive/reservations/customer/1", ReservationDTO.class);
+
+        assertThat(reservations).isNotEmpty();
+        assertThat(reservations).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(reservationService.findByCustomer(1L));
+    }
+
+    @Test
+    void findByRoom_ShouldStreamEmpty_WhenRoomHasNoReservation() throws Exception {
+        assertThat(getNdjson("/api/reactive/reservations/room/999999", ReservationDTO.class)).isEmpty();
+    }
+
+    @Test
+    void findAll_ShouldStreamEveryRoom() throws Exception {
+        List<RoomDTO> rooms = getNdjson("/api/reactive/rooms", RoomDTO.class);
+
+        assertThat(rooms).extracting(RoomDTO::getId)
+                .containsExactlyElementsOf(roomService.listAll(null, 100).getContent().stream()
+                        .map(RoomDTO::getId).toList());
+    }
+
+    private <T> List<T> getNdjson(String url, Class<T> type) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+
+        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+                String.class);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+
+        List<T> values = new ArrayList<>();
+        if (response.getBody() == null) {
+            return values;
+        }
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        for (String line : response.getBody().split("\n")) {
+            if (!line.isBlank()) {
+                values.add(objectMapper.readValue(line, type));
+            }
+        }
+
+        return values;
+    }
+}
@@ -1,8 +1,13 @@
 package com.martingarrote.reservationmanagement.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
 import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
 import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
 import com.martingarrote.reservationmanagement.services.ReservationService;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,12 +16,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.INVALID_WATERMARK;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ReservationControllerTest {
@@ -29,9 +43,25 @@ public class ReservationControllerTest {
 
     Long defaultId;
 
+    MockHttpServletRequest servletRequest;
+
+    MockHttpServletResponse servletResponse;
+
+    ServletWebRequest request;
+
+    VersionProjection version;
+
     @Before
     public void setUp() {
         this.defaultId = 1L;
+        this.servletRequest = new MockHttpServletRequest("GET", "/");
+        this.servletResponse = new MockHttpServletResponse();
+        this.request = new ServletWebRequest(servletRequest, servletResponse);
+        this.controller.commitLag = Duration.ofSeconds(5);
+        this.version = new VersionProjection(2, Timestamp.valueOf("2023-09-01 10:00:00"));
+
+        lenient().when(service.findVersion()).thenReturn(version);
+        lenient().when(service.findVersionById(defaultId)).thenReturn(version);
     }
 
     @Test
@@ -56,31 +86,83 @@ public class ReservationControllerTest {
     }
 
     @Test
-    public void listAll_StatusOk() {
+    public void listAll_StatusOk() throws Exception {
         List<ReservationDTO> reservationDTO = List.of(new ReservationDTO(), new ReservationDTO());
-        when(service.listAll()).thenReturn(reservationDTO);
+        PageDTO<ReservationDTO> page = new PageDTO<>(reservationDTO, "next");
+        when(service.listAll(null, null, "id")).thenReturn(page);
 
-        ResponseEntity<?> response = controller.listAll();
+        ResponseEntity<?> response = controller.listAll(null, null, "id", request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isEqualTo(reservationDTO);
+        assertThat(response.getBody()).isEqualTo(page);
     }
 
     @Test
-    public void listAll_StatusNoContent() {
-        when(service.listAll()).thenReturn(List.of());
+    public void listAll_StatusNoContent() throws Exception {
+        when(service.listAll(null, null, "id")).thenReturn(new PageDTO<>(List.of(), null));
 
-        ResponseEntity<?> response = controller.listAll();
+        ResponseEntity<?> response = controller.listAll(null, null, "id", request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    public void listAll_StatusBadRequest() throws Exception {
+        when(service.listAll(null, null, "id")).thenThrow(Exception.class);
+
+        ResponseEntity<?> response = controller.listAll(null, null, "id", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void listAll_StatusNotModified() throws Exception {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.listAll(null, null, "id", request);
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(service, never()).listAll(null, null, "id");
+    }
+
+    @Test
+    public void findById_StatusOk_WithValidators() {
+        when(service.findById(defaultId)).thenReturn(new ReservationDTO());
+
+        controller.findById(defaultId, request);
+
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(version.eTag());
+        assertThat(servletResponse.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(version.lastModifiedMillis());
+    }
+
+    @Test
+    public void findById_StatusNotModified() {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.findById(defaultId, request);
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(service, never()).findById(defaultId);
+    }
+
+    @Test
+    public void findById_StatusOk_WhenModifiedSince() {
+        when(service.findById(defaultId)).thenReturn(new ReservationDTO());
+        servletRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, version.lastModifiedMillis() - 1000);
+
+        ResponseEntity<?> response = controller.findById(defaultId, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
     @Test
     public void findById_StatusOk() {
         ReservationDTO reservationDTO = new ReservationDTO();
         when(service.findById(defaultId)).thenReturn(reservationDTO);
 
-        ResponseEntity<?> response = controller.findById(defaultId);
+        ResponseEntity<?> response = controller.findById(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(reservationDTO);
@@ -90,7 +172,7 @@ public class ReservationControllerTest {
     public void findById_StatusNotFound() {
         when(service.findById(defaultId)).thenReturn(null);
 
-        ResponseEntity<?> response = controller.findById(defaultId);
+        ResponseEntity<?> response = controller.findById(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -102,7 +184,7 @@ public class ReservationControllerTest {
         List<ReservationDTO> reservationDTOS = List.of(new ReservationDTO(), new ReservationDTO());
         when(service.search(active, endsIn)).thenReturn(reservationDTOS);
 
-        ResponseEntity<?> response = controller.search(active, endsIn);
+        ResponseEntity<?> response = controller.search(active, endsIn, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(reservationDTOS);
@@ -114,11 +196,33 @@ public class ReservationControllerTest {
         int endsIn = 5;
         when(service.search(active, endsIn)).thenReturn(List.of());
 
-        ResponseEntity<?> response = controller.search(active, endsIn);
+        ResponseEntity<?> response = controller.search(active, endsIn, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    public void search_WithEndsIn_ShouldNotAnswerNotModified_AfterTheDayChanged() {
+        // An ETag taken before midnight: no reservation changed since, but the window moved
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+        when(service.search(null, 5)).thenReturn(List.of(new ReservationDTO()));
+
+        ResponseEntity<?> response = controller.search(null, 5, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(version.asOf(LocalDate.now()).eTag());
+    }
+
+    @Test
+    public void search_WithoutEndsIn_StatusNotModified() {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.search(true, null, request);
+
+        assertThat(response).isNull();
+        verify(service, never()).search(true, null);
+    }
+
     @Test
     public void findByCustomer_StatusOk() {
         CustomerDTO customerDTO = new CustomerDTO();
@@ -129,7 +233,7 @@ public class ReservationControllerTest {
         List<ReservationDTO> reservationDTOS = List.of(reservationDTO);
         when(service.findByCustomer(defaultId)).thenReturn(reservationDTOS);
 
-        ResponseEntity<?> response = controller.findByCustomer(defaultId);
+        ResponseEntity<?> response = controller.findByCustomer(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(reservationDTOS);
@@ -140,7 +244,7 @@ public class ReservationControllerTest {
         List<ReservationDTO> reservationDTOS = List.of();
         when(service.findByCustomer(defaultId)).thenReturn(reservationDTOS);
 
-        ResponseEntity<?> response = controller.findByCustomer(defaultId);
+        ResponseEntity<?> response = controller.findByCustomer(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -155,7 +259,7 @@ public class ReservationControllerTest {
         List<ReservationDTO> reservationDTOS = List.of(reservationDTO);
         when(service.findByRoom(defaultId)).thenReturn(reservationDTOS);
 
-        ResponseEntity<?> response = controller.findByRoom(defaultId);
+        ResponseEntity<?> response = controller.findByRoom(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(reservationDTOS);
@@ -166,7 +270,7 @@ public class ReservationControllerTest {
         List<ReservationDTO> reservationDTOS = List.of();
         when(service.findByRoom(defaultId)).thenReturn(reservationDTOS);
 
-        ResponseEntity<?> response = controller.findByRoom(defaultId);
+        ResponseEntity<?> response = controller.findByRoom(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -202,6 +306,37 @@ public class ReservationControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    public void patch_StatusOk() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().put("description", "Patched");
+        when(service.patch(patch, defaultId)).thenReturn(defaultId);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(defaultId);
+    }
+
+    @Test
+    public void patch_StatusNotFound() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().put("description", "Patched");
+        when(service.patch(patch, defaultId)).thenReturn(null);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void patch_StatusBadRequest() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().putNull("description");
+        when(service.patch(patch, defaultId)).thenThrow(Exception.class);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     public void delete_StatusNoContent() throws Exception {
         when(service.deleteById(defaultId)).thenReturn(true);
@@ -219,4 +354,33 @@ public class ReservationControllerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
+
+    @Test
+    public void findChanges_StatusOk() throws Exception {
+        ChangesDTO<ReservationDTO> changes = new ChangesDTO<>(List.of(new ReservationDTO()), List.of(2L), "watermark", false);
+        when(service.findChanges("since", null)).thenReturn(changes);
+
+        ResponseEntity<?> response = controller.findChanges("since", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(changes);
+    }
+
+    @Test
+    public void findChanges_StatusBadRequest() throws Exception {
+        when(service.findChanges("garbage", null)).thenThrow(new Exception(INVALID_WATERMARK));
+
+        ResponseEntity<?> response = controller.findChanges("garbage", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void findChanges_StatusGone() throws Exception {
+        when(service.findChanges("expired", null)).thenThrow(new Exception(WATERMARK_EXPIRED));
+
+        ResponseEntity<?> response = controller.findChanges("expired", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GONE);
+    }
 }
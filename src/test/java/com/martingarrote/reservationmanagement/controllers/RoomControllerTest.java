@@ -1,6 +1,13 @@
 package com.martingarrote.reservationmanagement.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import com.martingarrote.reservationmanagement.services.RoomOccupancyService;
 import com.martingarrote.reservationmanagement.services.RoomService;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,12 +16,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.List;
 
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.INVALID_WATERMARK;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RoomControllerTest {
@@ -22,14 +38,33 @@ public class RoomControllerTest {
     @Mock
     RoomService service;
 
+    @Mock
+    RoomOccupancyService occupancyService;
+
     @InjectMocks
     RoomController controller;
 
     Long defaultId;
 
+    MockHttpServletRequest servletRequest;
+
+    MockHttpServletResponse servletResponse;
+
+    ServletWebRequest request;
+
+    VersionProjection version;
+
     @Before
     public void setUp() {
         defaultId = 1L;
+        servletRequest = new MockHttpServletRequest("GET", "/");
+        servletResponse = new MockHttpServletResponse();
+        request = new ServletWebRequest(servletRequest, servletResponse);
+        controller.commitLag = Duration.ofSeconds(5);
+        version = new VersionProjection(2, Timestamp.valueOf("2023-09-01 10:00:00"));
+
+        lenient().when(service.findVersion()).thenReturn(version);
+        lenient().when(service.findVersionById(defaultId)).thenReturn(version);
     }
 
 
@@ -55,31 +90,98 @@ public class RoomControllerTest {
     }
 
     @Test
-    public void listAll_StatusOk() {
+    public void listAll_StatusOk() throws Exception {
         List<RoomDTO> roomDTO = List.of(new RoomDTO(), new RoomDTO());
-        when(service.listAll()).thenReturn(roomDTO);
+        PageDTO<RoomDTO> page = new PageDTO<>(roomDTO, "next");
+        when(service.listAll(null, null)).thenReturn(page);
 
-        ResponseEntity<?> response = controller.listAll();
+        ResponseEntity<?> response = controller.listAll(null, null, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isEqualTo(roomDTO);
+        assertThat(response.getBody()).isEqualTo(page);
     }
 
     @Test
-    public void listAll_StatusNoContent() {
-        when(service.listAll()).thenReturn(List.of());
+    public void listAll_StatusNoContent() throws Exception {
+        when(service.listAll(null, null)).thenReturn(new PageDTO<>(List.of(), null));
 
-        ResponseEntity<?> response = controller.listAll();
+        ResponseEntity<?> response = controller.listAll(null, null, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    public void listAll_StatusBadRequest() throws Exception {
+        when(service.listAll(null, null)).thenThrow(Exception.class);
+
+        ResponseEntity<?> response = controller.listAll(null, null, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void export_StatusOk() {
+        ResponseEntity<?> response = controller.export("csv");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(ExportFormat.CSV.getMediaType());
+    }
+
+    @Test
+    public void export_StatusBadRequest() {
+        ResponseEntity<?> response = controller.export("xml");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void listAll_StatusNotModified() throws Exception {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.listAll(null, null, request);
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(service, never()).listAll(null, null);
+    }
+
+    @Test
+    public void findById_StatusOk_WithValidators() {
+        when(service.findById(defaultId)).thenReturn(new RoomDTO());
+
+        controller.findById(defaultId, request);
+
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(version.eTag());
+        assertThat(servletResponse.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(version.lastModifiedMillis());
+    }
+
+    @Test
+    public void findById_StatusNotModified() {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, version.eTag());
+
+        ResponseEntity<?> response = controller.findById(defaultId, request);
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(service, never()).findById(defaultId);
+    }
+
+    @Test
+    public void findById_StatusOk_WhenModifiedSince() {
+        when(service.findById(defaultId)).thenReturn(new RoomDTO());
+        servletRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, version.lastModifiedMillis() - 1000);
+
+        ResponseEntity<?> response = controller.findById(defaultId, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
     @Test
     public void findById_StatusOk() {
         RoomDTO roomDTO = new RoomDTO();
         when(service.findById(defaultId)).thenReturn(roomDTO);
 
-        ResponseEntity<?> response = controller.findById(defaultId);
+        ResponseEntity<?> response = controller.findById(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(roomDTO);
@@ -89,7 +191,7 @@ public class RoomControllerTest {
     public void findById_StatusNotFound() {
         when(service.findById(defaultId)).thenReturn(null);
 
-        ResponseEntity<?> response = controller.findById(defaultId);
+        ResponseEntity<?> response = controller.findById(defaultId, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -101,7 +203,7 @@ public class RoomControllerTest {
         List<RoomDTO> roomDTOS = List.of(roomDTO);
         when(service.findByBusy(true)).thenReturn(roomDTOS);
 
-        ResponseEntity<?> response = controller.findByBusy(true);
+        ResponseEntity<?> response = controller.findByBusy(true, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(roomDTOS);
@@ -112,7 +214,7 @@ public class RoomControllerTest {
         List<RoomDTO> roomDTOS = List.of();
         when(service.findByBusy(false)).thenReturn(roomDTOS);
 
-        ResponseEntity<?> response = controller.findByBusy(false);
+        ResponseEntity<?> response = controller.findByBusy(false, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -148,6 +250,37 @@ public class RoomControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    public void patch_StatusOk() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().put("description", "Patched");
+        when(service.patch(patch, defaultId)).thenReturn(defaultId);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(defaultId);
+    }
+
+    @Test
+    public void patch_StatusNotFound() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().put("description", "Patched");
+        when(service.patch(patch, defaultId)).thenReturn(null);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void patch_StatusBadRequest() throws Exception {
+        JsonNode patch = JsonNodeFactory.instance.objectNode().putNull("description");
+        when(service.patch(patch, defaultId)).thenThrow(Exception.class);
+
+        ResponseEntity<?> response = controller.patch(patch, defaultId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     public void delete_StatusNoContent() throws Exception {
         when(service.deleteById(defaultId)).thenReturn(true);
@@ -174,4 +307,41 @@ public class RoomControllerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
     }
+
+    @Test
+    public void findChanges_StatusOk() throws Exception {
+        ChangesDTO<RoomDTO> changes = new ChangesDTO<>(List.of(new RoomDTO()), List.of(2L), "watermark", false);
+        when(service.findChanges("since", null)).thenReturn(changes);
+
+        ResponseEntity<?> response = controller.findChanges("since", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(changes);
+    }
+
+    @Test
+    public void findChanges_StatusBadRequest() throws Exception {
+        when(service.findChanges("garbage", null)).thenThrow(new Exception(INVALID_WATERMARK));
+
+        ResponseEntity<?> response = controller.findChanges("garbage", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void findChanges_StatusGone() throws Exception {
+        when(service.findChanges("expired", null)).thenThrow(new Exception(WATERMARK_EXPIRED));
+
+        ResponseEntity<?> response = controller.findChanges("expired", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GONE);
+    }
+
+    @Test
+    public void streamOccupancy_ShouldReturnTheSubscription() {
+        SseEmitter emitter = new SseEmitter();
+        when(occupancyService.subscribe()).thenReturn(emitter);
+
+        assertThat(controller.streamOccupancy()).isSameAs(emitter);
+    }
 }
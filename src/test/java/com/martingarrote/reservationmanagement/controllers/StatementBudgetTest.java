@@ -0,0 +1,153 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.services.CustomerService;
+import com.martingarrote.reservationmanagement.services.RoomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.martingarrote.reservationmanagement.configurations.StatementCountFilter.STATEMENTS_METRIC;
+import static com.martingarrote.reservationmanagement.configurations.StatementCountFilter.STATEMENT_COUNT_HEADER;
+import static com.martingarrote.reservationmanagement.controllers.StatementCountMatchers.statementsAtMost;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Every endpoint gets a budget of SQL statements, so that a change adding queries to a request
+// (a lazy association touched in a loop, a lookup moved into a mapper) fails here instead of in production
+@SpringBootTest(properties = "statements.header.enabled=true")
+@AutoConfigureMockMvc
+class StatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Test
+    void customerEndpoints_ShouldStayWithinTheirStatementBudgets() throws Exception {
+        CustomerDTO customer = new CustomerDTO(null, "Budget customer", LocalDate.of(1990, 1, 1),
+                "55566677788", "budget@example.com");
+
+        String id = mockMvc.perform(post("/api/customers").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(customer)))
+                .andExpect(status().isCreated())
+                .andExpect(statementsAtMost(1))
+                .andReturn().getResponse().getContentAsString();
+        customer.setName("Renamed budget customer");
+
+        expect(get("/api/customers"), 2);
+        expect(get("/api/customers/changes"), 3);
+        expect(get("/api/customers/" + id), 2);
+        expect(put("/api/customers/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(customer)), 1);
+        expect(patch("/api/customers/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"patched.budget@example.com\"}"), 1);
+        expect(delete("/api/customers/" + id), 2);
+    }
+
+    @Test
+    void roomEndpoints_ShouldStayWithinTheirStatementBudgets() throws Exception {
+        RoomDTO room = new RoomDTO(null, 7001, "Budget room", 30D, 500D, false, true);
+
+        String id = mockMvc.perform(post("/api/rooms").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(room)))
+                .andExpect(status().isCreated())
+                .andExpect(statementsAtMost(1))
+                .andReturn().getResponse().getContentAsString();
+        room.setDescription("Renamed budget room");
+
+        expect(get("/api/rooms"), 2);
+        expect(get("/api/rooms/changes"), 3);
+        expect(get("/api/rooms/status").param("busy", "false"), 2);
+        expect(get("/api/rooms/" + id), 2);
+        expect(put("/api/rooms/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(room)), 1);
+        expect(patch("/api/rooms/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"pricePerMonth\": 650}"), 1);
+        expect(delete("/api/rooms/" + id), 2);
+    }
+
+    @Test
+    void reservationEndpoints_ShouldStayWithinTheirStatementBudgets() throws Exception {
+        CustomerDTO customer = customerService.findById(customerService.create(new CustomerDTO(null,
+                "Budget guest", LocalDate.of(1985, 5, 5), "99988877766", "guest@example.com")));
+        RoomDTO room = roomService.findById(roomService.create(
+                new RoomDTO(null, 7002, "Budget reserved room", 40D, 800D, false, true)));
+        ReservationDTO reservation = new ReservationDTO(null, "BUDGET-1", customer, room, 2400D, "Budget reservation",
+                3, LocalDate.now(), LocalDate.now().plusMonths(3), true);
+
+        String id = mockMvc.perform(post("/api/reservations").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservation)))
+                .andExpect(status().isCreated())
+                .andExpect(statementsAtMost(3))
+                .andReturn().getResponse().getContentAsString();
+        reservation.setDescription("Renamed budget reservation");
+
+        expect(get("/api/reservations"), 2);
+        expect(get("/api/reservations/changes"), 3);
+        expect(get("/api/reservations/search").param("active", "true"), 2);
+        expect(get("/api/reservations/customer/" + customer.getId()), 2);
+        expect(get("/api/reservations/room/" + room.getId()), 2);
+        expect(get("/api/reservations/" + id), 2);
+        expect(put("/api/reservations/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reservation)), 5);
+        expect(patch("/api/reservations/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"Patched budget reservation\"}"), 2);
+        expect(delete("/api/reservations/" + id), 5);
+    }
+
+    @Test
+    void exportEndpoints_ShouldCountTheStatementsOfTheirAsyncTask() throws Exception {
+        for (String export : List.of("/api/customers/export", "/api/rooms/export", "/api/reservations/export")) {
+            MvcResult result = mockMvc.perform(get(export).param("format", "csv"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // The single streamed query runs on the async executor, not on the request thread
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(STATEMENT_COUNT_HEADER, "1"));
+
+            assertThat(meterRegistry.get(STATEMENTS_METRIC).tag("method", "GET").tag("uri", export)
+                    .summary().max()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void requests_ShouldBeRecordedInTheStatementHistogram() throws Exception {
+        expect(get("/api/rooms/status").param("busy", "true"), 2);
+
+        assertThat(meterRegistry.get(STATEMENTS_METRIC).tag("method", "GET").tag("uri", "/api/rooms/status")
+                .summary().count()).isPositive();
+    }
+
+    private void expect(RequestBuilder request, int maxStatements) throws Exception {
+        mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(statementsAtMost(maxStatements));
+    }
+}
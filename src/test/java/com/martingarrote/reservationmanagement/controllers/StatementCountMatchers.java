@@ -0,0 +1,27 @@
+package com.martingarrote.reservationmanagement.controllers;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static com.martingarrote.reservationmanagement.configurations.StatementCountFilter.STATEMENT_COUNT_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement budgets for MockMvc requests, read from the header the StatementCountFilter writes with
+// statements.header.enabled=true. A budget that starts failing usually means a new lazy load or an N+1
+public final class StatementCountMatchers {
+
+    private StatementCountMatchers() {
+    }
+
+    public static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(STATEMENT_COUNT_HEADER);
+
+            assertThat(header).as("%s header, is statements.header.enabled set?", STATEMENT_COUNT_HEADER)
+                    .isNotNull();
+            assertThat(Integer.parseInt(header))
+                    .as("SQL statements run by %s %s", result.getRequest().getMethod(),
+                            result.getRequest().getRequestURI())
+                    .isLessThanOrEqualTo(max);
+        };
+    }
+}
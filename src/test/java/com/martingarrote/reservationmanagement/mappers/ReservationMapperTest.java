@@ -0,0 +1,78 @@
+package com.martingarrote.reservationmanagement.mappers;
+
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReservationMapperTest {
+
+    ReservationMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ReservationMapper();
+        mapper.customerMapper = new CustomerMapper();
+        mapper.roomMapper = new RoomMapper();
+    }
+
+    @Test
+    public void toDTO_ShouldMapNestedCustomerAndRoom() {
+        Reservation reservation = createReservationEntity();
+
+        ReservationDTO reservationDTO = mapper.toDTO(reservation);
+
+        assertThat(reservationDTO).usingRecursiveComparison().isEqualTo(createReservationDTO());
+    }
+
+    @Test
+    public void toEntity_ShouldMapNestedCustomerAndRoom() {
+        ReservationDTO reservationDTO = createReservationDTO();
+
+        Reservation reservation = mapper.toEntity(reservationDTO);
+
+        assertThat(reservation).usingRecursiveComparison().isEqualTo(createReservationEntity());
+    }
+
+    @Test
+    public void toEntity_ShouldKeepDefaultsForMissingValues() {
+        ReservationDTO reservationDTO = new ReservationDTO();
+        reservationDTO.setReservedRoom(new RoomDTO());
+
+        Reservation reservation = mapper.toEntity(reservationDTO);
+
+        assertThat(reservation.getId()).isZero();
+        assertThat(reservation.getCustomer()).isNull();
+        assertThat(reservation.getReservedRoom().isBusy()).isFalse();
+        assertThat(reservation.isActive()).isFalse();
+    }
+
+    @Test
+    public void toDTO_ShouldReturnNull() {
+        assertThat(mapper.toDTO(null)).isNull();
+    }
+
+    public Reservation createReservationEntity() {
+        Customer customer = new Customer(1L, "Jose", LocalDate.of(1990, 10, 5), "12345678910", "email@gmail.com");
+        Room room = new Room(1L, 1, "Room 1", 30d, 500d, false, true);
+
+        return new Reservation(1L, "RES001", customer, room, 1000.0, "Reservation test",
+                12, LocalDate.of(2023, 10, 1), LocalDate.of(2024, 10, 1), true);
+    }
+
+    public ReservationDTO createReservationDTO() {
+        CustomerDTO customerDTO = new CustomerDTO(1L, "Jose", LocalDate.of(1990, 10, 5), "12345678910", "email@gmail.com");
+        RoomDTO roomDTO = new RoomDTO(1L, 1, "Room 1", 30D, 500D, false, true);
+
+        return new ReservationDTO(1L, "RES001", customerDTO, roomDTO, 1000.0, "Reservation test",
+                12, LocalDate.of(2023, 10, 1), LocalDate.of(2024, 10, 1), true);
+    }
+}
@@ -0,0 +1,65 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CustomerRepositoryTest {
+
+    @Autowired
+    private CustomerRepository repository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void deleteByIdIfUnreserved_ShouldDeleteUnreservedCustomer() {
+        long id = testEntityManager.persistAndGetId(new Customer(0, "Unreserved customer", LocalDate.of(1990, 1, 1), "91000000001", "unreserved@example.com"), Long.class);
+        testEntityManager.flush();
+        statistics.clear();
+
+        int deleted = repository.deleteByIdIfUnreserved(id);
+
+        assertEquals(1, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0L, ((Number) testEntityManager.getEntityManager()
+                .createNativeQuery("SELECT COUNT(*) FROM customer WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult()).longValue());
+    }
+
+    @Test
+    void deleteByIdIfUnreserved_ShouldNotDeleteReservedCustomer() {
+        int deleted = repository.deleteByIdIfUnreserved(1L);
+
+        assertEquals(0, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deleteByIdIfUnreserved_ShouldNotDeleteMissingCustomer() {
+        assertEquals(0, repository.deleteByIdIfUnreserved(999_999L));
+    }
+}
@@ -0,0 +1,78 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.entities.OutboxEvent;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class OutboxEventRepositoryTest {
+
+    private static final long FIRST_AGGREGATE_ID = 940_001L;
+
+    private static final long SECOND_AGGREGATE_ID = 940_002L;
+
+    @Autowired
+    private OutboxEventRepository repository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Test
+    void claimBatch_ShouldOnlyClaimTheOldestEventOfEachAggregate() {
+        long first = persist(FIRST_AGGREGATE_ID, OutboxEventType.CREATED, 0);
+        persist(FIRST_AGGREGATE_ID, OutboxEventType.UPDATED, 0);
+        long second = persist(SECOND_AGGREGATE_ID, OutboxEventType.CREATED, 0);
+
+        List<Long> claimed = claimedIds();
+
+        assertEquals(List.of(first, second), claimed);
+    }
+
+    @Test
+    void claimBatch_ShouldHoldBackTheAggregate_WhileItsOldestEventWaitsForARetry() {
+        persist(FIRST_AGGREGATE_ID, OutboxEventType.CREATED, 60_000);
+        persist(FIRST_AGGREGATE_ID, OutboxEventType.UPDATED, 0);
+        long second = persist(SECOND_AGGREGATE_ID, OutboxEventType.CREATED, 0);
+
+        List<Long> claimed = claimedIds();
+
+        assertEquals(List.of(second), claimed);
+    }
+
+    @Test
+    void findOldestCreatedAt_ShouldReturnTheOldestPendingEvent() {
+        long id = persist(FIRST_AGGREGATE_ID, OutboxEventType.CREATED, 0);
+        Timestamp createdAt = testEntityManager.find(OutboxEvent.class, id).getCreatedAt();
+
+        assertFalse(repository.findOldestCreatedAt().after(createdAt));
+    }
+
+    private List<Long> claimedIds() {
+        return repository.claimBatch(new Timestamp(System.currentTimeMillis()), PageRequest.of(0, 1000)).stream()
+                .filter(event -> event.getAggregateId() == FIRST_AGGREGATE_ID
+                        || event.getAggregateId() == SECOND_AGGREGATE_ID)
+                .map(OutboxEvent::getId)
+                .toList();
+    }
+
+    private long persist(long aggregateId, OutboxEventType type, long retryInMillis) {
+        OutboxEvent event = new OutboxEvent(EntityType.RESERVATION, aggregateId, type, "{}",
+                new Timestamp(System.currentTimeMillis() - 1000));
+        event.setNextAttemptAt(new Timestamp(System.currentTimeMillis() + retryInMillis));
+
+        long id = testEntityManager.persistAndGetId(event, Long.class);
+        testEntityManager.flush();
+
+        return id;
+    }
+}
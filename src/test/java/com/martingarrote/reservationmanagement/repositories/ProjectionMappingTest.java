@@ -0,0 +1,87 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.mappers.CustomerMapper;
+import com.martingarrote.reservationmanagement.mappers.ReservationMapper;
+import com.martingarrote.reservationmanagement.mappers.RoomMapper;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import com.martingarrote.reservationmanagement.models.projections.CustomerProjection;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import com.martingarrote.reservationmanagement.models.projections.RoomProjection;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The same rows read through the entity mappers and through the projection queries have to give the same DTOs,
+// so a field added to one path and not to the other (or a misplaced constructor expression column) fails here
+@DataJpaTest
+@Import({CustomerMapper.class, RoomMapper.class, ReservationMapper.class})
+class ProjectionMappingTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private MapperInterface<Customer, CustomerDTO> customerMapper;
+
+    @Autowired
+    private MapperInterface<Room, RoomDTO> roomMapper;
+
+    @Autowired
+    private MapperInterface<Reservation, ReservationDTO> reservationMapper;
+
+    @Test
+    void customerProjection_ShouldMapLikeTheCustomerMapper() {
+        List<Customer> customers = customerRepository.findAll();
+        List<Long> ids = customers.stream().map(Customer::getId).toList();
+
+        List<CustomerDTO> projected = customerRepository.findByIdIn(ids).stream()
+                .map(CustomerProjection::toDTO).toList();
+
+        assertThat(customers).isNotEmpty();
+        assertThat(projected).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(customers.stream().map(customerMapper::toDTO).toList());
+    }
+
+    @Test
+    void roomProjection_ShouldMapLikeTheRoomMapper() {
+        List<Room> rooms = roomRepository.findAll();
+        List<Long> ids = rooms.stream().map(Room::getId).toList();
+
+        List<RoomDTO> projected = roomRepository.findByIdIn(ids).stream()
+                .map(RoomProjection::toDTO).toList();
+
+        assertThat(rooms).isNotEmpty();
+        assertThat(projected).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(rooms.stream().map(roomMapper::toDTO).toList());
+    }
+
+    @Test
+    void reservationProjection_ShouldMapLikeTheReservationMapper() {
+        List<Reservation> reservations = reservationRepository.findAll();
+        List<Long> ids = reservations.stream().map(Reservation::getId).toList();
+
+        List<ReservationDTO> projected = reservationRepository.findByIdIn(ids).stream()
+                .map(ReservationProjection::toDTO).toList();
+
+        assertThat(reservations).isNotEmpty();
+        assertThat(projected).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(reservations.stream().map(reservationMapper::toDTO).toList());
+    }
+}
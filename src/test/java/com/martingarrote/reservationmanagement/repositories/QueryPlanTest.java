@@ -0,0 +1,133 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Explains the SQL Hibernate really sends, so the plans follow any change to the repository queries
+@DataJpaTest(properties = {
+        "spring.jpa.generate-ddl=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.martingarrote.reservationmanagement.repositories.QueryPlanTest$CapturingStatementInspector"
+})
+class QueryPlanTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void reservationFindByCustomerId_ShouldUseCustomerIndex() {
+        reservationRepository.findByCustomerId(1L);
+
+        assertThat(explainLastStatement()).contains("IDX_RESERVATION_CUSTOMER_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void reservationFindByReservedRoomId_ShouldUseRoomIndex() {
+        reservationRepository.findByReservedRoomId(1L);
+
+        assertThat(explainLastStatement()).contains("IDX_RESERVATION_RESERVED_ROOM_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void reservationFindByActive_ShouldUseActiveIndex() {
+        reservationRepository.findByActive(true);
+
+        assertThat(explainLastStatement()).contains("IDX_RESERVATION_ACTIVE").doesNotContain("tableScan");
+    }
+
+    @Test
+    void reservationFindByEndDateBetween_ShouldUseEndDateIndex() {
+        reservationRepository.findByEndDateBetween(LocalDate.now(), LocalDate.now().plusMonths(1));
+
+        assertThat(explainLastStatement()).contains("IDX_RESERVATION_END_DATE_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void reservationFindPageOrderById_ShouldUsePrimaryKey() {
+        reservationRepository.findPageOrderById(0L, PageRequest.of(0, 10));
+
+        assertThat(explainLastStatement()).contains("PRIMARY_KEY").doesNotContain("tableScan");
+    }
+
+    @Test
+    void reservationFindFirstPageOrderByEndDate_ShouldUseEndDateIndex() {
+        reservationRepository.findFirstPageOrderByEndDate(PageRequest.of(0, 10));
+
+        assertThat(explainLastStatement()).contains("IDX_RESERVATION_END_DATE_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void reservationFindPageOrderByEndDate_ShouldUseEndDateIndex() {
+        reservationRepository.findPageOrderByEndDate(LocalDate.of(2023, 12, 1), 1L, PageRequest.of(0, 10));
+
+        assertThat(explainLastStatement()).contains("IDX_RESERVATION_END_DATE_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void roomFindByBusy_ShouldUseBusyIndex() {
+        roomRepository.findByBusy(true);
+
+        assertThat(explainLastStatement()).contains("IDX_ROOM_BUSY").doesNotContain("tableScan");
+    }
+
+    @Test
+    void roomFindPageOrderById_ShouldUsePrimaryKey() {
+        roomRepository.findPageOrderById(0L, PageRequest.of(0, 10));
+
+        assertThat(explainLastStatement()).contains("PRIMARY_KEY").doesNotContain("tableScan");
+    }
+
+    @Test
+    void customerFindPageOrderById_ShouldUsePrimaryKey() {
+        customerRepository.findPageOrderById(0L, PageRequest.of(0, 10));
+
+        assertThat(explainLastStatement()).contains("PRIMARY_KEY").doesNotContain("tableScan");
+    }
+
+    private String explainLastStatement() {
+        List<String> statements = CapturingStatementInspector.STATEMENTS;
+        assertThat(statements).isNotEmpty();
+
+        String sql = statements.get(statements.size() - 1);
+        Object[] parameters = new Object[(int) sql.chars().filter(character -> character == '?').count()];
+
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
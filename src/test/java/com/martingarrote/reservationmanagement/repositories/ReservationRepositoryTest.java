@@ -0,0 +1,163 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReservationRepositoryTest {
+
+    @Autowired
+    private ReservationRepository repository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findAll_ShouldUseASingleStatement() {
+        assertSingleStatement(repository::findAll);
+    }
+
+    @Test
+    void findByActive_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findByActive(true));
+    }
+
+    @Test
+    void findByEndDateBetween_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findByEndDateBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void findByCustomerId_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findByCustomerId(1L));
+    }
+
+    @Test
+    void findByReservedRoomId_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findByReservedRoomId(1L));
+    }
+
+    @Test
+    void findPageOrderById_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findPageOrderById(0L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findFirstPageOrderByEndDate_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findFirstPageOrderByEndDate(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findPageOrderByEndDate_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findPageOrderByEndDate(LocalDate.of(2000, 1, 1), 0L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findById_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> repository.findById(1L).stream().toList());
+    }
+
+    @Test
+    void streamAllOrderById_ShouldUseASingleStatement() {
+        assertSingleStatement(() -> {
+            try (Stream<ReservationProjection> reservations = repository.streamAllOrderById()) {
+                return reservations.toList();
+            }
+        });
+    }
+
+    @Test
+    void findByCustomerId_ShouldProjectCustomerAndRoom() {
+        ReservationProjection reservation = repository.findByCustomerId(1L).get(0);
+
+        assertEquals(1L, reservation.customerId());
+        assertEquals(1L, reservation.roomId());
+        assertEquals("RES001", reservation.toDTO().getCode());
+    }
+
+    @Test
+    void findVersionById_ShouldChangeWhenTheReservedRoomChanges() {
+        VersionProjection before = repository.findVersionById(1L);
+
+        // The reservation body embeds its room, so a room update has to move the reservation validators too
+        testEntityManager.getEntityManager()
+                .createNativeQuery("UPDATE room SET updated_at = :updatedAt WHERE id = 1")
+                .setParameter("updatedAt", new Timestamp(System.currentTimeMillis() + 60_000))
+                .executeUpdate();
+        statistics.clear();
+        VersionProjection after = repository.findVersionById(1L);
+
+        assertTrue(after.exists());
+        assertNotEquals(before.eTag(), after.eTag());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findVersion_ShouldChangeWhenACustomerChanges() {
+        VersionProjection before = repository.findVersion();
+
+        testEntityManager.getEntityManager()
+                .createNativeQuery("UPDATE customer SET updated_at = :updatedAt WHERE id = 2")
+                .setParameter("updatedAt", new Timestamp(System.currentTimeMillis() + 60_000))
+                .executeUpdate();
+        statistics.clear();
+        VersionProjection after = repository.findVersion();
+
+        assertEquals(before.lastDeleted(), after.lastDeleted());
+        assertNotEquals(before.eTag(), after.eTag());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findVersionById_ShouldNotExistForMissingReservation() {
+        assertFalse(repository.findVersionById(999_999L).exists());
+    }
+
+    private void assertSingleStatement(Supplier<List<?>> query) {
+        testEntityManager.clear();
+        statistics.clear();
+
+        List<?> reservations = query.get();
+        reservations.stream()
+                .filter(Reservation.class::isInstance)
+                .map(Reservation.class::cast)
+                .forEach(reservation -> {
+                    reservation.getCustomer().getName();
+                    reservation.getReservedRoom().getNumber();
+                });
+
+        assertFalse(reservations.isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,177 @@
+package com.martingarrote.reservationmanagement.repositories;
+
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import com.martingarrote.reservationmanagement.models.entities.Tombstone;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.projections.ChangeKey;
+import com.martingarrote.reservationmanagement.models.projections.VersionProjection;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RoomRepositoryTest {
+
+    @Autowired
+    private RoomRepository repository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void deleteByIdIfUnreserved_ShouldDeleteUnreservedRoom() {
+        long id = testEntityManager.persistAndGetId(new Room(0, 9100, "Unreserved room", 30d, 500d, false, true), Long.class);
+        testEntityManager.flush();
+        statistics.clear();
+
+        int deleted = repository.deleteByIdIfUnreserved(id);
+
+        assertEquals(1, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0L, ((Number) testEntityManager.getEntityManager()
+                .createNativeQuery("SELECT COUNT(*) FROM room WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult()).longValue());
+    }
+
+    @Test
+    void deleteByIdIfUnreserved_ShouldNotDeleteReservedRoom() {
+        int deleted = repository.deleteByIdIfUnreserved(1L);
+
+        assertEquals(0, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deleteByIdIfUnreserved_ShouldNotDeleteMissingRoom() {
+        assertEquals(0, repository.deleteByIdIfUnreserved(999_999L));
+    }
+
+    @Test
+    void updateById_ShouldUpdateOnlyGivenColumnsInOneStatement() {
+        long id = testEntityManager.persistAndGetId(new Room(0, 9101, "Room to patch", 30d, 500d, false, true), Long.class);
+        testEntityManager.flush();
+        statistics.clear();
+
+        int updated = repository.updateById(Room.class, id, Map.of("description", "Patched room"));
+
+        assertEquals(1, updated);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        Object[] row = (Object[]) testEntityManager.getEntityManager()
+                .createNativeQuery("SELECT number, description FROM room WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+        assertEquals(List.of(9101, "Patched room"), List.of(row));
+    }
+
+    @Test
+    void updateById_ShouldNotUpdateMissingRoom() {
+        assertEquals(0, repository.updateById(Room.class, 999_999L, Map.of("description", "Patched room")));
+    }
+
+    @Test
+    void findVersionById_ShouldChangeAfterUpdate() {
+        long id = testEntityManager.persistAndGetId(new Room(0, 9102, "Versioned room", 30d, 500d, false, true), Long.class);
+        testEntityManager.flush();
+        VersionProjection before = repository.findVersionById(id);
+
+        repository.updateById(Room.class, id, Map.of("updatedAt", new Timestamp(System.currentTimeMillis())));
+        statistics.clear();
+        VersionProjection after = repository.findVersionById(id);
+
+        assertTrue(after.exists());
+        assertNotEquals(before.eTag(), after.eTag());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findVersionById_ShouldNotExistForMissingRoom() {
+        assertFalse(repository.findVersionById(999_999L).exists());
+    }
+
+    @Test
+    void findVersion_ShouldChangeAfterInsert() {
+        VersionProjection before = repository.findVersion();
+
+        Room room = new Room(0, 9103, "New room", 30d, 500d, false, true);
+        room.setUpdatedAt(new Timestamp(System.currentTimeMillis() + 60_000));
+        testEntityManager.persistAndFlush(room);
+        statistics.clear();
+        VersionProjection after = repository.findVersion();
+
+        assertTrue(after.exists());
+        assertNotEquals(before.eTag(), after.eTag());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findVersion_ShouldChangeAfterDelete() {
+        VersionProjection before = repository.findVersion();
+
+        // Deleting leaves no updated_at behind, only the tombstone tells the collection changed
+        testEntityManager.persistAndFlush(new Tombstone(EntityType.ROOM, 9104,
+                new Timestamp(System.currentTimeMillis() + 120_000)));
+        testEntityManager.persistAndFlush(new Tombstone(EntityType.CUSTOMER, 9105,
+                new Timestamp(System.currentTimeMillis() + 180_000)));
+        statistics.clear();
+        VersionProjection after = repository.findVersion();
+
+        assertNotEquals(before.eTag(), after.eTag());
+        assertEquals(after.lastDeleted().getTime(), after.lastModifiedMillis());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    // Fixed instants far in the past, other contexts sharing the database keep stamping rows with the current time
+    @Test
+    void findChangedSince_ShouldPageThroughRowsChangedAtTheSameInstant() {
+        Timestamp changedAt = Timestamp.valueOf("2000-01-01 00:00:00");
+        List<Long> ids = List.of(9104, 9105, 9106).stream().map(number -> {
+            Room room = new Room(0, number, "Changed room", 30d, 500d, false, true);
+            room.setUpdatedAt(changedAt);
+            return testEntityManager.persistAndGetId(room, Long.class);
+        }).toList();
+        testEntityManager.flush();
+
+        List<ChangeKey> first = repository.findChangedSince(Timestamp.valueOf("1999-12-31 23:59:59"), 0,
+                changedAt, PageRequest.of(0, 2));
+        List<ChangeKey> second = repository.findChangedSince(changedAt, first.get(1).id(), changedAt, PageRequest.of(0, 2));
+
+        assertEquals(ids.subList(0, 2), first.stream().map(ChangeKey::id).toList());
+        assertEquals(ids.subList(2, 3), second.stream().map(ChangeKey::id).toList());
+    }
+
+    @Test
+    void findChangedSince_ShouldSkipRowsAfterUntil() {
+        Room room = new Room(0, 9107, "Room changed after until", 30d, 500d, false, true);
+        room.setUpdatedAt(Timestamp.valueOf("2000-01-01 00:00:01"));
+        testEntityManager.persistAndFlush(room);
+
+        List<ChangeKey> changed = repository.findChangedSince(Timestamp.valueOf("2000-01-01 00:00:00"), 0,
+                Timestamp.valueOf("2000-01-01 00:00:00.5"), PageRequest.of(0, 10));
+
+        assertTrue(changed.isEmpty());
+    }
+}
@@ -0,0 +1,200 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.AuditRecord;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.AuditDurability;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.martingarrote.reservationmanagement.consts.QueryConsts.SQL_INSERT_AUDIT_RECORD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuditTrailServiceTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    AuditTrailService service;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+
+        service.meterRegistry = meterRegistry;
+        service.bufferSize = 2;
+        service.batchSize = 10;
+        service.retryInterval = Duration.ofMillis(10);
+        service.maxRetries = 3;
+        service.durability = AuditDurability.BEST_EFFORT;
+        service.init();
+    }
+
+    @Test
+    public void record_ShouldKeepOnlyTheChangedFields() {
+        RoomDTO before = new RoomDTO(1L, 101, "Room 101", 30D, 500D, false, true);
+        RoomDTO after = new RoomDTO(1L, 101, "Room 101", 30D, 650D, true, true);
+
+        service.record(EntityType.ROOM, 1L, AuditAction.UPDATE, before, after);
+
+        assertThat(service.buffer).singleElement().satisfies(record -> {
+            assertThat(record.action()).isEqualTo(AuditAction.UPDATE);
+            assertThat(record.changedBy()).isEqualTo("Admin");
+            assertThat(record.changes()).isEqualTo(
+                    "{\"pricePerMonth\":{\"from\":500.0,\"to\":650.0},\"busy\":{\"from\":false,\"to\":true}}");
+        });
+    }
+
+    @Test
+    public void record_ShouldLeaveOutTheUnknownSideAndTheAuditColumns() {
+        Map<String, Object> changes = new HashMap<>(Map.of("busy", true, "updatedBy", "Admin"));
+
+        service.record(EntityType.ROOM, 1L, AuditAction.PATCH, null, changes);
+
+        assertThat(service.buffer).singleElement()
+                .extracting(AuditRecord::changes).isEqualTo("{\"busy\":{\"to\":true}}");
+    }
+
+    @Test
+    public void record_ShouldSkipUpdatesThatChangedNothing() {
+        RoomDTO room = new RoomDTO(1L, 101, "Room 101", 30D, 500D, false, true);
+
+        service.record(EntityType.ROOM, 1L, AuditAction.UPDATE, room, room);
+
+        assertThat(service.buffer).isEmpty();
+    }
+
+    @Test
+    public void record_ShouldKeepDeletes_WithoutTheOldState() {
+        service.record(EntityType.CUSTOMER, 1L, AuditAction.DELETE, null, null);
+
+        assertThat(service.buffer).singleElement().extracting(AuditRecord::changes).isEqualTo("{}");
+    }
+
+    @Test
+    public void enqueue_ShouldDropAndCount_WhenTheBufferIsFull() {
+        service.enqueue(record(1L));
+        service.enqueue(record(2L));
+        service.enqueue(record(3L));
+
+        assertThat(service.buffer).extracting(AuditRecord::entityId).containsExactly(1L, 2L);
+        assertThat(meterRegistry.get("audit.records.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void record_ShouldWriteRightAway_WhenTheRecordIsTransactional() {
+        service.durability = AuditDurability.TRANSACTIONAL;
+
+        service.record(EntityType.ROOM, 1L, AuditAction.PATCH, null, Map.of("busy", true));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(SQL_INSERT_AUDIT_RECORD), rows.capture());
+        assertThat(rows.getValue()).singleElement().satisfies(row -> assertThat(row[1]).isEqualTo(1L));
+        assertThat(service.buffer).isEmpty();
+    }
+
+    @Test
+    public void writeNext_ShouldWriteTheBufferedRecordsInOneBatch() throws Exception {
+        service.enqueue(record(1L));
+        service.enqueue(record(2L));
+
+        boolean written = service.writeNext(new ArrayList<>());
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(SQL_INSERT_AUDIT_RECORD), rows.capture());
+        assertThat(written).isTrue();
+        assertThat(rows.getValue()).extracting(row -> row[1]).containsExactly(1L, 2L);
+        assertThat(service.buffer).isEmpty();
+        assertThat(meterRegistry.get("audit.records.written").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void writeNext_ShouldKeepTheBatch_WhenTheWriteFails() throws Exception {
+        List<AuditRecord> batch = new ArrayList<>();
+        service.enqueue(record(1L));
+        when(jdbcTemplate.batchUpdate(eq(SQL_INSERT_AUDIT_RECORD), anyList()))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenReturn(new int[]{1});
+
+        Throwable exception = catchThrowable(() -> service.writeNext(batch));
+
+        assertThat(exception).hasMessage("Database unavailable");
+        assertThat(batch).extracting(AuditRecord::entityId).containsExactly(1L);
+
+        service.writeNext(batch);
+
+        assertThat(batch).isEmpty();
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(SQL_INSERT_AUDIT_RECORD), anyList());
+    }
+
+    @Test
+    public void writeEach_ShouldLeaveOutTheRejectedRecord_AndWriteTheRest() {
+        List<AuditRecord> batch = new ArrayList<>(List.of(record(1L), record(2L), record(3L)));
+        when(jdbcTemplate.batchUpdate(eq(SQL_INSERT_AUDIT_RECORD), anyList()))
+                .thenReturn(new int[]{1})
+                .thenThrow(new DataIntegrityViolationException("Value too long"))
+                .thenReturn(new int[]{1});
+
+        service.writeEach(batch);
+
+        assertThat(batch).isEmpty();
+        assertThat(meterRegistry.get("audit.records.written").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("audit.records.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void writeEach_ShouldKeepTheRemainingRecords_WhenTheDatabaseIsUnavailable() {
+        List<AuditRecord> batch = new ArrayList<>(List.of(record(1L), record(2L), record(3L)));
+        when(jdbcTemplate.batchUpdate(eq(SQL_INSERT_AUDIT_RECORD), anyList()))
+                .thenReturn(new int[]{1})
+                .thenThrow(new IllegalStateException("Database unavailable"));
+
+        service.writeEach(batch);
+
+        assertThat(batch).extracting(AuditRecord::entityId).containsExactly(2L, 3L);
+        assertThat(meterRegistry.get("audit.records.rejected").counter().count()).isZero();
+        assertThat(meterRegistry.get("audit.write.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void writeNext_ShouldNotWrite_WhenTheBufferIsEmpty() throws Exception {
+        boolean written = service.writeNext(new ArrayList<>());
+
+        assertThat(written).isFalse();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private AuditRecord record(long entityId) {
+        return new AuditRecord(EntityType.ROOM, entityId, AuditAction.PATCH, "{}", "Admin",
+                new Timestamp(System.currentTimeMillis()));
+    }
+}
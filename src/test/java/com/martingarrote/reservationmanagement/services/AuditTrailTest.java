@@ -0,0 +1,58 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AuditTrailTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void customerChanges_ShouldBeWrittenToTheAuditTrailInOrder() throws Exception {
+        Long id = customerService.create(new CustomerDTO(null, "Audited customer", LocalDate.of(1990, 1, 1),
+                "11122233344", "audited@example.com"));
+        customerService.patch(objectMapper.readTree("{\"email\": \"patched@example.com\"}"), id);
+        customerService.update(new CustomerDTO(id, "Renamed customer", LocalDate.of(1990, 1, 1),
+                "11122233344", "patched@example.com"), id);
+
+        List<Map<String, Object>> records = awaitRecords(id, 3);
+
+        assertThat(records).extracting(record -> record.get("action")).containsExactly("CREATE", "PATCH", "UPDATE");
+        assertThat(records.get(0).get("changes").toString()).contains("\"name\":{\"to\":\"Audited customer\"}");
+        assertThat(records.get(1).get("changes")).isEqualTo("{\"email\":{\"to\":\"patched@example.com\"}}");
+        assertThat(records.get(2).get("changes"))
+                .isEqualTo("{\"name\":{\"from\":\"Audited customer\",\"to\":\"Renamed customer\"}}");
+        assertThat(records).allSatisfy(record -> assertThat(record.get("changed_by")).isEqualTo("Admin"));
+    }
+
+    private List<Map<String, Object>> awaitRecords(long id, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<Map<String, Object>> records = List.of();
+
+        while (records.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            records = jdbcTemplate.queryForList("SELECT action, changes, changed_by FROM audit_record " +
+                    "WHERE entity = 'CUSTOMER' AND entity_id = ? ORDER BY id", id);
+        }
+
+        return records;
+    }
+}
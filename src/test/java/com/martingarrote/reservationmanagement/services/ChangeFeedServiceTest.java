@@ -0,0 +1,146 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.ChangesDTO;
+import com.martingarrote.reservationmanagement.models.entities.Tombstone;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.projections.ChangeKey;
+import com.martingarrote.reservationmanagement.repositories.TombstoneRepository;
+import com.martingarrote.reservationmanagement.services.ChangeFeedService.ChangedKeysQuery;
+import com.martingarrote.reservationmanagement.utils.WatermarkUtils.Watermark;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.INVALID_WATERMARK;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.SyncExceptions.WATERMARK_EXPIRED;
+import static com.martingarrote.reservationmanagement.utils.WatermarkUtils.decode;
+import static com.martingarrote.reservationmanagement.utils.WatermarkUtils.encode;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeFeedServiceTest {
+
+    @Mock
+    TombstoneRepository tombstoneRepository;
+
+    @Mock
+    ChangedKeysQuery changedKeys;
+
+    @Mock
+    Function<List<Long>, List<String>> load;
+
+    @InjectMocks
+    ChangeFeedService service;
+
+    private Timestamp recently;
+
+    @Before
+    public void setUp() {
+        service.defaultPageSize = 2;
+        service.maxPageSize = 10;
+        service.commitLag = Duration.ofSeconds(5);
+        service.tombstoneRetention = Duration.ofDays(30);
+        this.recently = new Timestamp(System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+    }
+
+    @Test
+    public void findChanges_FirstSync_ShouldListRowsAndSkipTombstones() throws Exception {
+        when(changedKeys.find(eq(new Timestamp(0)), eq(0L), any(), any())).thenReturn(List.of(changeKey(1), changeKey(2)));
+        when(load.apply(List.of(1L, 2L))).thenReturn(List.of("room 1", "room 2"));
+
+        ChangesDTO<String> changes = service.findChanges(EntityType.ROOM, null, null, changedKeys, load);
+
+        assertThat(changes.getChanged()).containsExactly("room 1", "room 2");
+        assertThat(changes.getDeleted()).isEmpty();
+        assertThat(changes.isHasMore()).isFalse();
+        verify(tombstoneRepository).findDeletedSince(eq(EntityType.ROOM), any(), eq(Long.MAX_VALUE), any(), any());
+    }
+
+    @Test
+    public void findChanges_ShouldStopAtTheCommitLag() throws Exception {
+        ArgumentCaptor<Timestamp> until = ArgumentCaptor.forClass(Timestamp.class);
+        long before = System.currentTimeMillis();
+
+        ChangesDTO<String> changes = service.findChanges(EntityType.ROOM, null, null, changedKeys, load);
+
+        verify(changedKeys).find(any(), anyLong(), until.capture(), any());
+        assertThat(until.getValue().getTime()).isBetween(before - 5000, System.currentTimeMillis() - 5000);
+
+        Watermark next = decode(changes.getWatermark());
+        assertThat(next.changedAt()).isEqualTo(until.getValue());
+        assertThat(next.lastChangedId()).isEqualTo(Long.MAX_VALUE);
+        verify(load, never()).apply(any());
+    }
+
+    @Test
+    public void findChanges_ShouldResumeFromTheLastRowWhenThereAreMore() throws Exception {
+        String since = encode(new Watermark(recently, 0, recently, 0));
+        ChangeKey second = changeKey(2);
+        when(changedKeys.find(eq(recently), eq(0L), any(), any())).thenReturn(List.of(changeKey(1), second, changeKey(3)));
+        when(load.apply(List.of(1L, 2L))).thenReturn(List.of("room 1", "room 2"));
+
+        ChangesDTO<String> changes = service.findChanges(EntityType.ROOM, since, null, changedKeys, load);
+
+        Watermark next = decode(changes.getWatermark());
+        assertThat(changes.isHasMore()).isTrue();
+        assertThat(next.changedAt()).isEqualTo(second.changedAt());
+        assertThat(next.lastChangedId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void findChanges_ShouldListDeletedIds() throws Exception {
+        String since = encode(new Watermark(recently, 0, recently, 0));
+        Tombstone tombstone = new Tombstone(EntityType.ROOM, 7L, recently);
+        when(tombstoneRepository.findDeletedSince(eq(EntityType.ROOM), eq(recently), eq(0L), any(), any()))
+                .thenReturn(List.of(tombstone));
+
+        ChangesDTO<String> changes = service.findChanges(EntityType.ROOM, since, null, changedKeys, load);
+
+        assertThat(changes.getChanged()).isEmpty();
+        assertThat(changes.getDeleted()).containsExactly(7L);
+        assertThat(changes.isHasMore()).isFalse();
+    }
+
+    @Test
+    public void findChanges_ShouldNotList_ExpiredWatermark() {
+        Timestamp longAgo = new Timestamp(System.currentTimeMillis() - Duration.ofDays(31).toMillis());
+        String since = encode(new Watermark(longAgo, 0, longAgo, 0));
+
+        Throwable exception = catchThrowable(() -> service.findChanges(EntityType.ROOM, since, null, changedKeys, load));
+
+        assertThat(exception.getMessage()).isEqualTo(WATERMARK_EXPIRED);
+        verifyNoInteractions(changedKeys);
+    }
+
+    @Test
+    public void findChanges_ShouldNotList_InvalidWatermark() {
+        Throwable exception = catchThrowable(() -> service.findChanges(EntityType.ROOM, "garbage", null, changedKeys, load));
+
+        assertThat(exception.getMessage()).isEqualTo(INVALID_WATERMARK);
+    }
+
+    @Test
+    public void recordDeletion_ShouldSaveTombstone() {
+        ArgumentCaptor<Tombstone> tombstone = ArgumentCaptor.forClass(Tombstone.class);
+
+        service.recordDeletion(EntityType.CUSTOMER, 3L);
+
+        verify(tombstoneRepository).save(tombstone.capture());
+        assertThat(tombstone.getValue().getEntity()).isEqualTo(EntityType.CUSTOMER);
+        assertThat(tombstone.getValue().getEntityId()).isEqualTo(3L);
+    }
+
+    private ChangeKey changeKey(long id) {
+        return new ChangeKey(id, new Timestamp(recently.getTime() + id));
+    }
+}
@@ -1,24 +1,42 @@
 package com.martingarrote.reservationmanagement.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
 import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.entities.Customer;
-import com.martingarrote.reservationmanagement.models.entities.Reservation;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.projections.CustomerProjection;
 import com.martingarrote.reservationmanagement.repositories.CustomerRepository;
-import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
+import com.martingarrote.reservationmanagement.utils.CursorUtils.Cursor;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.*;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.CustomerExceptions.AGE_SHOULD_BIGGER_THAN_EIGHTEEN;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PaginationExceptions.INVALID_PAGE_SIZE;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.Assert.assertArrayEquals;
@@ -31,10 +49,22 @@ public class CustomerServiceTest {
     CustomerRepository repository;
 
     @Mock
-    ReservationRepository reservationRepository;
+    ReservationService reservationService;
 
     @Mock
-    ModelMapper mapper;
+    ChangeFeedService changeFeedService;
+
+    @Mock
+    AuditTrailService auditTrailService;
+
+    @Mock
+    MapperInterface<Customer, CustomerDTO> mapper;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @InjectMocks
     CustomerService service;
@@ -52,14 +82,14 @@ public class CustomerServiceTest {
         Customer customer = createCustomerEntity();
         Customer createdCustomer = createCustomerEntity();
         CustomerDTO customerDTO = createCustomerDTO();
-        when(mapper.map(customerDTO, Customer.class)).thenReturn(customer);
+        when(mapper.toEntity(customerDTO)).thenReturn(customer);
         when(repository.save(customer)).thenReturn(createdCustomer);
 
         // Act
         Long id = service.save(customerDTO);
 
         // Asserts
-        verify(mapper).map(customerDTO, Customer.class);
+        verify(mapper).toEntity(customerDTO);
         verify(repository, times(1)).save(customer);
         verifyNoMoreInteractions(repository);
         assertThat(id).isEqualTo(defaultId);
@@ -88,7 +118,7 @@ public class CustomerServiceTest {
         Customer customer = createCustomerEntity();
         Customer createdCustomer = createCustomerEntity();
         CustomerDTO customerDTO = createCustomerDTO();
-        when(mapper.map(customerDTO, Customer.class)).thenReturn(customer);
+        when(mapper.toEntity(customerDTO)).thenReturn(customer);
         when(repository.save(customer)).thenReturn(createdCustomer);
 
         // Act
@@ -107,34 +137,75 @@ public class CustomerServiceTest {
     }
 
     @Test
-    public void listAll_ShouldList() {
-        List<CustomerDTO> customersDTO = repository.findAll().stream()
-                .map(customer -> mapper.map(customer, CustomerDTO.class)).toList();
-        when(repository.findAll().stream()
-                .map(customer -> mapper.map(customer, CustomerDTO.class)).toList()).thenReturn(customersDTO);
+    public void listAll_ShouldListFirstPageWithNextCursor() throws Exception {
+        service.defaultPageSize = 1;
+        service.maxPageSize = 10;
+        CustomerProjection customer = new CustomerProjection(1L, "Jose", LocalDate.of(1990, 10, 5), "12345678910", "email@gmail.com");
+        CustomerProjection nextCustomer = new CustomerProjection(2L, "Maria", LocalDate.of(1985, 3, 2), "10987654321", "maria@gmail.com");
+        when(repository.findPageOrderById(0L, PageRequest.of(0, 2))).thenReturn(List.of(customer, nextCustomer));
 
-        List<CustomerDTO> expectedCustomersDTO = service.listAll();
+        PageDTO<CustomerDTO> page = service.listAll(null, null);
 
-        assertArrayEquals(expectedCustomersDTO.toArray(), customersDTO.toArray());
+        assertThat(page.getContent()).extracting(CustomerDTO::getId).containsExactly(defaultId);
+        assertThat(decode(page.getNext(), SORT_BY_ID).lastId()).isEqualTo(defaultId);
     }
 
-    @Test()
-    public void listAll_ShouldNotListAnyCustomer() {
-        List<Customer> emptyCustomerList = repository.findAll();
-        when(repository.findAll()).thenReturn(emptyCustomerList);
+    @Test
+    public void listAll_ShouldListLastPageWithoutNextCursor() throws Exception {
+        service.defaultPageSize = 20;
+        service.maxPageSize = 100;
+        String cursor = encode(new Cursor(SORT_BY_ID, defaultId, null));
+        when(repository.findPageOrderById(defaultId, PageRequest.of(0, 21))).thenReturn(List.of());
+
+        PageDTO<CustomerDTO> page = service.listAll(cursor, null);
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void listAll_ShouldNotList_InvalidPageSize() {
+        Throwable exception = catchThrowable(() -> service.listAll(null, 0));
+
+        assertThat(exception.getMessage()).isEqualTo(INVALID_PAGE_SIZE);
+    }
+
+    @Test
+    public void export_ShouldWriteNdjsonLines() throws Exception {
+        CustomerProjection customer = new CustomerProjection(1L, "Jose", LocalDate.of(1990, 10, 5), "12345678910", "email@gmail.com");
+        CustomerProjection nextCustomer = new CustomerProjection(2L, "Maria", LocalDate.of(1985, 3, 2), "10987654321", "maria@gmail.com");
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(customer, nextCustomer));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        service.export(ExportFormat.NDJSON, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[2]).isEmpty();
+        assertThat(objectMapper.readTree(lines[0]).get("name").asText()).isEqualTo("Jose");
+        assertThat(objectMapper.readTree(lines[1]).get("id").asLong()).isEqualTo(2L);
+    }
 
-        List<CustomerDTO> returnedCustomersDTO = service.listAll();
+    @Test
+    public void export_ShouldWriteCsvWithHeader() throws Exception {
+        CustomerProjection customer = new CustomerProjection(1L, "Silva, Jose", LocalDate.of(1990, 10, 5), "12345678910", "email@gmail.com");
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(customer));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        service.export(ExportFormat.CSV, outputStream);
 
-        assertArrayEquals(emptyCustomerList.toArray(), returnedCustomersDTO.toArray());
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,name,dateOfBirth,cpf,email\r\n" +
+                "1,\"Silva, Jose\",1990-10-05,12345678910,email@gmail.com\r\n");
     }
 
     @Test
     public void findById_ShouldGet() {
         Customer customer = createCustomerEntity();
-        CustomerDTO returnedCustomerDTO = mapper.map(customer, CustomerDTO.class);
+        CustomerDTO returnedCustomerDTO = mapper.toDTO(customer);
 
         when(repository.findById(defaultId)).thenReturn(Optional.of(customer));
-        when(mapper.map(customer, CustomerDTO.class)).thenReturn(returnedCustomerDTO);
+        when(mapper.toDTO(customer)).thenReturn(returnedCustomerDTO);
 
 
         CustomerDTO expectedCustomerDTO = service.findById(defaultId);
@@ -153,33 +224,33 @@ public class CustomerServiceTest {
 
     @Test
     public void deleteById_ShouldDelete() throws Exception {
-        when(repository.existsById(defaultId)).thenReturn(true);
+        when(repository.deleteByIdIfUnreserved(defaultId)).thenReturn(1);
 
         boolean returned = service.deleteById(defaultId);
 
         assertThat(returned).isTrue();
+        verify(repository, never()).existsById(defaultId);
+        verify(changeFeedService).recordDeletion(EntityType.CUSTOMER, defaultId);
+        verify(auditTrailService).record(EntityType.CUSTOMER, defaultId, AuditAction.DELETE, null, null);
     }
 
     @Test
     public void deleteById_ShouldNotDelete_NotFound() throws Exception {
+        when(repository.deleteByIdIfUnreserved(defaultId)).thenReturn(0);
         when(repository.existsById(defaultId)).thenReturn(false);
 
         boolean returned = service.deleteById(defaultId);
 
         assertThat(returned).isFalse();
+        verify(changeFeedService, never()).recordDeletion(any(), anyLong());
     }
 
     @Test
     public void deleteById_ShouldNotDelete_UnableToDeleteException() throws Exception {
-        Long customerId = 1L;
-        Customer customer = createCustomerEntity();
-        Reservation reservation = new Reservation(1, "ABC123", customer, null, 100.0,
-                "Test reservation", 3, LocalDate.now(),
-                LocalDate.now().plusDays(3), true);
-        when(repository.existsById(customerId)).thenReturn(true);
-        when(reservationRepository.findByCustomerId(customerId)).thenReturn(List.of(reservation));
+        when(repository.deleteByIdIfUnreserved(defaultId)).thenReturn(0);
+        when(repository.existsById(defaultId)).thenReturn(true);
 
-        Throwable exception = catchThrowable(() -> service.deleteById(customerId));
+        Throwable exception = catchThrowable(() -> service.deleteById(defaultId));
 
         assertThat(exception.getMessage()).isEqualTo(UNABLE_TO_DELETE);
     }
@@ -190,12 +261,16 @@ public class CustomerServiceTest {
         Customer customerToUpdate = createCustomerEntity();
         CustomerDTO customerDTO = createCustomerDTO();
 
+        CustomerDTO before = createCustomerDTO();
+
         when(repository.findById(customerId)).thenReturn(Optional.of(customerToUpdate));
+        when(mapper.toDTO(customerToUpdate)).thenReturn(before, customerDTO);
 
         Long returnedId = service.update(customerDTO, customerId);
 
         assertThat(returnedId).isEqualTo(customerId);
-
+        verify(reservationService).evictSearchCache();
+        verify(auditTrailService).record(EntityType.CUSTOMER, customerId, AuditAction.UPDATE, before, customerDTO);
     }
 
     @Test
@@ -220,6 +295,54 @@ public class CustomerServiceTest {
         assertThat(exception.getMessage()).isEqualTo(UPDATE_ERROR);
     }
 
+    @Test
+    public void patch_ShouldPatchOnlyGivenFields() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"email\": \"patched@gmail.com\", \"dateOfBirth\": \"1985-03-02\"}");
+        when(repository.updateById(eq(Customer.class), eq(1L), anyMap())).thenReturn(1);
+
+        Long returnedId = service.patch(patch, defaultId);
+
+        ArgumentCaptor<Map<String, Object>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(repository).updateById(eq(Customer.class), eq(1L), changes.capture());
+        verifyNoMoreInteractions(repository);
+        assertThat(returnedId).isEqualTo(defaultId);
+        assertThat(changes.getValue()).containsOnlyKeys("email", "dateOfBirth", "updatedBy", "updatedAt");
+        assertThat(changes.getValue()).containsEntry("dateOfBirth", LocalDate.of(1985, 3, 2));
+        verify(reservationService).evictSearchCache();
+        verify(auditTrailService).record(EntityType.CUSTOMER, defaultId, AuditAction.PATCH, null, changes.getValue());
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_NotFound() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"name\": \"Maria\"}");
+        when(repository.updateById(eq(Customer.class), eq(1L), anyMap())).thenReturn(0);
+
+        Long returnedId = service.patch(patch, defaultId);
+
+        assertThat(returnedId).isNull();
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_Underage() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"dateOfBirth\": \"" + LocalDate.now().minusYears(10) + "\"}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo(AGE_SHOULD_BIGGER_THAN_EIGHTEEN);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_InvalidEmail() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"email\": \"not an email\"}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo("Should be a formatted email");
+        verifyNoInteractions(repository);
+    }
+
     public Customer createCustomerEntity() {
         LocalDate dateOfBirth = LocalDate.of(1990, 10, 5);
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
@@ -0,0 +1,25 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.interfaces.OutboxSink;
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-process sink for tests, keeps what it receives and can be told to fail the next deliveries
+public class InMemoryOutboxSink implements OutboxSink {
+
+    final List<OutboxMessage> messages = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @Override
+    public void deliver(OutboxMessage message) throws Exception {
+        if (failuresLeft.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+            throw new Exception("Sink unavailable");
+        }
+
+        messages.add(message);
+    }
+}
@@ -0,0 +1,106 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import com.martingarrote.reservationmanagement.repositories.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Its own database: the cached contexts of the other tests run the outbox sweep with the dev logging sink, and
+// would deliver and delete the events this test expects to see retried
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-dispatch;DB_CLOSE_DELAY=-1",
+        "outbox.retry.initial-backoff=50ms"
+})
+class OutboxDispatchTest {
+
+    @TestConfiguration
+    static class SinkConfiguration {
+
+        @Bean
+        InMemoryOutboxSink inMemoryOutboxSink() {
+            return new InMemoryOutboxSink();
+        }
+    }
+
+    @Autowired
+    private InMemoryOutboxSink sink;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void reservationChanges_ShouldBeDeliveredInOrder() throws Exception {
+        Long id = reservationService.create(reservation(9401));
+        reservationService.patch(objectMapper.readTree("{\"description\": \"Patched outbox reservation\"}"), id);
+        reservationService.deleteById(id);
+
+        List<OutboxMessage> messages = awaitMessages(id, 3);
+
+        assertThat(messages).extracting(OutboxMessage::type)
+                .containsExactly(OutboxEventType.CREATED, OutboxEventType.PATCHED, OutboxEventType.DELETED);
+        assertThat(messages.get(1).payload()).contains("Patched outbox reservation");
+        assertThat(outboxEventRepository.findAll()).noneMatch(event -> event.getAggregateId() == id);
+    }
+
+    @Test
+    void failedDelivery_ShouldBeRetriedBeforeLaterEventsOfTheSameReservation() throws Exception {
+        sink.failuresLeft.set(1);
+
+        Long id = reservationService.create(reservation(9402));
+        reservationService.patch(objectMapper.readTree("{\"active\": false}"), id);
+
+        List<OutboxMessage> messages = awaitMessages(id, 2);
+
+        assertThat(messages).extracting(OutboxMessage::type)
+                .containsExactly(OutboxEventType.CREATED, OutboxEventType.PATCHED);
+    }
+
+    private ReservationDTO reservation(int roomNumber) throws Exception {
+        Long roomId = roomService.create(new RoomDTO(null, roomNumber, "Outbox room", 30D, 500D, false, true));
+
+        return new ReservationDTO(null, "OUTBOX" + roomNumber, customerService.findById(1L),
+                roomService.findById(roomId), 1500D, "Outbox reservation", 3,
+                LocalDate.now(), LocalDate.now().plusMonths(3), true);
+    }
+
+    // Stands in for the sweep, so a retry doesn't wait for the next scheduled run
+    private List<OutboxMessage> awaitMessages(long aggregateId, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<OutboxMessage> messages = List.of();
+
+        while (messages.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            outboxService.dispatchPending();
+            messages = sink.messages.stream().filter(message -> message.aggregateId() == aggregateId).toList();
+        }
+
+        return messages;
+    }
+}
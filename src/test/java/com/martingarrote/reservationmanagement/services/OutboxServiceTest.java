@@ -0,0 +1,173 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.OutboxMessage;
+import com.martingarrote.reservationmanagement.models.entities.OutboxEvent;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import com.martingarrote.reservationmanagement.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OutboxServiceTest {
+
+    @Mock
+    OutboxEventRepository repository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    OutboxService service;
+
+    private InMemoryOutboxSink sink;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private List<Runnable> tasks;
+
+    @Before
+    public void setUp() {
+        this.sink = new InMemoryOutboxSink();
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.tasks = new ArrayList<>();
+
+        service.sinks = List.of(sink);
+        service.transactionTemplate = new TransactionTemplate(transactionManager);
+        service.executor = tasks::add;
+        service.meterRegistry = meterRegistry;
+        service.batchSize = 2;
+        service.initialBackoff = Duration.ofSeconds(1);
+        service.maxBackoff = Duration.ofMinutes(1);
+        service.registerMetrics();
+    }
+
+    @Test
+    public void record_ShouldSaveTheEventAndRequestADispatch() {
+        service.record(EntityType.RESERVATION, 1L, OutboxEventType.DELETED, Map.of("id", 1L));
+
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(repository).save(event.capture());
+        assertThat(event.getValue().getPayload()).isEqualTo("{\"id\":1}");
+        assertThat(event.getValue().getNextAttemptAt()).isEqualTo(event.getValue().getCreatedAt());
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    public void record_ShouldKeepTheEvent_WithoutSinks() {
+        service.sinks = List.of();
+
+        service.record(EntityType.RESERVATION, 1L, OutboxEventType.DELETED, Map.of("id", 1L));
+
+        verify(repository).save(any(OutboxEvent.class));
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    public void requestDispatch_ShouldRunASingleDrain() {
+        service.requestDispatch();
+        service.requestDispatch();
+
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    public void drain_ShouldClaimUntilNothingIsLeft() {
+        when(repository.claimBatch(any(), any()))
+                .thenReturn(List.of(event(1L, 10L)))
+                .thenReturn(List.of(event(2L, 10L)))
+                .thenReturn(List.of());
+
+        service.requestDispatch();
+        tasks.remove(0).run();
+
+        verify(repository, times(3)).claimBatch(any(), any());
+        assertThat(sink.messages).extracting(OutboxMessage::id).containsExactly(1L, 2L);
+
+        service.requestDispatch();
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    public void dispatchBatch_ShouldDeliverAndDeleteTheClaimedEvents() {
+        when(repository.claimBatch(any(), any())).thenReturn(List.of(event(1L, 10L), event(2L, 11L)));
+
+        int claimed = service.dispatchBatch();
+
+        assertThat(claimed).isEqualTo(2);
+        assertThat(sink.messages).extracting(OutboxMessage::aggregateId).containsExactly(10L, 11L);
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertThat(meterRegistry.get("outbox.dispatch.lag").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void dispatchBatch_ShouldScheduleARetry_WhenTheSinkFails() {
+        OutboxEvent failing = event(1L, 10L);
+        when(repository.claimBatch(any(), any())).thenReturn(List.of(failing, event(2L, 11L)));
+        sink.failuresLeft.set(1);
+        long before = System.currentTimeMillis();
+
+        service.dispatchBatch();
+
+        assertThat(failing.getAttempts()).isEqualTo(1);
+        assertThat(failing.getLastError()).isEqualTo("Sink unavailable");
+        assertThat(failing.getNextAttemptAt().getTime()).isGreaterThanOrEqualTo(before + 1000);
+        verify(repository).deleteAllByIdInBatch(List.of(2L));
+        assertThat(meterRegistry.get("outbox.dispatch.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void dispatchBatch_ShouldNotDelete_WhenNothingWasDelivered() {
+        when(repository.claimBatch(any(), any())).thenReturn(List.of(event(1L, 10L)));
+        sink.failuresLeft.set(1);
+
+        service.dispatchBatch();
+
+        verify(repository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    public void backoff_ShouldDoubleUpToTheMaximum() {
+        assertThat(service.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(service.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(service.backoff(10)).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void pendingAge_ShouldBeZero_WhenTheOutboxIsEmpty() {
+        when(repository.findOldestCreatedAt()).thenReturn(null);
+
+        assertThat(meterRegistry.get("outbox.pending.age").gauge().value()).isZero();
+    }
+
+    private OutboxEvent event(long id, long aggregateId) {
+        OutboxEvent event = new OutboxEvent(EntityType.RESERVATION, aggregateId, OutboxEventType.UPDATED, "{}",
+                new Timestamp(System.currentTimeMillis()));
+        ReflectionTestUtils.setField(event, "id", id);
+
+        return event;
+    }
+}
@@ -0,0 +1,77 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
+import com.martingarrote.reservationmanagement.repositories.ReactiveReservationRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveReservationServiceTest {
+
+    @Mock
+    ReactiveReservationRepository repository;
+
+    @InjectMocks
+    ReactiveReservationService service;
+
+    @Test
+    public void search_ShouldMergeBothFiltersInIdOrderWithoutDuplicates() {
+        LocalDate today = LocalDate.now();
+        when(repository.findByActive(true)).thenReturn(Flux.just(
+                createReservationProjection(1L), createReservationProjection(3L), createReservationProjection(4L)));
+        when(repository.findByEndDateBetween(today, today.plusMonths(2))).thenReturn(Flux.just(
+                createReservationProjection(2L), createReservationProjection(3L), createReservationProjection(5L)));
+
+        List<ReservationDTO> reservations = service.search(true, 2).collectList().block();
+
+        assertThat(reservations).extracting(ReservationDTO::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    public void search_ShouldOnlyQueryGivenFilter() {
+        when(repository.findByActive(false)).thenReturn(Flux.just(createReservationProjection(1L)));
+
+        List<ReservationDTO> reservations = service.search(false, null).collectList().block();
+
+        assertThat(reservations).extracting(ReservationDTO::getId).containsExactly(1L);
+        verify(repository, never()).findByEndDateBetween(any(), any());
+    }
+
+    @Test
+    public void search_ShouldBeEmpty_WithoutFilters() {
+        List<ReservationDTO> reservations = service.search(null, null).collectList().block();
+
+        assertThat(reservations).isEmpty();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void findByCustomer_ShouldMapProjections() {
+        when(repository.findByCustomerId(1L)).thenReturn(Flux.just(createReservationProjection(1L)));
+
+        List<ReservationDTO> reservations = service.findByCustomer(1L).collectList().block();
+
+        assertThat(reservations).hasSize(1);
+        assertThat(reservations.get(0).getCustomer().getId()).isEqualTo(1L);
+        assertThat(reservations.get(0).getReservedRoom().getId()).isEqualTo(1L);
+    }
+
+    public ReservationProjection createReservationProjection(Long id) {
+        LocalDate dateOfBirth = LocalDate.of(1990, 10, 5);
+
+        return new ReservationProjection(id, "RES00" + id, 1L, "Jose", dateOfBirth, "12345678910",
+                "email@gmail.com", 1L, 1, "Room 1", 30D, 500D, false, true, 1000.0, "Reservation test",
+                12, LocalDate.now(), LocalDate.now(), true);
+    }
+}
@@ -1,30 +1,54 @@
 package com.martingarrote.reservationmanagement.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
 import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.ReservationDTO;
 import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
 import com.martingarrote.reservationmanagement.models.entities.Customer;
 import com.martingarrote.reservationmanagement.models.entities.Reservation;
 import com.martingarrote.reservationmanagement.models.entities.Room;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.enums.OutboxEventType;
+import com.martingarrote.reservationmanagement.models.projections.ReservationProjection;
 import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
+import com.martingarrote.reservationmanagement.repositories.RoomRepository;
+import com.martingarrote.reservationmanagement.utils.CursorUtils.Cursor;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.INSERT_ERROR;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PaginationExceptions.INVALID_CURSOR;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PaginationExceptions.INVALID_SORT;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PatchExceptions.FIELD_NOT_PATCHABLE;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PatchExceptions.INVALID_FIELD_VALUE;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.ReservationExceptions.DURATION_OUT_OF_ALLOWED_RANGE;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.ReservationExceptions.MAX_RESERVATION_DURATION;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.RoomExceptions.ROOM_IS_BUSY;
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.UPDATE_ERROR;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
 import static com.martingarrote.reservationmanagement.utils.LocalDateUtils.getFutureDateBasedInMonthsQuantity;
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.Assert.assertArrayEquals;
@@ -37,7 +61,34 @@ public class ReservationServiceTest {
     ReservationRepository repository;
 
     @Mock
-    ModelMapper mapper;
+    RoomRepository roomRepository;
+
+    @Mock
+    ChangeFeedService changeFeedService;
+
+    @Mock
+    RoomOccupancyService roomOccupancyService;
+
+    @Mock
+    OutboxService outboxService;
+
+    @Mock
+    AuditTrailService auditTrailService;
+
+    @Mock
+    MapperInterface<Reservation, ReservationDTO> mapper;
+
+    @Mock
+    MapperInterface<Customer, CustomerDTO> customerMapper;
+
+    @Mock
+    MapperInterface<Room, RoomDTO> roomMapper;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @InjectMocks
     ReservationService service;
@@ -54,17 +105,46 @@ public class ReservationServiceTest {
         Reservation reservation = createReservationEntity();
         Reservation createdReservation = createReservationEntity();
         ReservationDTO reservationDTO = createReservationDTO();
-        when(mapper.map(reservationDTO, Reservation.class)).thenReturn(reservation);
+        when(mapper.toEntity(reservationDTO)).thenReturn(reservation);
         when(repository.save(reservation)).thenReturn(createdReservation);
 
         Long returnedId = service.save(reservationDTO);
 
-        verify(mapper).map(reservationDTO, Reservation.class);
+        verify(mapper).toEntity(reservationDTO);
         verify(repository, times(1)).save(reservation);
         verifyNoMoreInteractions(repository);
         assertThat(returnedId).isEqualTo(defaultId);
     }
 
+    @Test
+    public void save_ShouldMarkTheRoomBusy() throws Exception {
+        Reservation reservation = createReservationEntity();
+        ReservationDTO reservationDTO = createReservationDTO();
+        when(mapper.toEntity(reservationDTO)).thenReturn(reservation);
+        when(repository.save(reservation)).thenReturn(reservation);
+
+        service.save(reservationDTO);
+
+        ArgumentCaptor<Map<String, Object>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(roomRepository).updateById(eq(Room.class), eq(1L), changes.capture());
+        assertThat(changes.getValue()).containsEntry("busy", true).containsKeys("updatedBy", "updatedAt");
+        verify(roomOccupancyService).publish(1L);
+        verify(auditTrailService).record(EntityType.ROOM, 1L, AuditAction.PATCH, null, changes.getValue());
+    }
+
+    @Test
+    public void save_ShouldRecordCreatedEvent() throws Exception {
+        Reservation reservation = createReservationEntity();
+        ReservationDTO reservationDTO = createReservationDTO();
+        when(mapper.toEntity(reservationDTO)).thenReturn(reservation);
+        when(repository.save(reservation)).thenReturn(reservation);
+        when(mapper.toDTO(reservation)).thenReturn(reservationDTO);
+
+        service.save(reservationDTO);
+
+        verify(outboxService).record(EntityType.RESERVATION, defaultId, OutboxEventType.CREATED, reservationDTO);
+    }
+
     @Test(expected = Exception.class)
     public void save_ShouldNotSave() throws Exception {
         ReservationDTO reservationDTO = createReservationDTO();
@@ -102,7 +182,7 @@ public class ReservationServiceTest {
         Reservation reservation = createReservationEntity();
         Reservation createdReservation = createReservationEntity();
         ReservationDTO reservationDTO = createReservationDTO();
-        when(mapper.map(reservationDTO, Reservation.class)).thenReturn(reservation);
+        when(mapper.toEntity(reservationDTO)).thenReturn(reservation);
         when(repository.save(reservation)).thenReturn(createdReservation);
 
         // Act
@@ -120,34 +200,105 @@ public class ReservationServiceTest {
     }
 
     @Test
-    public void listAll_ShouldList() {
-        List<ReservationDTO> reservationDTOS = repository.findAll().stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class)).toList();
-        when(repository.findAll().stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class)).toList()).thenReturn(reservationDTOS);
+    public void listAll_ShouldListFirstPageWithNextCursor() throws Exception {
+        service.defaultPageSize = 1;
+        service.maxPageSize = 10;
+        ReservationProjection reservation = createReservationProjection(defaultId);
+        ReservationProjection nextReservation = createReservationProjection(2L);
+        when(repository.findPageOrderById(0L, PageRequest.of(0, 2))).thenReturn(List.of(reservation, nextReservation));
 
-        List<ReservationDTO> expectedReservationsDTO = service.listAll();
+        PageDTO<ReservationDTO> page = service.listAll(null, null, SORT_BY_ID);
 
-        assertArrayEquals(expectedReservationsDTO.toArray(), reservationDTOS.toArray());
+        assertThat(page.getContent()).extracting(ReservationDTO::getId).containsExactly(defaultId);
+        assertThat(decode(page.getNext(), SORT_BY_ID).lastId()).isEqualTo(defaultId);
+    }
+
+    @Test
+    public void listAll_ShouldListByEndDateAfterCursor() throws Exception {
+        service.defaultPageSize = 1;
+        service.maxPageSize = 10;
+        LocalDate lastEndDate = LocalDate.of(2024, 1, 10);
+        ReservationProjection reservation = createReservationProjection(defaultId);
+        ReservationProjection nextReservation = createReservationProjection(2L);
+        String cursor = encode(new Cursor(SORT_BY_END_DATE, 7L, lastEndDate));
+        when(repository.findPageOrderByEndDate(lastEndDate, 7L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(reservation, nextReservation));
+
+        PageDTO<ReservationDTO> page = service.listAll(cursor, null, SORT_BY_END_DATE);
+
+        Cursor next = decode(page.getNext(), SORT_BY_END_DATE);
+        assertThat(page.getContent()).extracting(ReservationDTO::getId).containsExactly(defaultId);
+        assertThat(next.lastId()).isEqualTo(defaultId);
+        assertThat(next.lastEndDate()).isEqualTo(reservation.endDate());
     }
 
-    @Test()
-    public void listAll_ShouldNotListAnyReservation() {
-        List<Reservation> emptyReservationList = repository.findAll();
-        when(repository.findAll()).thenReturn(emptyReservationList);
+    @Test
+    public void listAll_ShouldListLastPageWithoutNextCursor() throws Exception {
+        service.defaultPageSize = 20;
+        service.maxPageSize = 100;
+        when(repository.findFirstPageOrderByEndDate(PageRequest.of(0, 21))).thenReturn(List.of());
+
+        PageDTO<ReservationDTO> page = service.listAll(null, null, SORT_BY_END_DATE);
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void listAll_ShouldNotList_CursorOfAnotherSort() {
+        String cursor = encode(new Cursor(SORT_BY_ID, defaultId, null));
 
-        List<ReservationDTO> returnedReservationsDTO = service.listAll();
+        Throwable exception = catchThrowable(() -> service.listAll(cursor, null, SORT_BY_END_DATE));
 
-        assertArrayEquals(emptyReservationList.toArray(), returnedReservationsDTO.toArray());
+        assertThat(exception.getMessage()).isEqualTo(INVALID_CURSOR);
+    }
+
+    @Test
+    public void listAll_ShouldNotList_InvalidSort() {
+        Throwable exception = catchThrowable(() -> service.listAll(null, null, "price"));
+
+        assertThat(exception.getMessage()).isEqualTo(INVALID_SORT);
+    }
+
+    @Test
+    public void export_ShouldWriteNdjsonLinesWithCustomerAndRoom() throws Exception {
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(createReservationProjection(defaultId)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        service.export(ExportFormat.NDJSON, outputStream);
+
+        String ndjson = outputStream.toString(StandardCharsets.UTF_8);
+        JsonNode line = objectMapper.readTree(ndjson);
+        assertThat(ndjson).endsWith("}\n").containsOnlyOnce("\n");
+        assertThat(line.get("code").asText()).isEqualTo("RES001");
+        assertThat(line.get("customer").get("name").asText()).isEqualTo("Jose");
+        assertThat(line.get("reservedRoom").get("number").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    public void export_ShouldWriteCsvWithFlattenedCustomerAndRoom() throws Exception {
+        LocalDate startDate = LocalDate.of(2024, 1, 10);
+        ReservationProjection reservation = new ReservationProjection(defaultId, "RES001", 1L, "Jose",
+                LocalDate.of(1990, 10, 5), "12345678910", "email@gmail.com", 1L, 1, "Room 1", 30D, 500D, false,
+                true, 1000.0, "Late check-in\nsays \"hi\"", 2, startDate, startDate.plusMonths(2), true);
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(reservation));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        service.export(ExportFormat.CSV, outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,code,customerId,customerName,reservedRoomId,reservedRoomNumber,reservationPrice,description," +
+                "duration,startDate,endDate,active\r\n" +
+                "1,RES001,1,Jose,1,1,1000.0,\"Late check-in\nsays \"\"hi\"\"\",2,2024-01-10,2024-03-10,true\r\n");
     }
 
     @Test
     public void findById_ShouldGet() {
         Reservation reservation = createReservationEntity();
-        ReservationDTO expectedReservationDTO = mapper.map(reservation, ReservationDTO.class);
+        ReservationDTO expectedReservationDTO = mapper.toDTO(reservation);
 
         when(repository.findById(defaultId)).thenReturn(Optional.of(reservation));
-        when(mapper.map(reservation, ReservationDTO.class)).thenReturn(expectedReservationDTO);
+        when(mapper.toDTO(reservation)).thenReturn(expectedReservationDTO);
 
         ReservationDTO returnedReservationDTO = service.findById(defaultId);
 
@@ -164,75 +315,83 @@ public class ReservationServiceTest {
     }
 
     @Test
-    public void search_ShouldSearch() {
-        boolean active = true;
-        int endsIn = 5;
+    public void search_ShouldMergeBothFiltersWithoutDuplicates() {
+        LocalDate today = LocalDate.now();
+        LocalDate endsInDate = getFutureDateBasedInMonthsQuantity(5);
+        when(repository.findByActive(true)).thenReturn(List.of(createReservationProjection(2L), createReservationProjection(defaultId)));
+        when(repository.findByEndDateBetween(today, endsInDate)).thenReturn(List.of(createReservationProjection(defaultId), createReservationProjection(3L)));
 
-        LocalDate endsInDate = getFutureDateBasedInMonthsQuantity(endsIn);
+        List<ReservationDTO> returnedReservationsDTO = service.search(true, 5);
 
-        List<ReservationDTO> expectedReservationsDTO = repository
-                .search(active, endsInDate)
-                .stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                .toList();
+        assertThat(returnedReservationsDTO).extracting(ReservationDTO::getId).containsExactly(1L, 2L, 3L);
+        assertThat(returnedReservationsDTO.get(0).getCustomer().getId()).isEqualTo(defaultId);
+        assertThat(returnedReservationsDTO.get(0).getReservedRoom().getId()).isEqualTo(defaultId);
+    }
 
-        when(repository.search(active, endsInDate)
-                .stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                .toList()
-        ).thenReturn(expectedReservationsDTO);
+    @Test
+    public void search_ShouldOnlyFilterByEndDate_WhenActiveIsNull() {
+        LocalDate endsInDate = getFutureDateBasedInMonthsQuantity(5);
+        when(repository.findByEndDateBetween(LocalDate.now(), endsInDate)).thenReturn(List.of(createReservationProjection(defaultId)));
 
-        List<ReservationDTO> returnedReservationsDTO = service.search(active, endsIn);
+        List<ReservationDTO> returnedReservationsDTO = service.search(null, 5);
 
-        assertThatList(expectedReservationsDTO).isEqualTo(returnedReservationsDTO);
+        assertThat(returnedReservationsDTO).extracting(ReservationDTO::getId).containsExactly(defaultId);
+        verify(repository, never()).findByActive(anyBoolean());
     }
 
     @Test
-    public void search_ShouldNotSearch() {
-        List<ReservationDTO> expectedReservationDTO = List.of();
-        when(
-                repository
-                        .findByCustomerId(defaultId)
-                        .stream()
-                        .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                        .toList()
-        ).thenReturn(expectedReservationDTO);
+    public void search_ShouldOnlyFilterByActive_WhenEndsInIsNull() {
+        when(repository.findByActive(false)).thenReturn(List.of());
 
-        List<ReservationDTO> returnedReservationsDTO = service.findByCustomer(defaultId);
+        List<ReservationDTO> returnedReservationsDTO = service.search(false, null);
 
         assertThatList(returnedReservationsDTO).isEmpty();
+        verify(repository, never()).findByEndDateBetween(any(), any());
+    }
+
+    @Test
+    public void search_ShouldNotQuery_WithoutFilters() {
+        List<ReservationDTO> returnedReservationsDTO = service.search(null, null);
+
+        assertThatList(returnedReservationsDTO).isEmpty();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void search_ShouldQueryOnceForTheSameParameters() {
+        when(repository.findByActive(true)).thenReturn(List.of(createReservationProjection(defaultId)));
+
+        service.search(true, null);
+        List<ReservationDTO> returnedReservationsDTO = service.search(true, null);
+
+        assertThat(returnedReservationsDTO).hasSize(1);
+        verify(repository, times(1)).findByActive(true);
+    }
+
+    @Test
+    public void search_ShouldQueryAgainAfterAWrite() {
+        when(repository.findByActive(true)).thenReturn(List.of());
+        when(repository.existsById(defaultId)).thenReturn(true);
+
+        service.search(true, null);
+        service.deleteById(defaultId);
+        service.search(true, null);
+
+        verify(repository, times(2)).findByActive(true);
     }
 
     @Test
     public void findByCustomer_ShouldGet() {
-        List<ReservationDTO> expectedReservationDTO = repository
-                .findByCustomerId(defaultId)
-                .stream()
-                .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                .toList();
-        when(
-                repository
-                        .findByCustomerId(defaultId)
-                        .stream()
-                        .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                        .toList()
-        ).thenReturn(expectedReservationDTO);
+        when(repository.findByCustomerId(defaultId)).thenReturn(List.of(createReservationProjection(defaultId)));
 
         List<ReservationDTO> returnedReservationsDTO = service.findByCustomer(defaultId);
 
-        assertThatList(expectedReservationDTO).isEqualTo(returnedReservationsDTO);
+        assertThat(returnedReservationsDTO).extracting(ReservationDTO::getId).containsExactly(defaultId);
     }
 
     @Test
     public void findByCustomer_ShouldNotGet() {
-        List<ReservationDTO> expectedReservationDTO = List.of();
-        when(
-                repository
-                        .findByCustomerId(defaultId + 1)
-                        .stream()
-                        .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                        .toList()
-        ).thenReturn(expectedReservationDTO);
+        when(repository.findByCustomerId(defaultId + 1)).thenReturn(List.of());
 
         List<ReservationDTO> returnedReservationsDTO = service.findByCustomer(defaultId + 1);
 
@@ -241,33 +400,16 @@ public class ReservationServiceTest {
 
     @Test
     public void findByRoom_ShouldGet() {
-        List<ReservationDTO> expectedReservationsDTO = repository
-                .findByReservedRoomId(defaultId)
-                .stream().map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                .toList();
-        when(
-                repository
-                        .findByReservedRoomId(defaultId)
-                        .stream()
-                        .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                        .toList()
-        ).thenReturn(expectedReservationsDTO);
+        when(repository.findByReservedRoomId(defaultId)).thenReturn(List.of(createReservationProjection(defaultId)));
 
         List<ReservationDTO> returnedReservationsDTO = service.findByRoom(defaultId);
 
-        assertThatList(expectedReservationsDTO).isEqualTo(returnedReservationsDTO);
+        assertThat(returnedReservationsDTO).extracting(ReservationDTO::getId).containsExactly(defaultId);
     }
 
     @Test
     public void findByRoom_ShouldNotGet() {
-        List<ReservationDTO> expectedReservationDTO = List.of();
-        when(
-                repository
-                        .findByReservedRoomId(defaultId + 1)
-                        .stream()
-                        .map(reservation -> mapper.map(reservation, ReservationDTO.class))
-                        .toList()
-        ).thenReturn(expectedReservationDTO);
+        when(repository.findByReservedRoomId(defaultId + 1)).thenReturn(List.of());
 
         List<ReservationDTO> returnedReservationsDTO = service.findByRoom(defaultId + 1);
 
@@ -281,6 +423,8 @@ public class ReservationServiceTest {
         boolean returned = service.deleteById(defaultId);
 
         assertThat(returned).isTrue();
+        verify(changeFeedService).recordDeletion(EntityType.RESERVATION, defaultId);
+        verify(outboxService).record(EntityType.RESERVATION, defaultId, OutboxEventType.DELETED, Map.of("id", defaultId));
     }
 
     @Test
@@ -290,6 +434,8 @@ public class ReservationServiceTest {
         boolean returned = service.deleteById(defaultId);
 
         assertThat(returned).isFalse();
+        verify(changeFeedService, never()).recordDeletion(any(), anyLong());
+        verifyNoInteractions(outboxService);
     }
 
     @Test
@@ -297,10 +443,14 @@ public class ReservationServiceTest {
         Reservation reservationToUpdate = createReservationEntity();
         ReservationDTO reservationDTO = createReservationDTO();
         when(repository.findById(defaultId)).thenReturn(Optional.of(reservationToUpdate));
+        when(mapper.toDTO(reservationToUpdate)).thenReturn(reservationDTO);
 
         Long returnedId = service.update(reservationDTO, defaultId);
 
         assertThat(returnedId).isEqualTo(defaultId);
+        verify(outboxService).record(EntityType.RESERVATION, defaultId, OutboxEventType.UPDATED, reservationDTO);
+        verify(auditTrailService).record(EntityType.RESERVATION, defaultId, AuditAction.UPDATE,
+                reservationDTO, reservationDTO);
     }
 
     @Test
@@ -323,6 +473,73 @@ public class ReservationServiceTest {
     }
 
 
+    @Test
+    public void patch_ShouldPatchOnlyGivenFields() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"active\": false, \"description\": \"Patched\"}");
+        when(repository.updateById(eq(Reservation.class), eq(1L), anyMap())).thenReturn(1);
+
+        Long returnedId = service.patch(patch, defaultId);
+
+        ArgumentCaptor<Map<String, Object>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(repository).updateById(eq(Reservation.class), eq(1L), changes.capture());
+        verifyNoMoreInteractions(repository);
+        assertThat(returnedId).isEqualTo(defaultId);
+        assertThat(changes.getValue()).containsOnlyKeys("active", "description", "updatedBy", "updatedAt");
+        assertThat(changes.getValue()).containsEntry("description", "Patched");
+        verify(outboxService).record(EntityType.RESERVATION, defaultId, OutboxEventType.PATCHED, changes.getValue());
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_NotFound() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"active\": false}");
+        when(repository.updateById(eq(Reservation.class), eq(1L), anyMap())).thenReturn(0);
+
+        Long returnedId = service.patch(patch, defaultId);
+
+        assertThat(returnedId).isNull();
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_ThePriceOrTheDates() throws Exception {
+        Map<String, String> patches = Map.of(
+                "reservationPrice", "{\"reservationPrice\": 1.0}",
+                "duration", "{\"duration\": 3}",
+                "startDate", "{\"startDate\": \"2030-01-01\"}",
+                "endDate", "{\"endDate\": \"2030-01-31\"}"
+        );
+
+        for (Map.Entry<String, String> patch : patches.entrySet()) {
+            JsonNode json = objectMapper.readTree(patch.getValue());
+
+            Throwable exception = catchThrowable(() -> service.patch(json, defaultId));
+
+            assertThat(exception.getMessage()).isEqualTo(String.format(FIELD_NOT_PATCHABLE, patch.getKey()));
+        }
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_TheDurationAlongWithAllowedFields() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"description\": \"Three months\", \"duration\": 3}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo(String.format(FIELD_NOT_PATCHABLE, "duration"));
+        verifyNoInteractions(repository, outboxService);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_InvalidValue() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"active\": \"maybe\"}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo(String.format(INVALID_FIELD_VALUE, "active"));
+        verifyNoInteractions(repository);
+    }
+
     public Reservation createReservationEntity() {
         LocalDate dateOfBirth = LocalDate.of(1990, 10, 5);
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
@@ -335,6 +552,14 @@ public class ReservationServiceTest {
                 12, LocalDate.now(), LocalDate.now(), true);
     }
 
+    public ReservationProjection createReservationProjection(Long id) {
+        LocalDate dateOfBirth = LocalDate.of(1990, 10, 5);
+
+        return new ReservationProjection(id, "RES00" + id, 1L, "Jose", dateOfBirth, "12345678910",
+                "email@gmail.com", 1L, 1, "Room 1", 30D, 500D, false, true, 1000.0, "Reservation test",
+                12, LocalDate.now(), LocalDate.now(), true);
+    }
+
     public ReservationDTO createReservationDTO() {
         LocalDate dateOfBirth = LocalDate.of(1990, 10, 5);
 
@@ -0,0 +1,236 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.projections.RoomOccupancyProjection;
+import com.martingarrote.reservationmanagement.repositories.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RoomOccupancyServiceTest {
+
+    @Mock
+    RoomRepository repository;
+
+    @Mock
+    SseEmitter emitter;
+
+    @InjectMocks
+    RoomOccupancyService service;
+
+    private List<Runnable> tasks;
+
+    @Before
+    public void setUp() {
+        this.tasks = new ArrayList<>();
+        service.executor = tasks::add;
+        service.senders = tasks::add;
+        service.sendTimeout = Duration.ofSeconds(10);
+        service.meterRegistry = new SimpleMeterRegistry();
+        service.bufferSize = 2;
+
+        lenient().when(repository.findAllOccupancy()).thenReturn(List.of(occupancy(1L, false, 1000)));
+    }
+
+    @Test
+    public void subscribe_ShouldSendSnapshot() throws Exception {
+        service.subscribe(emitter);
+
+        assertThat(sentEvents()).singleElement().asString()
+                .startsWith("event:snapshot").contains("RoomOccupancyDTO{id=1");
+    }
+
+    @Test
+    public void publish_ShouldSendTheCommittedState() throws Exception {
+        service.subscribe(emitter);
+        when(repository.findOccupancyById(2L)).thenReturn(Optional.of(occupancy(2L, true, 1000)));
+
+        service.publish(2L);
+        runTasks();
+
+        assertThat(sentEvents()).last().asString().startsWith("event:occupancy").contains("id=2", "busy=true");
+    }
+
+    @Test
+    public void publish_ShouldNotReadTheRoom_WithoutSubscribers() {
+        service.publish(2L);
+        runTasks();
+
+        verify(repository, never()).findOccupancyById(anyLong());
+    }
+
+    @Test
+    public void publish_ShouldSendDeleted_WhenTheRoomIsGone() throws Exception {
+        service.subscribe(emitter);
+        when(repository.findOccupancyById(7L)).thenReturn(Optional.empty());
+
+        service.publish(7L);
+        runTasks();
+
+        assertThat(sentEvents()).last().asString().startsWith("event:deleted").contains("data:7");
+    }
+
+    @Test
+    public void publish_ShouldCoalesceChangesOfTheSameRoom() throws Exception {
+        service.subscribe(emitter);
+        when(repository.findOccupancyById(2L))
+                .thenReturn(Optional.of(occupancy(2L, true, 1000)))
+                .thenReturn(Optional.of(occupancy(2L, false, 2000)));
+
+        service.publish(2L);
+        service.publish(2L);
+        runTasks();
+
+        List<String> events = sentEvents();
+        assertThat(events).hasSize(2);
+        assertThat(events.get(1)).contains("id=2", "busy=false");
+    }
+
+    @Test
+    public void publish_ShouldSkipAnOlderState() throws Exception {
+        service.subscribe(emitter);
+        when(repository.findOccupancyById(2L))
+                .thenReturn(Optional.of(occupancy(2L, false, 2000)))
+                .thenReturn(Optional.of(occupancy(2L, true, 1000)));
+
+        service.broadcast(2L);
+        service.broadcast(2L);
+        runTasks();
+
+        List<String> events = sentEvents();
+        assertThat(events).hasSize(2);
+        assertThat(events.get(1)).contains("id=2", "busy=false");
+    }
+
+    @Test
+    public void publish_ShouldSendASnapshot_WhenTheBufferOverflows() throws Exception {
+        service.subscribe(emitter);
+        when(repository.findOccupancyById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(occupancy(invocation.getArgument(0), true, 1000)));
+
+        service.broadcast(2L);
+        service.broadcast(3L);
+        service.broadcast(4L);
+        runTasks();
+
+        assertThat(sentEvents()).hasSize(2).allMatch(event -> event.startsWith("event:snapshot"));
+        assertThat(service.meterRegistry.counter("rooms.occupancy.overflows").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void publish_ShouldDropTheSubscriber_WhenTheClientIsGone() throws Exception {
+        service.subscribe(emitter);
+        when(repository.findOccupancyById(2L)).thenReturn(Optional.of(occupancy(2L, true, 1000)));
+        doThrow(IOException.class).when(emitter).send(any(SseEventBuilder.class));
+
+        service.broadcast(2L);
+        runTasks();
+        service.broadcast(2L);
+
+        assertThat(service.subscribers).isEmpty();
+        verify(repository, times(1)).findOccupancyById(2L);
+    }
+
+    @Test
+    public void publish_ShouldDropTheSubscriber_WhenTheSendersAreSaturated() {
+        service.subscribe(emitter);
+        service.senders = task -> {
+            throw new RejectedExecutionException();
+        };
+        when(repository.findOccupancyById(2L)).thenReturn(Optional.of(occupancy(2L, true, 1000)));
+
+        service.broadcast(2L);
+
+        assertThat(service.subscribers).isEmpty();
+        verify(emitter).complete();
+        assertThat(service.meterRegistry.counter("rooms.occupancy.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void dropStalledSubscribers_ShouldReleaseASenderBlockedOnASlowClient() throws Exception {
+        ExecutorService senders = Executors.newSingleThreadExecutor();
+        service.senders = senders;
+        service.sendTimeout = Duration.ofMillis(50);
+        service.subscribe(emitter);
+
+        CountDownLatch sending = new CountDownLatch(1);
+        // A full TCP window: the write blocks until the sender thread is interrupted
+        doAnswer(invocation -> {
+            sending.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return null;
+        }).when(emitter).send(any(SseEventBuilder.class));
+        when(repository.findOccupancyById(2L)).thenReturn(Optional.of(occupancy(2L, true, 1000)));
+
+        service.broadcast(2L);
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        service.dropStalledSubscribers();
+
+        // The mock's complete() is synchronized like the real one, so the drain has to finish before verifying
+        senders.shutdown();
+        assertThat(senders.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        verify(emitter).complete();
+        assertThat(service.subscribers).isEmpty();
+        assertThat(service.meterRegistry.counter("rooms.occupancy.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void sendHeartbeats_ShouldSendAComment() throws Exception {
+        service.subscribe(emitter);
+
+        service.sendHeartbeats();
+        runTasks();
+
+        assertThat(sentEvents()).last().asString().startsWith(":heartbeat");
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private List<String> sentEvents() throws IOException {
+        ArgumentCaptor<SseEventBuilder> events = ArgumentCaptor.forClass(SseEventBuilder.class);
+        verify(emitter, atLeastOnce()).send(events.capture());
+
+        return events.getAllValues().stream()
+                .map(event -> event.build().stream()
+                        .map(data -> data.getData().toString())
+                        .collect(Collectors.joining()))
+                .toList();
+    }
+
+    private RoomOccupancyProjection occupancy(long id, boolean busy, long updatedAt) {
+        return new RoomOccupancyProjection(id, (int) (100 + id), busy, true, new Timestamp(updatedAt));
+    }
+}
@@ -1,25 +1,41 @@
 package com.martingarrote.reservationmanagement.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.interfaces.MapperInterface;
+import com.martingarrote.reservationmanagement.models.dtos.PageDTO;
 import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
-import com.martingarrote.reservationmanagement.models.entities.Reservation;
 import com.martingarrote.reservationmanagement.models.entities.Room;
-import com.martingarrote.reservationmanagement.repositories.ReservationRepository;
+import com.martingarrote.reservationmanagement.models.enums.AuditAction;
+import com.martingarrote.reservationmanagement.models.enums.EntityType;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import com.martingarrote.reservationmanagement.models.projections.RoomProjection;
 import com.martingarrote.reservationmanagement.repositories.RoomRepository;
+import com.martingarrote.reservationmanagement.utils.CursorUtils.Cursor;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageRequest;
 
-import java.time.LocalDate;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.*;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PaginationExceptions.INVALID_CURSOR;
+import static com.martingarrote.reservationmanagement.consts.ExceptionConsts.PatchExceptions.*;
+import static com.martingarrote.reservationmanagement.utils.CursorUtils.*;
 import static org.assertj.core.api.Assertions.*;
-import static org.junit.Assert.assertArrayEquals;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -29,10 +45,25 @@ public class RoomServiceTest {
     RoomRepository repository;
 
     @Mock
-    ModelMapper mapper;
+    MapperInterface<Room, RoomDTO> mapper;
 
     @Mock
-    ReservationRepository reservationRepository;
+    ReservationService reservationService;
+
+    @Mock
+    ChangeFeedService changeFeedService;
+
+    @Mock
+    AuditTrailService auditTrailService;
+
+    @Mock
+    RoomOccupancyService roomOccupancyService;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @InjectMocks
     RoomService service;
@@ -50,14 +81,14 @@ public class RoomServiceTest {
         Room room = createRoomEntity();
         Room createdRoom = createRoomEntity();
         RoomDTO roomDTO = createRoomDTO();
-        when(mapper.map(roomDTO, Room.class)).thenReturn(room);
+        when(mapper.toEntity(roomDTO)).thenReturn(room);
         when(repository.save(room)).thenReturn(createdRoom);
 
         // Act
         Long id = service.save(roomDTO);
 
         // Asserts
-        verify(mapper).map(roomDTO, Room.class);
+        verify(mapper).toEntity(roomDTO);
         verify(repository, times(1)).save(room);
         verifyNoMoreInteractions(repository);
         assertThat(id).isEqualTo(defaultId);
@@ -78,7 +109,7 @@ public class RoomServiceTest {
         Room room = createRoomEntity();
         Room createdRoom = createRoomEntity();
         RoomDTO roomDTO = createRoomDTO();
-        when(mapper.map(roomDTO, Room.class)).thenReturn(room);
+        when(mapper.toEntity(roomDTO)).thenReturn(room);
         when(repository.save(room)).thenReturn(createdRoom);
 
         // Act
@@ -96,34 +127,81 @@ public class RoomServiceTest {
     }
 
     @Test
-    public void listAll_ShouldList() {
-        List<RoomDTO> roomsDTO = repository.findAll().stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList();
-        when(repository.findAll().stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList()).thenReturn(roomsDTO);
+    public void listAll_ShouldListFirstPageWithNextCursor() throws Exception {
+        service.defaultPageSize = 1;
+        service.maxPageSize = 10;
+        RoomProjection room = createRoomProjection();
+        RoomProjection nextRoom = new RoomProjection(2L, 2, "Room 2", 30d, 500d, false, true);
+        when(repository.findPageOrderById(0L, PageRequest.of(0, 2))).thenReturn(List.of(room, nextRoom));
+
+        PageDTO<RoomDTO> page = service.listAll(null, null);
+
+        assertThat(page.getContent()).extracting(RoomDTO::getId).containsExactly(defaultId);
+        assertThat(decode(page.getNext(), SORT_BY_ID).lastId()).isEqualTo(defaultId);
+    }
+
+    @Test
+    public void listAll_ShouldListLastPageWithoutNextCursor() throws Exception {
+        service.defaultPageSize = 20;
+        service.maxPageSize = 100;
+        String cursor = encode(new Cursor(SORT_BY_ID, defaultId, null));
+        when(repository.findPageOrderById(defaultId, PageRequest.of(0, 21))).thenReturn(List.of());
+
+        PageDTO<RoomDTO> page = service.listAll(cursor, null);
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void listAll_ShouldCapPageSizeAtMaximum() throws Exception {
+        service.defaultPageSize = 20;
+        service.maxPageSize = 100;
+        when(repository.findPageOrderById(0L, PageRequest.of(0, 101))).thenReturn(List.of());
 
-        List<RoomDTO> expectedRoomsDTO = service.listAll();
+        service.listAll(null, 5000);
 
-        assertArrayEquals(expectedRoomsDTO.toArray(), roomsDTO.toArray());
+        verify(repository).findPageOrderById(0L, PageRequest.of(0, 101));
     }
 
-    @Test()
-    public void listAll_ShouldNotListAnyRoom() {
-        List<Room> emptyRoomList = repository.findAll();
-        when(repository.findAll()).thenReturn(emptyRoomList);
+    @Test
+    public void listAll_ShouldNotList_InvalidCursor() {
+        Throwable exception = catchThrowable(() -> service.listAll("not-a-cursor", null));
+
+        assertThat(exception.getMessage()).isEqualTo(INVALID_CURSOR);
+    }
+
+    @Test
+    public void export_ShouldWriteNdjsonLines() throws Exception {
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(createRoomProjection()));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        service.export(ExportFormat.NDJSON, outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"number\":1,\"description\":\"Room 1\",\"size\":30.0,\"pricePerMonth\":500.0,\"busy\":true,\"active\":true}\n");
+    }
+
+    @Test
+    public void export_ShouldWriteCsvWithHeader() throws Exception {
+        RoomProjection room = new RoomProjection(1L, 1, "Room 1, \"sea view\"", 30d, 500d, true, true);
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(room));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        List<RoomDTO> returnedRoomsDTO = service.listAll();
+        service.export(ExportFormat.CSV, outputStream);
 
-        assertArrayEquals(emptyRoomList.toArray(), returnedRoomsDTO.toArray());
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,number,description,size,pricePerMonth,busy,active\r\n" +
+                "1,1,\"Room 1, \"\"sea view\"\"\",30.0,500.0,true,true\r\n");
     }
 
     @Test
     public void findById_ShouldGet() {
         Room room = createRoomEntity();
-        RoomDTO expectedRoomDTO = mapper.map(room, RoomDTO.class);
+        RoomDTO expectedRoomDTO = mapper.toDTO(room);
 
         when(repository.findById(defaultId)).thenReturn(Optional.of(room));
-        when(mapper.map(room, RoomDTO.class)).thenReturn(expectedRoomDTO);
+        when(mapper.toDTO(room)).thenReturn(expectedRoomDTO);
 
         RoomDTO returnedRoomDTO = service.findById(defaultId);
 
@@ -141,63 +219,53 @@ public class RoomServiceTest {
 
     @Test
     public void findByBusy_ShouldGetBusyRooms() {
-        Room roomBusy = createRoomEntity();
-        roomBusy.setBusy(true);
-
-        List<RoomDTO> expectedRoomsDTO = repository.findByBusy(true).stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList();
-
-        when(repository.findByBusy(true).stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList()).thenReturn(expectedRoomsDTO);
+        when(repository.findByBusy(true)).thenReturn(List.of(createRoomProjection()));
 
         List<RoomDTO> receivedRoomsDTO = service.findByBusy(true);
 
-        System.out.println(receivedRoomsDTO);
-
-        assertArrayEquals(receivedRoomsDTO.toArray(), expectedRoomsDTO.toArray());
+        assertThat(receivedRoomsDTO).usingRecursiveFieldByFieldElementComparator().containsExactly(createRoomDTO());
     }
 
     @Test
     public void findByBusy_ShouldNotGetAnyRoom() {
-        List<RoomDTO> expectedRoomsDTO = List.of();
-        when(repository.findByBusy(true).stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList()).thenReturn(expectedRoomsDTO);
-        when(repository.findByBusy(false).stream()
-                .map(room -> mapper.map(room, RoomDTO.class)).toList()).thenReturn(expectedRoomsDTO);
+        when(repository.findByBusy(true)).thenReturn(List.of());
+        when(repository.findByBusy(false)).thenReturn(List.of());
 
         List<RoomDTO> returnedNotBusyRoomsDTO = service.findByBusy(false);
         List<RoomDTO> returnedBusyRoomsDTO = service.findByBusy(true);
 
-        assertThatList(expectedRoomsDTO).isEqualTo(returnedNotBusyRoomsDTO);
-        assertThatList(expectedRoomsDTO).isEqualTo(returnedBusyRoomsDTO);
+        assertThatList(returnedNotBusyRoomsDTO).isEmpty();
+        assertThatList(returnedBusyRoomsDTO).isEmpty();
     }
 
     @Test
     public void deleteById_ShouldDelete() throws Exception {
-        when(repository.existsById(defaultId)).thenReturn(true);
+        when(repository.deleteByIdIfUnreserved(defaultId)).thenReturn(1);
 
         boolean returned = service.deleteById(defaultId);
 
         assertThat(returned).isTrue();
+        verify(repository, never()).existsById(defaultId);
+        verify(changeFeedService).recordDeletion(EntityType.ROOM, defaultId);
+        verify(auditTrailService).record(EntityType.ROOM, defaultId, AuditAction.DELETE, null, null);
+        verify(roomOccupancyService).publish(defaultId);
     }
 
     @Test
     public void deleteById_ShouldNotDelete_NotFound() throws Exception {
+        when(repository.deleteByIdIfUnreserved(defaultId)).thenReturn(0);
         when(repository.existsById(defaultId)).thenReturn(false);
 
         boolean returned = service.deleteById(defaultId);
 
         assertThat(returned).isFalse();
+        verify(changeFeedService, never()).recordDeletion(any(), anyLong());
     }
 
     @Test
-    public void deleteById_ShouldNotDelete_UnableToDeleteException() {
-        Room room = createRoomEntity();
-        Reservation reservation = new Reservation(1, "ABC123", null, room, 100.0,
-                "Test reservation", 3, LocalDate.now(),
-                LocalDate.now().plusDays(3), true);
+    public void deleteById_ShouldNotDelete_UnableToDeleteException() throws Exception {
+        when(repository.deleteByIdIfUnreserved(defaultId)).thenReturn(0);
         when(repository.existsById(defaultId)).thenReturn(true);
-        when(reservationRepository.findByReservedRoomId(defaultId)).thenReturn(List.of(reservation));
 
         Throwable exception = catchThrowable(() -> service.deleteById(defaultId));
 
@@ -208,11 +276,16 @@ public class RoomServiceTest {
     public void update_ShouldUpdate() throws Exception {
         Room roomToUpdate = createRoomEntity();
         RoomDTO roomDTO = createRoomDTO();
+        RoomDTO before = createRoomDTO();
         when(repository.findById(defaultId)).thenReturn(Optional.of(roomToUpdate));
+        when(mapper.toDTO(roomToUpdate)).thenReturn(before, roomDTO);
 
         Long returnedId = service.update(roomDTO, defaultId);
 
         assertThat(returnedId).isEqualTo(defaultId);
+        verify(reservationService).evictSearchCache();
+        verify(roomOccupancyService).publish(defaultId);
+        verify(auditTrailService).record(EntityType.ROOM, defaultId, AuditAction.UPDATE, before, roomDTO);
     }
 
     @Test
@@ -235,10 +308,93 @@ public class RoomServiceTest {
         assertThat(exception.getMessage()).isEqualTo(UPDATE_ERROR);
     }
 
+    @Test
+    public void patch_ShouldPatchOnlyGivenFields() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"description\": \"Patched room\", \"busy\": false}");
+        when(repository.updateById(eq(Room.class), eq(1L), anyMap())).thenReturn(1);
+
+        Long returnedId = service.patch(patch, defaultId);
+
+        ArgumentCaptor<Map<String, Object>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(repository).updateById(eq(Room.class), eq(1L), changes.capture());
+        verifyNoMoreInteractions(repository);
+        assertThat(returnedId).isEqualTo(defaultId);
+        assertThat(changes.getValue()).containsOnlyKeys("description", "busy", "updatedBy", "updatedAt");
+        assertThat(changes.getValue()).containsEntry("description", "Patched room").containsEntry("busy", false);
+        verify(auditTrailService).record(EntityType.ROOM, defaultId, AuditAction.PATCH, null, changes.getValue());
+        verify(reservationService).evictSearchCache();
+        verify(roomOccupancyService).publish(defaultId);
+    }
+
+    @Test
+    public void patch_ShouldNotPublishOccupancy_WhenBusyAndActiveAreUntouched() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"description\": \"Patched room\"}");
+        when(repository.updateById(eq(Room.class), eq(1L), anyMap())).thenReturn(1);
+
+        service.patch(patch, defaultId);
+
+        verifyNoInteractions(roomOccupancyService);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_NotFound() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"description\": \"Patched room\"}");
+        when(repository.updateById(eq(Room.class), eq(1L), anyMap())).thenReturn(0);
+
+        Long returnedId = service.patch(patch, defaultId);
+
+        assertThat(returnedId).isNull();
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_FieldNotPatchable() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"id\": 2}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo(String.format(FIELD_NOT_PATCHABLE, "id"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_NullField() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"description\": null}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo(String.format(FIELD_CANNOT_BE_NULL, "description"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_InvalidValue() throws Exception {
+        JsonNode patch = objectMapper.readTree("{\"size\": 5}");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo("The minimal value for the size field is ten square meters");
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void patch_ShouldNotPatch_NotAnObject() throws Exception {
+        JsonNode patch = objectMapper.readTree("[]");
+
+        Throwable exception = catchThrowable(() -> service.patch(patch, defaultId));
+
+        assertThat(exception.getMessage()).isEqualTo(INVALID_PATCH);
+        verifyNoInteractions(repository);
+    }
+
     public Room createRoomEntity() {
         return new Room(1L, 1, "Room 1", 30d, 500d, true, true);
     }
 
+    public RoomProjection createRoomProjection() {
+        return new RoomProjection(1L, 1, "Room 1", 30d, 500d, true, true);
+    }
+
     public RoomDTO createRoomDTO() {
         return new RoomDTO(1L, 1, "Room 1", 30D, 500D, true, true);
     }
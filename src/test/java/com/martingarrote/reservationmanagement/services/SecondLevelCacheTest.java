@@ -0,0 +1,82 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import com.martingarrote.reservationmanagement.models.dtos.RoomDTO;
+import com.martingarrote.reservationmanagement.models.entities.Customer;
+import com.martingarrote.reservationmanagement.models.entities.Room;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void roomUpdate_ShouldRefreshCachedRoom() throws Exception {
+        Long id = roomService.create(new RoomDTO(null, 9001, "Cached room", 30D, 500D, false, true));
+        roomService.findById(id);
+        assertThat(entityManagerFactory.getCache().contains(Room.class, id)).isTrue();
+
+        roomService.update(new RoomDTO(id, 9001, "Updated cached room", 35D, 650D, false, true), id);
+        statistics.clear();
+        RoomDTO room = roomService.findById(id);
+
+        assertThat(room.getDescription()).isEqualTo("Updated cached room");
+        assertThat(room.getPricePerMonth()).isEqualTo(650D);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void customerUpdate_ShouldRefreshCachedCustomer() throws Exception {
+        Long id = customerService.create(new CustomerDTO(null, "Cached customer", LocalDate.of(1990, 1, 1),
+                "90000000001", "cached@example.com"));
+        customerService.findById(id);
+        assertThat(entityManagerFactory.getCache().contains(Customer.class, id)).isTrue();
+
+        customerService.update(new CustomerDTO(id, "Updated customer", LocalDate.of(1990, 1, 1),
+                "90000000001", "updated@example.com"), id);
+        statistics.clear();
+        CustomerDTO customer = customerService.findById(id);
+
+        assertThat(customer.getEmail()).isEqualTo("updated@example.com");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void regions_ShouldPublishCacheMetrics() {
+        assertThat(meterRegistry.find("cache.gets")
+                .tag("cache", "room").tag("result", "hit").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("cache.evictions")
+                .tag("cache", "customer").functionCounter()).isNotNull();
+    }
+}
@@ -0,0 +1,55 @@
+package com.martingarrote.reservationmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.dtos.CustomerDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "audit.durability=transactional")
+class TransactionalAuditTrailTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void customerChanges_ShouldBeRecorded_InTheirOwnTransaction() throws Exception {
+        Long id = customerService.create(new CustomerDTO(null, "Durably audited customer", LocalDate.of(1990, 1, 1),
+                "22233344455", "durable@example.com"));
+
+        // Committed together with the customer, nothing is left for a writer thread
+        assertThat(actions(id)).containsExactly("CREATE");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                customerService.patch(objectMapper.readTree("{\"email\": \"rolled-back@example.com\"}"), id);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(actions(id)).containsExactly("CREATE");
+    }
+
+    private List<String> actions(long id) {
+        return jdbcTemplate.queryForList("SELECT action FROM audit_record WHERE entity = 'CUSTOMER' " +
+                "AND entity_id = ? ORDER BY id", String.class, id);
+    }
+}
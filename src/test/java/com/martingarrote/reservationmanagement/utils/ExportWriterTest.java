@@ -0,0 +1,137 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.martingarrote.reservationmanagement.models.enums.ExportFormat;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExportWriterTest {
+
+    private static final String[] CSV_HEADER = {"id", "name"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void write_ShouldQuoteAndEscapeCsvValues() throws Exception {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        ExportWriter<Row> writer = csvWriter(outputStream);
+
+        writer.write(new Row(1L, "plain"));
+        writer.write(new Row(2L, "Silva, Jose"));
+        writer.write(new Row(3L, "the \"sea\" view"));
+        writer.write(new Row(4L, "two\nlines"));
+        writer.write(new Row(5L, "carriage\rreturn"));
+        writer.write(new Row(6L, null));
+        writer.finish();
+
+        assertThat(outputStream.text()).isEqualTo(
+                "id,name\r\n" +
+                "1,plain\r\n" +
+                "2,\"Silva, Jose\"\r\n" +
+                "3,\"the \"\"sea\"\" view\"\r\n" +
+                "4,\"two\nlines\"\r\n" +
+                "5,\"carriage\rreturn\"\r\n" +
+                "6,\r\n");
+    }
+
+    @Test
+    public void write_ShouldFrameNdjsonRowsOnePerLine() throws Exception {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        ExportWriter<Row> writer = ndjsonWriter(outputStream);
+
+        writer.write(new Row(1L, "two\nlines"));
+        writer.write(new Row(2L, "Maria"));
+        writer.finish();
+
+        // No separator between the rows and no array around them, a newline inside a value stays escaped
+        assertThat(outputStream.text()).isEqualTo(
+                "{\"id\":1,\"name\":\"two\\nlines\"}\n" +
+                "{\"id\":2,\"name\":\"Maria\"}\n");
+    }
+
+    @Test
+    public void write_ShouldFlushTheFirstRowThenEveryFiveHundred() throws Exception {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        ExportWriter<Row> writer = ndjsonWriter(outputStream);
+
+        for (long id = 1; id <= 1001; id++) {
+            writer.write(new Row(id, "Customer " + id));
+        }
+
+        writer.finish();
+
+        assertThat(outputStream.linesAtFlush()).containsExactly(1L, 500L, 1000L, 1001L);
+    }
+
+    @Test
+    public void write_ShouldFlushTheCsvHeaderWithTheFirstRow() throws Exception {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        ExportWriter<Row> writer = csvWriter(outputStream);
+
+        assertThat(outputStream.text()).isEmpty();
+
+        for (long id = 1; id <= 500; id++) {
+            writer.write(new Row(id, "Customer " + id));
+        }
+
+        writer.finish();
+
+        assertThat(outputStream.linesAtFlush()).containsExactly(2L, 501L);
+    }
+
+    @Test
+    public void finish_ShouldWriteTheCsvHeader_WhenThereAreNoRows() throws Exception {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        ExportWriter<Row> writer = csvWriter(outputStream);
+
+        writer.finish();
+
+        assertThat(outputStream.text()).isEqualTo("id,name\r\n");
+    }
+
+    private ExportWriter<Row> csvWriter(CountingOutputStream outputStream) throws IOException {
+        return new ExportWriter<>(ExportFormat.CSV, objectMapper, outputStream, CSV_HEADER,
+                row -> new Object[]{row.id(), row.name()});
+    }
+
+    private ExportWriter<Row> ndjsonWriter(CountingOutputStream outputStream) throws IOException {
+        return new ExportWriter<>(ExportFormat.NDJSON, objectMapper, outputStream, CSV_HEADER,
+                row -> new Object[]{row.id(), row.name()});
+    }
+
+    public record Row(Long id, String name) {
+    }
+
+    // Keeps the number of complete lines the client had received at each flush that sent something new
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+
+        private final List<Long> linesAtFlush = new ArrayList<>();
+
+        private int flushedBytes;
+
+        @Override
+        public void flush() {
+            if (size() == flushedBytes) {
+                return;
+            }
+
+            flushedBytes = size();
+            linesAtFlush.add(text().chars().filter(c -> c == '\n').count());
+        }
+
+        List<Long> linesAtFlush() {
+            return linesAtFlush;
+        }
+
+        String text() {
+            return toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.martingarrote.reservationmanagement.utils;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Generates into a database of its own, the generator commits its chunks and would leak rows into a shared one
+class SyntheticDataGeneratorTest {
+
+    private static final String RESERVATIONS = "SELECT id, code, customer_id, reserved_room_id, reservation_price, " +
+            "duration, start_date, end_date, active FROM reservation ORDER BY id";
+
+    @Test
+    void generate_ShouldInsertValidRows() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(generate("valid", 3));
+
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM customer")).isEqualTo(5 + 500);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM room")).isEqualTo(5 + 40);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM reservation")).isEqualTo(5 + 2000);
+
+        assertThat(count(jdbcTemplate, "SELECT COUNT(DISTINCT cpf) FROM customer")).isEqualTo(5 + 500);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(DISTINCT number) FROM room")).isEqualTo(5 + 40);
+        assertThat(count(jdbcTemplate, "SELECT MIN(number) FROM room WHERE id > 5")).isEqualTo(105 + 1);
+        assertThat(jdbcTemplate.queryForList("SELECT cpf FROM customer WHERE id > 5", String.class))
+                .allMatch(SyntheticDataGeneratorTest::isValidCpf);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM customer WHERE date_of_birth > ?",
+                LocalDate.now().minusYears(18))).isZero();
+
+        // No room is reserved twice at the same time
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM reservation r1 JOIN reservation r2 " +
+                "ON r1.reserved_room_id = r2.reserved_room_id AND r1.id < r2.id " +
+                "AND r1.start_date < r2.end_date AND r2.start_date < r1.end_date WHERE r1.id > 5")).isZero();
+
+        // A busy room has exactly one active reservation, running today, and a free room has none
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM room r WHERE r.id > 5 AND " +
+                "(SELECT COUNT(*) FROM reservation v WHERE v.reserved_room_id = r.id AND v.active) " +
+                "<> CASE WHEN r.busy THEN 1 ELSE 0 END")).isZero();
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM reservation WHERE id > 5 AND active " +
+                "AND NOT (start_date <= ? AND end_date > ?)", LocalDate.now(), LocalDate.now())).isZero();
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM room WHERE busy AND NOT active")).isZero();
+    }
+
+    @Test
+    void generate_ShouldInsertSameRowsForSameSeed_WhateverTheThreads() throws Exception {
+        List<Map<String, Object>> singleThread = new JdbcTemplate(generate("single-thread", 1))
+                .queryForList(RESERVATIONS);
+        List<Map<String, Object>> threeThreads = new JdbcTemplate(generate("three-threads", 3))
+                .queryForList(RESERVATIONS);
+
+        assertThat(threeThreads).isEqualTo(singleThread);
+    }
+
+    @Test
+    void generate_ShouldRestartIdentitiesAfterGeneratedIds() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(generate("identity", 1));
+
+        jdbcTemplate.update("INSERT INTO room (number, description, size, busy, active, price_per_month) " +
+                "VALUES (1, 'Room', 10, false, true, 300)");
+
+        assertThat(count(jdbcTemplate, "SELECT MAX(id) FROM room")).isEqualTo(5 + 40 + 1);
+    }
+
+    @Test
+    void cpf_ShouldAppendCheckDigits() {
+        assertThat(SyntheticDataGenerator.cpf(23_456_789)).isEqualTo("12345678909");
+        assertThat(SyntheticDataGenerator.cpf(0)).isEqualTo("10000000019");
+    }
+
+    private static DataSource generate(String database, int threads) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:generator-" + database + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load().migrate();
+
+        new SyntheticDataGenerator(dataSource, 42, threads).generate(500, 40, 2000);
+
+        return dataSource;
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+
+    private static boolean isValidCpf(String cpf) {
+        for (int length = 9; length <= 10; length++) {
+            int sum = 0;
+
+            for (int i = 0; i < length; i++) {
+                sum += (cpf.charAt(i) - '0') * (length + 1 - i);
+            }
+
+            int remainder = sum % 11;
+
+            if (cpf.charAt(length) - '0' != (remainder < 2 ? 0 : 11 - remainder)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}